@@ -0,0 +1,63 @@
+package org.emp.gl.benchmarks;
+
+import java.beans.PropertyChangeEvent;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.emp.gl.clients.Horloge;
+import org.emp.gl.clients.SortieConsole;
+import org.emp.gl.clients.SortieMuette;
+import org.emp.gl.time.service.impl.DummyTimeServiceImpl;
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Coût par événement de l'horloge console, sorties neutralisées.
+ * La sortie asynchrone rejette ce que son écrivain n'a pas le temps d'écrire.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientsBenchmark {
+
+    private DummyTimeServiceImpl service;
+    private PrintStream sortieOriginale;
+    private SortieConsole sortie;
+    private Horloge horloge;
+    private PropertyChangeEvent evenement;
+
+    @Setup
+    public void preparer() {
+        sortieOriginale = System.out;
+        System.setOut(SortieMuette.flux());
+        service = Services.creerServiceImmobile();
+        sortie = new SortieConsole(SortieMuette.CANAL, 1 << 14);
+        horloge = new Horloge("bench", service, sortie);
+        evenement = new PropertyChangeEvent(service, TimerChangeListener.SECONDE_PROP, 1, 2);
+    }
+
+    @TearDown
+    public void arreter() {
+        service.arreter();
+        sortie.close();
+        System.setOut(sortieOriginale);
+    }
+
+    @Benchmark
+    public void horlogePropertyChange() {
+        horloge.propertyChange(evenement);
+    }
+}
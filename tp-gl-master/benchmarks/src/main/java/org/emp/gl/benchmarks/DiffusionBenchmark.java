@@ -0,0 +1,92 @@
+package org.emp.gl.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.emp.gl.time.service.impl.DummyTimeServiceImpl;
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.emp.gl.timer.service.UniteTemps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Coût d'une diffusion de seconde selon le nombre d'écouteurs,
+ * pour les écouteurs primitifs et historiques
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiffusionBenchmark {
+
+    @Param({"1", "100", "10000", "1000000"})
+    int nombreEcouteurs;
+
+    @Param({"primitif", "historique"})
+    String type;
+
+    private DummyTimeServiceImpl service;
+    private int seconde;
+
+    @Setup
+    public void preparer() {
+        service = Services.creerServiceImmobile();
+        for (int i = 0; i < nombreEcouteurs; i++) {
+            if ("primitif".equals(type)) {
+                service.addTickListener(new CompteurTicks(), UniteTemps.MASQUE_SECONDE, 1);
+            } else {
+                service.addTimeChangeListener(new CompteurEvenements(), UniteTemps.MASQUE_SECONDE, 1);
+            }
+        }
+    }
+
+    @TearDown
+    public void arreter() {
+        service.arreter();
+    }
+
+    @Benchmark
+    public void diffuserSeconde() {
+        seconde = (seconde + 1) % 60;
+        service.setSecondes(seconde);
+    }
+
+    /**
+     * Écouteur primitif minimal
+     */
+    static final class CompteurTicks implements TickListener {
+
+        int total;
+
+        @Override
+        public void onTick(int unite, int ancienneValeur, int heures, int minutes,
+                           int secondes, int dixiemes) {
+            total += secondes;
+        }
+    }
+
+    /**
+     * Écouteur historique minimal
+     */
+    static final class CompteurEvenements implements TimerChangeListener {
+
+        int total;
+
+        @Override
+        public void propertyChange(java.beans.PropertyChangeEvent evt) {
+            total += (Integer) evt.getNewValue();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.emp.gl.benchmarks;
+
+import java.awt.GraphicsEnvironment;
+import java.beans.PropertyChangeEvent;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.emp.gl.clients.HorlogeGraphique;
+import org.emp.gl.time.service.impl.DummyTimeServiceImpl;
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Coût par événement de l'horloge graphique, rendu sur l'EDT compris.
+ * Nécessite un affichage : à exclure avec {@code -e HorlogeGraphique}
+ * sur une machine sans écran.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HorlogeGraphiqueBenchmark {
+
+    private static final int LOT = 1000;
+
+    private DummyTimeServiceImpl service;
+    private HorlogeGraphique horloge;
+    private PropertyChangeEvent evenement;
+
+    @Setup
+    public void preparer() throws Exception {
+        if (GraphicsEnvironment.isHeadless()) {
+            throw new IllegalStateException("HorlogeGraphiqueBenchmark nécessite un affichage");
+        }
+        service = Services.creerServiceImmobile();
+        SwingUtilities.invokeAndWait(() -> horloge = new HorlogeGraphique("bench", service));
+        evenement = new PropertyChangeEvent(service, TimerChangeListener.SECONDE_PROP, 1, 2);
+    }
+
+    @TearDown
+    public void arreter() throws Exception {
+        service.arreter();
+        SwingUtilities.invokeAndWait(() -> horloge.dispose());
+    }
+
+    /**
+     * Envoie un lot d'événements puis attend que l'EDT les ait tous rendus
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOT)
+    public void propertyChange() throws Exception {
+        for (int i = 0; i < LOT; i++) {
+            horloge.propertyChange(evenement);
+        }
+        SwingUtilities.invokeAndWait(() -> { });
+    }
+}
@@ -0,0 +1,33 @@
+package org.emp.gl.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Point d'entrée du jar de benchmarks.
+ * <p>
+ * Accepte les options habituelles de JMH. Sauf indication contraire
+ * ({@code -rf}, {@code -rff}), les résultats sont écrits au format JSON
+ * dans {@code jmh-result.json}, afin de suivre les régressions d'une
+ * version à l'autre.
+ */
+public class LanceurBenchmarks {
+
+    private static final String FICHIER_RESULTATS = "jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions ligneDeCommande = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(ligneDeCommande);
+
+        if (!ligneDeCommande.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!ligneDeCommande.getResult().hasValue()) {
+            options.result(FICHIER_RESULTATS);
+        }
+        new Runner(options.build()).run();
+    }
+}
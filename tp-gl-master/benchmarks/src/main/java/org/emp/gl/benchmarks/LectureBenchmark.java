@@ -0,0 +1,83 @@
+package org.emp.gl.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.emp.gl.time.service.impl.DummyTimeServiceImpl;
+import org.emp.gl.timer.service.InstantaneTemps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Débit de lecture de l'heure, par les accesseurs ou par instantané,
+ * pendant qu'un thread met l'heure à jour
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class LectureBenchmark {
+
+    private DummyTimeServiceImpl service;
+    private int seconde;
+
+    @Setup
+    public void preparer() {
+        service = Services.creerServiceImmobile();
+    }
+
+    @TearDown
+    public void arreter() {
+        service.arreter();
+    }
+
+    @Benchmark
+    @Group("accesseurs")
+    @GroupThreads(1)
+    public void ecrireAccesseurs() {
+        seconde = (seconde + 1) % 60;
+        service.setSecondes(seconde);
+    }
+
+    @Benchmark
+    @Group("accesseurs")
+    @GroupThreads(3)
+    public void lireAccesseurs(Blackhole bh) {
+        bh.consume(service.getHeures());
+        bh.consume(service.getMinutes());
+        bh.consume(service.getSecondes());
+        bh.consume(service.getDixiemeDeSeconde());
+    }
+
+    @Benchmark
+    @Group("instantane")
+    @GroupThreads(1)
+    public void ecrireInstantane() {
+        seconde = (seconde + 1) % 60;
+        service.setSecondes(seconde);
+    }
+
+    @Benchmark
+    @Group("instantane")
+    @GroupThreads(3)
+    public void lireInstantane(Blackhole bh) {
+        long instantane = service.snapshot();
+        bh.consume(InstantaneTemps.heures(instantane));
+        bh.consume(InstantaneTemps.minutes(instantane));
+        bh.consume(InstantaneTemps.secondes(instantane));
+        bh.consume(InstantaneTemps.dixiemes(instantane));
+    }
+}
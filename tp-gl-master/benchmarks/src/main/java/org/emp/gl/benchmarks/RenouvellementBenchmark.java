@@ -0,0 +1,98 @@
+package org.emp.gl.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.emp.gl.time.service.impl.DummyTimeServiceImpl;
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.UniteTemps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ajouts et retraits d'écouteurs pendant que le thread du service diffuse
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenouvellementBenchmark {
+
+    private static final TickListener ECOUTEUR_VIDE = new EcouteurVide();
+
+    @State(Scope.Group)
+    public static class ServicePartage {
+
+        @Param({"1000", "100000"})
+        int nombreEcouteurs;
+
+        DummyTimeServiceImpl service;
+        int seconde;
+
+        @Setup
+        public void preparer() {
+            service = Services.creerServiceImmobile();
+            for (int i = 0; i < nombreEcouteurs; i++) {
+                service.addTickListener(new EcouteurVide(), UniteTemps.MASQUE_SECONDE, 1);
+            }
+        }
+
+        @TearDown
+        public void arreter() {
+            service.arreter();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EcouteurPropre {
+
+        final TickListener ecouteur = new EcouteurVide();
+    }
+
+    @Benchmark
+    @Group("renouvellement")
+    @GroupThreads(1)
+    public void diffuser(ServicePartage etat) {
+        etat.seconde = (etat.seconde + 1) % 60;
+        etat.service.setSecondes(etat.seconde);
+    }
+
+    @Benchmark
+    @Group("renouvellement")
+    @GroupThreads(3)
+    public void ajouterRetirer(ServicePartage etat, EcouteurPropre propre) {
+        etat.service.addTickListener(propre.ecouteur, UniteTemps.MASQUE_SECONDE, 1);
+        etat.service.removeTickListener(propre.ecouteur);
+    }
+
+    @Benchmark
+    @Group("sansDiffusion")
+    @GroupThreads(1)
+    public void ajouterRetirerSeul(ServicePartage etat) {
+        etat.service.addTickListener(ECOUTEUR_VIDE, UniteTemps.MASQUE_SECONDE, 1);
+        etat.service.removeTickListener(ECOUTEUR_VIDE);
+    }
+
+    /**
+     * Écouteur sans effet ; chaque instance est un abonné distinct
+     */
+    static final class EcouteurVide implements TickListener {
+
+        @Override
+        public void onTick(int unite, int ancienneValeur, int heures, int minutes,
+                           int secondes, int dixiemes) {
+        }
+    }
+}
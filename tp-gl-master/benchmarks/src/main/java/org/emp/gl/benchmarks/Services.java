@@ -0,0 +1,23 @@
+package org.emp.gl.benchmarks;
+
+import java.time.ZoneOffset;
+
+import org.emp.gl.time.service.impl.DummyTimeServiceImpl;
+import org.emp.gl.time.service.impl.HorlogeVirtuelle;
+
+/**
+ * Outils communs aux benchmarks
+ */
+final class Services {
+
+    private Services() {
+    }
+
+    /**
+     * Crée un service dont l'horloge virtuelle reste immobile :
+     * les diffusions ne sont déclenchées que par le benchmark lui-même
+     */
+    static DummyTimeServiceImpl creerServiceImmobile() {
+        return new DummyTimeServiceImpl(new HorlogeVirtuelle(0), ZoneOffset.UTC);
+    }
+}
@@ -1,31 +1,79 @@
 package org.emp.gl.core.launcher;
 
-// 1. Importer l'interface et l'implémentation du service..........................
+// 1. Importer l'interface du service, l'implémentation est découverte..............
 import org.emp.gl.time.service.impl.DummyTimeServiceImpl;
+import org.emp.gl.timer.service.ServicesTemps;
+import org.emp.gl.timer.service.TickListener;
 import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
 
 // 2. Importer notre nouvelle classe d'horloge graphique................................
 import org.emp.gl.clients.HorlogeGraphique;
+import org.emp.gl.clients.JournalComptesARebours;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import javax.swing.SwingUtilities;
 
 /**
  * Classe principale pour lancer l'application .................
  */
 public class App {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException, IOException {
+        
+        // 0. Mode sans écran : génération de charge.........................
+        if (args.length > 0 && "--charge".equals(args[0])) {
+            GenerateurCharge.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         
-        // 1. Instancier le service....................................
-        // Le service démarre son propre thread (Timer)..........................
-        // dès son instanciation.......................................
-        TimerService timer = new DummyTimeServiceImpl();
+        RapportDemarrage rapport = new RapportDemarrage(4);
+
+        // 1. Trouver le service....................................
+        // L'implémentation est déclarée par son module (ServiceLoader)..........................
+        // Son thread ne démarre qu'au premier abonnement.......................................
+        TimerService timer = ServicesTemps.charger();
+        if (timer instanceof DummyTimeServiceImpl) {
+            // Le service de l'application est surveillé par JMX
+            ((DummyTimeServiceImpl) timer).exposerJmx();
+        }
+        rapport.marquer("découverte du service");
+
+        // 2. Attendre le premier tick sans attendre l'interface.......................
+        // Un écouteur des dixièmes démarre le moteur tout de suite, puis se retire
+        timer.addTickListener(new TickListener() {
+            private boolean recu;
+
+            @Override
+            public void onTick(int unite, int ancienneValeur, int heures, int minutes,
+                               int secondes, int dixiemes) {
+                if (!recu) {
+                    recu = true;
+                    timer.removeTickListener(this);
+                    rapport.marquer("premier tick");
+                }
+            }
+        }, UniteTemps.MASQUE_DIXIEME, 1);
 
-        // 2. Lancer l'horloge graphique..................................
+        // 3. Lancer l'horloge graphique..................................
         // On lui passe un titre ("Horloge Bonus") et le service.........................
-        // La fenêtre (JFrame) gère son propre cycle de vie.........................
-        new HorlogeGraphique("Horloge Bonus", timer);
+        // La fenêtre (JFrame) est construite plus tard, sur le thread de Swing..........
+        // Avec --journal <fichier>, le compte à rebours survit aux redémarrages
+        JournalComptesARebours journal = null;
+        if (args.length > 1 && "--journal".equals(args[0])) {
+            journal = JournalComptesARebours.ouvrir(Paths.get(args[1]));
+        }
+        JournalComptesARebours journalOuvert = journal;
+        rapport.marquer("fin de main");
+        SwingUtilities.invokeLater(() -> {
+            new HorlogeGraphique("Horloge Bonus", timer, journalOuvert);
+            rapport.marquer("interface affichée");
+        });
         
         // Nous n'avons pas besoin d'appeler d'autres tests..........................................
-        // L'application restera active grâce au thread du Timer...................................
+        // L'application restera active grâce au thread du service...................................
         // et au thread de l'interface graphique (Swing)...............................
     }
 
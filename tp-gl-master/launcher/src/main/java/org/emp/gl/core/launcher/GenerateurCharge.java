@@ -0,0 +1,269 @@
+package org.emp.gl.core.launcher;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.emp.gl.clients.CompteARebours;
+import org.emp.gl.clients.Horloge;
+import org.emp.gl.clients.SortieConsole;
+import org.emp.gl.clients.SortieMuette;
+import org.emp.gl.time.service.impl.DummyTimeServiceImpl;
+import org.emp.gl.time.service.impl.MetriquesServiceTemps;
+import org.emp.gl.time.service.impl.SourceTempsSysteme;
+import org.emp.gl.timer.service.UniteTemps;
+
+/**
+ * Mode sans écran du lanceur : génère une charge réaliste sur le service
+ * pendant une durée fixe, puis affiche un rapport de performances.
+ * <p>
+ * Usage : {@code App --charge [--horloges N] [--comptes M]
+ * [--duree-max-compte S] [--renouvellement R] [--duree D]
+ * [--partitions P] [--resolution MS] [--attente-active US] [--console]}
+ * <p>
+ * Avec {@code --resolution}, un écouteur des millisecondes fait tourner le
+ * moteur à cette résolution ; {@code --attente-active} règle la fenêtre
+ * d'attente active du moteur, pour comparer la précision des ticks au
+ * processeur consommé.
+ */
+public class GenerateurCharge {
+
+    private static final long PERIODE_RENOUVELLEMENT_MILLIS = 10;
+
+    private int nombreHorloges = 1000;
+    private int nombreComptes = 1000;
+    private int dureeMaxCompte = 60;
+    private double renouvellementParSeconde = 100;
+    private int dureeSecondes = 30;
+    private int partitions = 1;
+    private int resolutionMillis;
+    private int attenteActiveMicros;
+    private boolean console;
+
+    private final Random aleatoire = new Random();
+    private final List<CompteARebours> comptes = new ArrayList<>();
+    private long decomptesRetires;
+    private long operationsRenouvellement;
+    private double renouvellementEnAttente;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        GenerateurCharge generateur = new GenerateurCharge();
+        try {
+            generateur.lireOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage : --charge [--horloges N] [--comptes M] [--duree-max-compte S]"
+                    + " [--renouvellement R] [--duree D] [--partitions P]"
+                    + " [--resolution MS] [--attente-active US] [--console]");
+            System.exit(2);
+        }
+        generateur.executer();
+    }
+
+    /**
+     * Lit les options de la ligne de commande
+     */
+    void lireOptions(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if ("--console".equals(option)) {
+                console = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Valeur manquante pour " + option);
+            }
+            String valeur = args[++i];
+            switch (option) {
+                case "--horloges":
+                    nombreHorloges = entierPositif(option, valeur);
+                    break;
+                case "--comptes":
+                    nombreComptes = entierPositif(option, valeur);
+                    break;
+                case "--duree-max-compte":
+                    dureeMaxCompte = Math.max(1, entierPositif(option, valeur));
+                    break;
+                case "--renouvellement":
+                    renouvellementParSeconde = entierPositif(option, valeur);
+                    break;
+                case "--duree":
+                    dureeSecondes = Math.max(1, entierPositif(option, valeur));
+                    break;
+                case "--partitions":
+                    partitions = Math.max(1, entierPositif(option, valeur));
+                    break;
+                case "--resolution":
+                    resolutionMillis = entierPositif(option, valeur);
+                    if (resolutionMillis == 0 || 100 % resolutionMillis != 0) {
+                        throw new IllegalArgumentException(
+                                "La résolution doit diviser 100 ms : " + valeur);
+                    }
+                    break;
+                case "--attente-active":
+                    attenteActiveMicros = entierPositif(option, valeur);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Option inconnue : " + option);
+            }
+        }
+    }
+
+    private static int entierPositif(String option, String valeur) {
+        try {
+            int entier = Integer.parseInt(valeur);
+            if (entier >= 0) {
+                return entier;
+            }
+        } catch (NumberFormatException e) {
+            // Signalé ci-dessous
+        }
+        throw new IllegalArgumentException("Valeur invalide pour " + option + " : " + valeur);
+    }
+
+    /**
+     * Lance la charge, attend la durée demandée et affiche le rapport
+     */
+    void executer() throws InterruptedException {
+        PrintStream sortieOriginale = System.out;
+        System.out.println("Charge : " + nombreHorloges + " horloges, " + nombreComptes
+                + " comptes à rebours, " + renouvellementParSeconde + " renouvellements/s, "
+                + dureeSecondes + " s, " + partitions + " partition(s)");
+
+        DummyTimeServiceImpl service = new DummyTimeServiceImpl(
+                new SourceTempsSysteme(attenteActiveMicros, TimeUnit.MICROSECONDS),
+                ZoneId.systemDefault()).exposerJmx();
+        if (partitions > 1) {
+            service.activerDiffusionRepartie(partitions);
+        }
+        if (resolutionMillis > 0) {
+            service.setResolutionMillis(resolutionMillis);
+            service.addTickListener((unite, ancienne, h, m, s, ms) -> { },
+                                    UniteTemps.MASQUE_MILLISECONDE, 1);
+        }
+        MetriquesServiceTemps metriques = service.getMetriques();
+        SortieConsole sortie = console ? SortieConsole.standard()
+                                       : new SortieConsole(SortieMuette.CANAL, 1 << 14);
+        if (!console) {
+            System.setOut(SortieMuette.flux());
+        }
+
+        List<Horloge> horloges = new ArrayList<>(nombreHorloges);
+        for (int i = 0; i < nombreHorloges; i++) {
+            horloges.add(new Horloge("H" + i, service, sortie));
+        }
+        for (int i = 0; i < nombreComptes; i++) {
+            comptes.add(new CompteARebours(dureeAleatoire(), service));
+        }
+
+        metriques.reinitialiser();
+        long collectesAvant = nombreCollectes();
+        long tempsCollecteAvant = tempsCollectes();
+        long debut = System.nanoTime();
+
+        ScheduledExecutorService renouvellement = Executors.newSingleThreadScheduledExecutor();
+        renouvellement.scheduleAtFixedRate(() -> renouveler(service), PERIODE_RENOUVELLEMENT_MILLIS,
+                PERIODE_RENOUVELLEMENT_MILLIS, TimeUnit.MILLISECONDS);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(dureeSecondes));
+        renouvellement.shutdown();
+        renouvellement.awaitTermination(1, TimeUnit.SECONDS);
+
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        long notifications = compterNotifications(horloges);
+        service.arreter();
+        System.setOut(sortieOriginale);
+
+        afficherRapport(metriques, notifications, secondes,
+                        nombreCollectes() - collectesAvant, tempsCollectes() - tempsCollecteAvant);
+        System.exit(0);
+    }
+
+    private int dureeAleatoire() {
+        return 1 + aleatoire.nextInt(dureeMaxCompte);
+    }
+
+    /**
+     * Retire et remplace des comptes à rebours au rythme demandé
+     */
+    private void renouveler(DummyTimeServiceImpl service) {
+        renouvellementEnAttente += renouvellementParSeconde * PERIODE_RENOUVELLEMENT_MILLIS / 1000.0;
+        while (renouvellementEnAttente >= 1 && !comptes.isEmpty()) {
+            renouvellementEnAttente--;
+            int index = aleatoire.nextInt(comptes.size());
+            CompteARebours ancien = comptes.get(index);
+            service.removeTimeChangeListener(ancien);
+            decomptesRetires += ancien.getDecomptes();
+            comptes.set(index, new CompteARebours(dureeAleatoire(), service));
+            operationsRenouvellement += 2;
+        }
+    }
+
+    /**
+     * Nombre d'événements traités par les horloges et les comptes à rebours
+     */
+    private long compterNotifications(List<Horloge> horloges) {
+        long total = decomptesRetires;
+        for (Horloge horloge : horloges) {
+            total += horloge.getNombreAffichages();
+        }
+        for (CompteARebours compte : comptes) {
+            total += compte.getDecomptes();
+        }
+        return total;
+    }
+
+    private void afficherRapport(MetriquesServiceTemps metriques, long notifications,
+                                 double secondes, long collectes, long tempsCollectes) {
+        MemoryUsage tas = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        System.out.println("=== Rapport de charge (" + String.format("%.1f", secondes) + " s) ===");
+        System.out.println(String.format("Débit               : %.0f notifications/s (%d au total)",
+                notifications / secondes, notifications));
+        System.out.println(String.format("Renouvellements     : %d ajouts/retraits",
+                operationsRenouvellement));
+        System.out.println(String.format("Ticks               : %d, %d manqués, %d en retard",
+                metriques.getNombreTicks(), metriques.getTicksManques(),
+                metriques.getTicksRattrapes()));
+        System.out.println(String.format("Diffusion d'un tick : p50 %s, p99 %s, max %s",
+                micros(metriques.getDureeDiffusionP50Nanos()),
+                micros(metriques.getDureeDiffusionP99Nanos()),
+                micros(metriques.getDureeDiffusionMaxNanos())));
+        System.out.println(String.format("Retard des ticks    : moyenne %s, p50 %s, p99 %s, max %s",
+                micros(metriques.getGigueTickMoyenneNanos()),
+                micros(metriques.getGigueTickP50Nanos()),
+                micros(metriques.getGigueTickP99Nanos()),
+                micros(metriques.getGigueTickMaxNanos())));
+        System.out.println(String.format("Tas                 : %d Mo utilisés / %d Mo réservés",
+                tas.getUsed() >> 20, tas.getCommitted() >> 20));
+        System.out.println(String.format("GC                  : %d collectes, %d ms",
+                collectes, tempsCollectes));
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f µs", nanos / 1000.0);
+    }
+
+    private static long nombreCollectes() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long tempsCollectes() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
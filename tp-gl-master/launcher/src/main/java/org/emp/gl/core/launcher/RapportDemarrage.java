@@ -0,0 +1,62 @@
+/*
+ * Mesure des phases de démarrage du lanceur
+ */
+package org.emp.gl.core.launcher;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chronomètre les phases du démarrage, depuis le lancement de la JVM.
+ * <p>
+ * Chaque phase est marquée, depuis n'importe quel thread, au moment où
+ * elle se termine. Le rapport s'affiche une fois toutes les phases
+ * attendues marquées, dans leur ordre d'achèvement.
+ */
+final class RapportDemarrage {
+
+    private final long debutNanos = System.nanoTime();
+    private final long jvmVersMainMillis;
+    private final int phasesAttendues;
+    private final List<String> phases = new ArrayList<>();
+    private final List<Long> finsNanos = new ArrayList<>();
+
+    /**
+     * @param phasesAttendues Nombre de phases marquées avant le rapport
+     */
+    RapportDemarrage(int phasesAttendues) {
+        this.phasesAttendues = phasesAttendues;
+        this.jvmVersMainMillis = System.currentTimeMillis()
+                                 - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    /**
+     * Marque la fin d'une phase
+     */
+    synchronized void marquer(String phase) {
+        phases.add(phase);
+        finsNanos.add(System.nanoTime());
+        if (phases.size() == phasesAttendues) {
+            afficher();
+        }
+    }
+
+    private void afficher() {
+        StringBuilder rapport = new StringBuilder("Démarrage :\n");
+        ligne(rapport, "JVM jusqu'à main", jvmVersMainMillis, jvmVersMainMillis);
+        long precedente = debutNanos;
+        for (int i = 0; i < phases.size(); i++) {
+            long fin = finsNanos.get(i);
+            ligne(rapport, phases.get(i), (fin - precedente) / 1000000,
+                  jvmVersMainMillis + (fin - debutNanos) / 1000000);
+            precedente = fin;
+        }
+        System.out.print(rapport);
+    }
+
+    private static void ligne(StringBuilder rapport, String phase, long dureeMillis,
+                              long cumulMillis) {
+        rapport.append(String.format("  %-24s %6d ms  (%d ms)%n", phase, dureeMillis, cumulMillis));
+    }
+}
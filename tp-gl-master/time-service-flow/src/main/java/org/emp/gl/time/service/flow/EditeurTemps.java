@@ -0,0 +1,263 @@
+/*
+ * Vue Flow du service de temps
+ */
+package org.emp.gl.time.service.flow;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.emp.gl.timer.service.InstantaneTemps;
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.TimeChangeProvider;
+import org.emp.gl.timer.service.UniteTemps;
+
+/**
+ * Publie les changements de temps d'un service sous forme de
+ * {@link Flow.Publisher}, compatible Reactive Streams.
+ * <p>
+ * Chaque abonné ne reçoit que ce qu'il a demandé, sur l'exécuteur de
+ * l'éditeur et jamais sur le thread du service. Les événements en attente
+ * d'une demande sont conservés dans une file bornée par abonné : quand elle
+ * est pleine, le plus ancien est remplacé par le plus récent. Une capacité
+ * de 1 ne conserve que la dernière valeur.
+ */
+public class EditeurTemps implements Flow.Publisher<EvenementTemps> {
+
+    private final TimeChangeProvider service;
+    private final int masque;
+    private final int capacite;
+    private final Executor executeur;
+    private final Set<Souscription> souscriptions;
+
+    /**
+     * Crée un éditeur ne conservant que la dernière valeur des abonnés lents
+     *
+     * @param service Service dont les changements sont publiés
+     * @param masque Unités publiées, combinaison des masques de {@link UniteTemps}
+     */
+    public EditeurTemps(TimeChangeProvider service, int masque) {
+        this(service, masque, 1, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param service Service dont les changements sont publiés
+     * @param masque Unités publiées, combinaison des masques de {@link UniteTemps}
+     * @param capacite Nombre d'événements conservés par abonné en attente de demande
+     * @param executeur Exécuteur des notifications des abonnés
+     */
+    public EditeurTemps(TimeChangeProvider service, int masque, int capacite, Executor executeur) {
+        if (capacite < 1) {
+            throw new IllegalArgumentException("La capacité doit être au moins 1");
+        }
+        this.service = service;
+        this.masque = masque;
+        this.capacite = capacite;
+        this.executeur = executeur;
+        this.souscriptions = ConcurrentHashMap.newKeySet();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super EvenementTemps> abonne) {
+        if (abonne == null) {
+            throw new NullPointerException("abonne");
+        }
+        Souscription souscription = new Souscription(abonne);
+        souscriptions.add(souscription);
+        abonne.onSubscribe(souscription);
+        if (!souscription.annulee) {
+            service.addTickListener(souscription, masque, 1);
+        }
+    }
+
+    /**
+     * Retourne le nombre d'abonnés actifs
+     */
+    public int getNombreAbonnes() {
+        return souscriptions.size();
+    }
+
+    /**
+     * Retourne le nombre d'événements remplacés par un plus récent,
+     * tous abonnés actifs confondus
+     */
+    public long getNombreFusionnes() {
+        long total = 0;
+        for (Souscription souscription : souscriptions) {
+            total += souscription.fusionnes.get();
+        }
+        return total;
+    }
+
+    /**
+     * Termine toutes les souscriptions par onComplete, après remise des
+     * événements déjà en attente et demandés
+     */
+    public void fermer() {
+        for (Souscription souscription : souscriptions) {
+            souscription.terminer();
+        }
+    }
+
+    /**
+     * Souscription d'un abonné : file bornée, demande et boucle de remise
+     */
+    private final class Souscription implements Flow.Subscription, TickListener, Runnable {
+
+        private final Flow.Subscriber<? super EvenementTemps> abonne;
+        private final AtomicLong demande;
+        private final AtomicInteger travail;
+
+        // Protégés par this
+        private final EvenementTemps[] file;
+        private int tete;
+        private int taille;
+
+        private volatile boolean annulee;
+        private volatile boolean terminee;
+        private volatile Throwable erreur;
+        private final AtomicLong fusionnes;
+
+        Souscription(Flow.Subscriber<? super EvenementTemps> abonne) {
+            this.abonne = abonne;
+            this.demande = new AtomicLong();
+            this.travail = new AtomicInteger();
+            this.file = new EvenementTemps[capacite];
+            this.fusionnes = new AtomicLong();
+        }
+
+        /**
+         * Reçoit un changement sur le thread du service, sans jamais attendre
+         */
+        @Override
+        public void onTick(int unite, int ancienneValeur, int heures, int minutes,
+                           int secondes, int dixiemes) {
+            if (annulee || terminee) {
+                return;
+            }
+            int millisecondes = unite == UniteTemps.MILLISECONDE ? dixiemes : dixiemes * 100;
+            EvenementTemps evenement = new EvenementTemps(unite, ancienneValeur,
+                    InstantaneTemps.composer(heures, minutes, secondes, millisecondes));
+            synchronized (this) {
+                if (taille == file.length) {
+                    file[tete] = null;
+                    tete = (tete + 1) % file.length;
+                    taille--;
+                    fusionnes.incrementAndGet();
+                }
+                file[(tete + taille) % file.length] = evenement;
+                taille++;
+            }
+            planifier();
+        }
+
+        private synchronized EvenementTemps retirer() {
+            if (taille == 0) {
+                return null;
+            }
+            EvenementTemps evenement = file[tete];
+            file[tete] = null;
+            tete = (tete + 1) % file.length;
+            taille--;
+            return evenement;
+        }
+
+        private synchronized boolean estVide() {
+            return taille == 0;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                erreur = new IllegalArgumentException("Demande non positive : " + n);
+            } else {
+                long courante;
+                long nouvelle;
+                do {
+                    courante = demande.get();
+                    nouvelle = courante + n < 0 ? Long.MAX_VALUE : courante + n;
+                } while (!demande.compareAndSet(courante, nouvelle));
+            }
+            planifier();
+        }
+
+        @Override
+        public void cancel() {
+            if (!annulee) {
+                annulee = true;
+                service.removeTickListener(this);
+                souscriptions.remove(this);
+            }
+        }
+
+        void terminer() {
+            terminee = true;
+            service.removeTickListener(this);
+            planifier();
+        }
+
+        /**
+         * Lance la boucle de remise si elle ne tourne pas déjà
+         */
+        private void planifier() {
+            if (travail.getAndIncrement() != 0) {
+                return;
+            }
+            try {
+                executeur.execute(this);
+            } catch (RejectedExecutionException e) {
+                cancel();
+                abonne.onError(e);
+            }
+        }
+
+        /**
+         * Remet les événements demandés, un seul thread à la fois
+         */
+        @Override
+        public void run() {
+            int manques = 1;
+            do {
+                if (annulee) {
+                    return;
+                }
+                Throwable probleme = erreur;
+                if (probleme != null) {
+                    cancel();
+                    abonne.onError(probleme);
+                    return;
+                }
+                remettre();
+                if (terminee && estVide() && !annulee) {
+                    cancel();
+                    abonne.onComplete();
+                    return;
+                }
+                manques = travail.addAndGet(-manques);
+            } while (manques != 0);
+        }
+
+        private void remettre() {
+            while (!annulee && demande.get() > 0) {
+                EvenementTemps evenement = retirer();
+                if (evenement == null) {
+                    return;
+                }
+                if (demande.get() != Long.MAX_VALUE) {
+                    demande.decrementAndGet();
+                }
+                try {
+                    abonne.onNext(evenement);
+                } catch (RuntimeException e) {
+                    cancel();
+                    System.err.println("Abonné en échec : " + e);
+                }
+            }
+        }
+    }
+}
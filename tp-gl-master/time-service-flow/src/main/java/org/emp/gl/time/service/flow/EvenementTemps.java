@@ -0,0 +1,49 @@
+/*
+ * Événement publié par l'éditeur de temps
+ */
+package org.emp.gl.time.service.flow;
+
+import org.emp.gl.timer.service.InstantaneTemps;
+import org.emp.gl.timer.service.UniteTemps;
+
+/**
+ * Changement d'une unité de temps, avec l'heure complète au même instant
+ */
+public final class EvenementTemps {
+
+    private final int unite;
+    private final int ancienneValeur;
+    private final long instantane;
+
+    /**
+     * @param unite Code de l'unité, voir {@link UniteTemps}
+     * @param ancienneValeur Valeur de l'unité avant le changement
+     * @param instantane Heure après le changement, au format {@link InstantaneTemps}
+     */
+    public EvenementTemps(int unite, int ancienneValeur, long instantane) {
+        this.unite = unite;
+        this.ancienneValeur = ancienneValeur;
+        this.instantane = instantane;
+    }
+
+    public int getUnite() {
+        return unite;
+    }
+
+    public int getAncienneValeur() {
+        return ancienneValeur;
+    }
+
+    public long getInstantane() {
+        return instantane;
+    }
+
+    @Override
+    public String toString() {
+        return UniteTemps.propriete(unite) + " " + ancienneValeur + " -> "
+                + InstantaneTemps.heures(instantane) + ":"
+                + InstantaneTemps.minutes(instantane) + ":"
+                + InstantaneTemps.secondes(instantane) + "."
+                + InstantaneTemps.dixiemes(instantane);
+    }
+}
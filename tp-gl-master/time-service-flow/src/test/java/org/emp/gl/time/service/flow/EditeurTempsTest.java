@@ -0,0 +1,70 @@
+package org.emp.gl.time.service.flow;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.emp.gl.time.service.impl.DummyTimeServiceImpl;
+import org.emp.gl.time.service.impl.HorlogeVirtuelle;
+import org.emp.gl.timer.service.InstantaneTemps;
+import org.emp.gl.timer.service.UniteTemps;
+import org.junit.Test;
+
+/**
+ * Tests de la demande et de la fusion des événements de l'éditeur
+ */
+public class EditeurTempsTest {
+
+    @Test
+    public void abonneLentNeRecoitQueLaDerniereValeur() {
+        HorlogeVirtuelle horloge = new HorlogeVirtuelle(0);
+        DummyTimeServiceImpl service = new DummyTimeServiceImpl(horloge, ZoneOffset.UTC);
+        try {
+            // Exécuteur synchrone : les remises ont lieu dans request() ou dans le tick
+            EditeurTemps editeur = new EditeurTemps(service, UniteTemps.MASQUE_SECONDE, 1,
+                                                    Runnable::run);
+            List<EvenementTemps> recus = new CopyOnWriteArrayList<>();
+            Flow.Subscription[] souscription = new Flow.Subscription[1];
+            editeur.subscribe(new Flow.Subscriber<EvenementTemps>() {
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    souscription[0] = s;
+                }
+
+                @Override
+                public void onNext(EvenementTemps evenement) {
+                    recus.add(evenement);
+                }
+
+                @Override
+                public void onError(Throwable erreur) {
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+
+            horloge.avancer(3, TimeUnit.SECONDS);
+            assertEquals(0, recus.size());
+
+            souscription[0].request(2);
+            assertEquals(1, recus.size());
+            assertEquals(3, InstantaneTemps.secondes(recus.get(0).getInstantane()));
+
+            horloge.avancer(1, TimeUnit.SECONDS);
+            assertEquals(2, recus.size());
+            horloge.avancer(1, TimeUnit.SECONDS);
+            assertEquals(2, recus.size());
+
+            souscription[0].cancel();
+            assertEquals(0, editeur.getNombreAbonnes());
+        } finally {
+            service.arreter();
+        }
+    }
+}
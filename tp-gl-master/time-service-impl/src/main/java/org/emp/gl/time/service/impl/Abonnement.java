@@ -0,0 +1,52 @@
+/*
+ * Abonnement d'un écouteur à une partie des unités de temps
+ */
+package org.emp.gl.time.service.impl;
+
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.UniteTemps;
+
+/**
+ * Abonnement d'un écouteur : unités demandées et sous-échantillonnage.
+ * Les compteurs ne sont manipulés que par le thread de diffusion.
+ */
+final class Abonnement {
+
+    final Object cle;
+    final TickListener cible;
+    final int masque;
+    final int frequence;
+    final HistogrammeLatences latences;
+    private final int[] compteurs;
+
+    /**
+     * @param cle L'objet enregistré par le client, utilisé pour le retrait
+     * @param cible L'écouteur effectivement notifié
+     * @param latences Histogramme des durées de notification
+     */
+    Abonnement(Object cle, TickListener cible, int masque, int frequence,
+               HistogrammeLatences latences) {
+        this.cle = cle;
+        this.cible = cible;
+        this.masque = masque;
+        this.frequence = frequence;
+        this.latences = latences;
+        this.compteurs = new int[UniteTemps.NOMBRE_UNITES];
+    }
+
+    /**
+     * Compte un événement de l'unité donnée
+     *
+     * @return true si l'écouteur doit être notifié de cet événement
+     */
+    boolean compter(int unite) {
+        if (frequence == 1) {
+            return true;
+        }
+        if (++compteurs[unite] < frequence) {
+            return false;
+        }
+        compteurs[unite] = 0;
+        return true;
+    }
+}
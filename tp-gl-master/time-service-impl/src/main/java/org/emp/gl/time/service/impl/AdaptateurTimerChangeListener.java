@@ -0,0 +1,86 @@
+/*
+ * Adaptation des écouteurs historiques au chemin de diffusion primitif
+ */
+package org.emp.gl.time.service.impl;
+
+import java.beans.PropertyChangeEvent;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.emp.gl.timer.service.UniteTemps;
+
+/**
+ * Présente un {@link TimerChangeListener} comme un {@link TickListener}.
+ * <p>
+ * Les événements sont partagés entre tous les adaptateurs d'un même
+ * service : un seul {@link PropertyChangeEvent} est créé par changement,
+ * quel que soit le nombre d'écouteurs historiques.
+ */
+final class AdaptateurTimerChangeListener implements TickListener {
+
+    private final TimerChangeListener ecouteur;
+    private final Evenements evenements;
+
+    AdaptateurTimerChangeListener(TimerChangeListener ecouteur, Evenements evenements) {
+        this.ecouteur = ecouteur;
+        this.evenements = evenements;
+    }
+
+    @Override
+    public void onTick(int unite, int ancienneValeur, int heures, int minutes,
+                       int secondes, int dixiemes) {
+        int nouvelleValeur = valeur(unite, heures, minutes, secondes, dixiemes);
+        ecouteur.propertyChange(evenements.pour(unite, ancienneValeur, nouvelleValeur));
+    }
+
+    /**
+     * Extrait la valeur d'une unité. Pour la milliseconde, le dernier
+     * paramètre porte déjà les millisecondes.
+     */
+    static int valeur(int unite, int heures, int minutes, int secondes, int dixiemes) {
+        switch (unite) {
+            case UniteTemps.HEURE:
+                return heures;
+            case UniteTemps.MINUTE:
+                return minutes;
+            case UniteTemps.SECONDE:
+                return secondes;
+            case UniteTemps.DISCONTINUITE:
+                return heures * 3600 + minutes * 60 + secondes;
+            default:
+                return dixiemes;
+        }
+    }
+
+    /**
+     * Dernier événement créé pour chaque unité, réutilisé tant que
+     * les valeurs ne changent pas
+     */
+    static final class Evenements {
+
+        private final Object source;
+        private final AtomicReferenceArray<PropertyChangeEvent> derniers;
+
+        Evenements(Object source) {
+            this.source = source;
+            this.derniers = new AtomicReferenceArray<>(UniteTemps.NOMBRE_UNITES);
+        }
+
+        /**
+         * Retourne l'événement correspondant à un changement
+         */
+        PropertyChangeEvent pour(int unite, int ancienneValeur, int nouvelleValeur) {
+            PropertyChangeEvent evt = derniers.get(unite);
+            if (evt != null
+                    && ((Integer) evt.getOldValue()) == ancienneValeur
+                    && ((Integer) evt.getNewValue()) == nouvelleValeur) {
+                return evt;
+            }
+            evt = new PropertyChangeEvent(source, UniteTemps.propriete(unite),
+                                          ancienneValeur, nouvelleValeur);
+            derniers.set(unite, evt);
+            return evt;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Boîte aux lettres bornée d'un écouteur asynchrone
+ */
+package org.emp.gl.time.service.impl;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.emp.gl.timer.service.TickListener;
+
+/**
+ * Isole un écouteur lent du thread du service.
+ * <p>
+ * Le thread du service dépose les événements dans un tampon circulaire
+ * borné de valeurs primitives ; ils sont livrés à l'écouteur sur un
+ * exécuteur, dans l'ordre, par au plus une tâche à la fois. Un écouteur
+ * lent ou défaillant ne retarde donc que lui-même. Lorsque le tampon est
+ * plein, la {@link PolitiqueDebordement} choisie s'applique.
+ */
+final class BoiteAuxLettres implements TickListener, Runnable {
+
+    private static final int CHAMPS = 6;
+    private static final int TAILLE_LOT = 32;
+
+    private final TickListener cible;
+    private final Executor executeur;
+    private final PolitiqueDebordement politique;
+    private final int capacite;
+    private final AtomicBoolean planifiee;
+
+    // Protégés par le verrou de la boîte
+    private final int[] tampon;
+    private int tete;
+    private int nombre;
+    private long supprimes;
+    private long fusionnes;
+
+    // Réservés à la tâche de livraison
+    private final int[] courant;
+    private volatile long erreurs;
+
+    BoiteAuxLettres(TickListener cible, Executor executeur,
+                    int capacite, PolitiqueDebordement politique) {
+        if (capacite < 1) {
+            throw new IllegalArgumentException("La capacité doit être au moins 1");
+        }
+        this.cible = cible;
+        this.executeur = executeur;
+        this.politique = politique;
+        this.capacite = capacite;
+        this.planifiee = new AtomicBoolean();
+        this.tampon = new int[capacite * CHAMPS];
+        this.courant = new int[CHAMPS];
+    }
+
+    /**
+     * Dépose un événement, appelé par le thread du service
+     */
+    @Override
+    public void onTick(int unite, int ancienneValeur, int heures, int minutes,
+                       int secondes, int dixiemes) {
+        synchronized (this) {
+            if (nombre == capacite
+                    && !faireDeLaPlace(unite, heures, minutes, secondes, dixiemes)) {
+                return;
+            }
+            int position = ((tete + nombre) % capacite) * CHAMPS;
+            tampon[position] = unite;
+            tampon[position + 1] = ancienneValeur;
+            tampon[position + 2] = heures;
+            tampon[position + 3] = minutes;
+            tampon[position + 4] = secondes;
+            tampon[position + 5] = dixiemes;
+            nombre++;
+        }
+        planifier();
+    }
+
+    /**
+     * Applique la politique de débordement sur un tampon plein
+     *
+     * @return true si le nouvel événement doit encore être déposé
+     */
+    private boolean faireDeLaPlace(int unite, int heures, int minutes,
+                                   int secondes, int dixiemes) {
+        switch (politique) {
+            case FUSIONNER:
+                if (fusionner(unite, heures, minutes, secondes, dixiemes)) {
+                    fusionnes++;
+                    return false;
+                }
+                supprimerPlusAncien();
+                return true;
+            case BLOQUER:
+                return attendrePlace();
+            default:
+                supprimerPlusAncien();
+                return true;
+        }
+    }
+
+    /**
+     * Met à jour le dernier événement en attente de la même unité,
+     * en conservant son ancienne valeur
+     */
+    private boolean fusionner(int unite, int heures, int minutes, int secondes, int dixiemes) {
+        for (int i = nombre - 1; i >= 0; i--) {
+            int position = ((tete + i) % capacite) * CHAMPS;
+            if (tampon[position] == unite) {
+                tampon[position + 2] = heures;
+                tampon[position + 3] = minutes;
+                tampon[position + 4] = secondes;
+                tampon[position + 5] = dixiemes;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Supprime l'événement le plus ancien
+     */
+    private void supprimerPlusAncien() {
+        tete = (tete + 1) % capacite;
+        nombre--;
+        supprimes++;
+    }
+
+    /**
+     * Attend que la tâche de livraison libère de la place. Si aucune tâche
+     * ne peut plus être soumise, l'attente serait sans fin : l'événement le
+     * plus ancien est alors supprimé.
+     *
+     * @return false si l'attente a été interrompue
+     */
+    private boolean attendrePlace() {
+        while (nombre == capacite) {
+            if (!planifiee.get() && !planifier()) {
+                supprimerPlusAncien();
+                return true;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                supprimes++;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Soumet la tâche de livraison si elle n'est pas déjà en cours
+     *
+     * @return false si l'exécuteur a refusé la tâche
+     */
+    private boolean planifier() {
+        if (!planifiee.compareAndSet(false, true)) {
+            return true;
+        }
+        try {
+            executeur.execute(this);
+            return true;
+        } catch (RejectedExecutionException e) {
+            planifiee.set(false);
+            return false;
+        }
+    }
+
+    /**
+     * Livre les événements en attente, par lots bornés
+     * afin de partager équitablement l'exécuteur
+     */
+    @Override
+    public void run() {
+        try {
+            int livres = 0;
+            while (livres < TAILLE_LOT && retirer()) {
+                livrer();
+                livres++;
+            }
+        } finally {
+            // Même après une Error de l'écouteur, une autre tâche peut être soumise
+            planifiee.set(false);
+            if (politique == PolitiqueDebordement.BLOQUER) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+        if (!estVide()) {
+            planifier();
+        }
+    }
+
+    /**
+     * Retire l'événement le plus ancien dans le tampon de livraison
+     */
+    private synchronized boolean retirer() {
+        if (nombre == 0) {
+            return false;
+        }
+        System.arraycopy(tampon, tete * CHAMPS, courant, 0, CHAMPS);
+        tete = (tete + 1) % capacite;
+        nombre--;
+        if (politique == PolitiqueDebordement.BLOQUER) {
+            notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Appelle l'écouteur en isolant ses erreurs
+     */
+    private void livrer() {
+        try {
+            cible.onTick(courant[0], courant[1], courant[2], courant[3], courant[4], courant[5]);
+        } catch (RuntimeException e) {
+            erreurs++;
+            System.err.println("Écouteur asynchrone en échec : " + e);
+        }
+    }
+
+    /**
+     * Vérifie s'il reste des événements à livrer
+     */
+    synchronized boolean estVide() {
+        return nombre == 0;
+    }
+
+    /**
+     * Retourne le nombre d'événements supprimés faute de place
+     */
+    synchronized long getNombreSupprimes() {
+        return supprimes;
+    }
+
+    /**
+     * Retourne le nombre d'événements fusionnés faute de place
+     */
+    synchronized long getNombreFusionnes() {
+        return fusionnes;
+    }
+
+    /**
+     * Retourne le nombre d'erreurs levées par l'écouteur
+     */
+    long getNombreErreurs() {
+        return erreurs;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Décalage horaire d'un fuseau, mis en cache entre deux transitions
+ */
+package org.emp.gl.time.service.impl;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Décalage d'un fuseau par rapport à l'heure universelle.
+ * <p>
+ * Le décalage est valable jusqu'à la prochaine transition du fuseau
+ * (changement d'heure) : il n'est recalculé par les règles du fuseau
+ * qu'en sortant de cet intervalle, à chaque transition ou après un saut
+ * de l'horloge murale. Entre deux, le lire ne coûte que deux comparaisons.
+ * Une instance n'est pas synchronisée : elle sert le thread du service,
+ * ou des lecteurs qui la partagent sous son verrou.
+ */
+final class DecalageFuseau {
+
+    private final ZoneRules regles;
+    private int decalageMillis;
+    private long debutValidite = Long.MAX_VALUE;
+    private long finValidite = Long.MIN_VALUE;
+
+    DecalageFuseau(ZoneId zone) {
+        this.regles = zone.getRules();
+    }
+
+    /**
+     * Retourne le décalage en millisecondes à un instant donné
+     */
+    int pour(long tempsMurMillis) {
+        if (tempsMurMillis < debutValidite || tempsMurMillis >= finValidite) {
+            recalculer(tempsMurMillis);
+        }
+        return decalageMillis;
+    }
+
+    /**
+     * Relit le décalage et l'intervalle entre les transitions qui encadrent l'instant
+     */
+    private void recalculer(long tempsMurMillis) {
+        Instant instant = Instant.ofEpochMilli(tempsMurMillis);
+        decalageMillis = regles.getOffset(instant).getTotalSeconds() * 1000;
+        if (regles.isFixedOffset()) {
+            debutValidite = Long.MIN_VALUE;
+            finValidite = Long.MAX_VALUE;
+            return;
+        }
+        ZoneOffsetTransition precedente = regles.previousTransition(instant.plusMillis(1));
+        ZoneOffsetTransition suivante = regles.nextTransition(instant);
+        debutValidite = precedente == null ? Long.MIN_VALUE
+                                           : precedente.getInstant().toEpochMilli();
+        finValidite = suivante == null ? Long.MAX_VALUE
+                                       : suivante.getInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Diffusion d'un tick répartie sur plusieurs threads
+ */
+package org.emp.gl.time.service.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Diffuse les événements d'un tick en parallèle sur plusieurs threads.
+ * <p>
+ * Le thread maître traite lui-même le premier groupe de partitions et
+ * confie chacun des autres à un thread ouvrier dédié. Une partition est
+ * toujours traitée par le même thread et le maître attend la fin de tous
+ * les groupes avant de rendre la main : chaque écouteur reçoit donc ses
+ * événements dans l'ordre, et un tick n'est terminé que lorsque toutes
+ * les partitions ont été notifiées.
+ * <p>
+ * Un seul thread maître doit publier à la fois.
+ */
+final class DiffusionRepartie {
+
+    /**
+     * Parcourt les abonnés d'une unité dans une partition
+     */
+    interface Diffuseur {
+        void diffuser(RegistreEcouteurs<Abonnement> abonnes, int unite, int ancienneValeur);
+    }
+
+    private static final long ATTENTE_ARRET_NANOS = 1000000L;
+
+    private final Diffuseur diffuseur;
+    private final int groupes;
+    private final Thread[] ouvriers;
+    private final AtomicInteger restants;
+
+    // Écrits par le maître avant la publication de la génération
+    private RegistreEcouteurs<Abonnement>[][] partitions;
+    private int[] unites;
+    private int[] anciennesValeurs;
+    private int nombreEvenements;
+    private volatile Thread maitre;
+
+    private volatile long generation;
+    private volatile boolean enMarche;
+
+    /**
+     * @param diffuseur Parcours d'un registre, appelé par chaque thread
+     * @param groupes Nombre de threads diffusant en parallèle, maître compris
+     * @param nom Préfixe du nom des threads ouvriers
+     */
+    DiffusionRepartie(Diffuseur diffuseur, int groupes, String nom) {
+        if (groupes < 1) {
+            throw new IllegalArgumentException("Il faut au moins un groupe");
+        }
+        this.diffuseur = diffuseur;
+        this.groupes = groupes;
+        this.restants = new AtomicInteger();
+        this.enMarche = true;
+        this.ouvriers = new Thread[groupes - 1];
+        for (int i = 0; i < ouvriers.length; i++) {
+            int groupe = i + 1;
+            ouvriers[i] = new Thread(() -> boucler(groupe), nom + "-" + groupe);
+            ouvriers[i].setDaemon(true);
+            ouvriers[i].start();
+        }
+    }
+
+    /**
+     * Diffuse les événements d'un tick et attend que toutes les partitions
+     * aient été notifiées
+     */
+    void publier(RegistreEcouteurs<Abonnement>[][] partitions, int[] unites,
+                 int[] anciennesValeurs, int nombreEvenements) {
+        this.partitions = partitions;
+        this.unites = unites;
+        this.anciennesValeurs = anciennesValeurs;
+        this.nombreEvenements = nombreEvenements;
+        this.maitre = Thread.currentThread();
+        restants.set(ouvriers.length);
+        generation++;
+        for (Thread ouvrier : ouvriers) {
+            LockSupport.unpark(ouvrier);
+        }
+
+        traiter(0);
+        while (restants.get() > 0) {
+            if (enMarche) {
+                LockSupport.park(this);
+            } else if (ouvriersActifs()) {
+                LockSupport.parkNanos(this, ATTENTE_ARRET_NANOS);
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Vérifie qu'un ouvrier au moins peut encore terminer sa part
+     */
+    private boolean ouvriersActifs() {
+        for (Thread ouvrier : ouvriers) {
+            if (ouvrier.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Boucle d'un thread ouvrier : attend chaque nouvelle génération
+     */
+    private void boucler(int groupe) {
+        long vue = 0;
+        while (enMarche) {
+            long courante = generation;
+            if (courante == vue) {
+                LockSupport.park(this);
+                continue;
+            }
+            vue = courante;
+            try {
+                traiter(groupe);
+            } finally {
+                if (restants.decrementAndGet() == 0) {
+                    LockSupport.unpark(maitre);
+                }
+            }
+        }
+    }
+
+    /**
+     * Notifie les partitions d'un groupe, événement par événement
+     */
+    private void traiter(int groupe) {
+        for (int e = 0; e < nombreEvenements; e++) {
+            int unite = unites[e];
+            int ancienneValeur = anciennesValeurs[e];
+            for (int p = groupe; p < partitions.length; p += groupes) {
+                diffuseur.diffuser(partitions[p][unite], unite, ancienneValeur);
+            }
+        }
+    }
+
+    /**
+     * Arrête les threads ouvriers. Une diffusion en cours se termine
+     * sans attendre les ouvriers déjà arrêtés.
+     */
+    void arreter() {
+        enMarche = false;
+        for (Thread ouvrier : ouvriers) {
+            LockSupport.unpark(ouvrier);
+        }
+        Thread attente = maitre;
+        if (attente != null) {
+            LockSupport.unpark(attente);
+        }
+    }
+}
@@ -1,18 +1,20 @@
 /*
  * Service de gestion temporelle avec notification d'événements
- * Implémentation utilisant le pattern Observer avec PropertyChangeSupport
+ * Implémentation utilisant le pattern Observer avec un registre sans verrou
  */
 package org.emp.gl.time.service.impl;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeSupport;
-
-import java.time.LocalTime;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import org.emp.gl.timer.service.InstantaneTemps;
+import org.emp.gl.timer.service.TacheProgrammee;
+import org.emp.gl.timer.service.TickListener;
 import org.emp.gl.timer.service.TimerChangeListener;
 import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
 
 /**
  * Implémentation du service de chronométrage
@@ -23,89 +25,338 @@ import org.emp.gl.timer.service.TimerService;
  */
 public class DummyTimeServiceImpl implements TimerService {
 
+    private static final long PERIODE_TICK_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(MoteurTicks.PERIODE_MILLIS);
+    private static final long MILLIS_PAR_JOUR = TimeUnit.DAYS.toMillis(1);
+
+    private int millisecondes;
     private int dixiemeDeSeconde;
     private int minutes;
     private int secondes;
     private int heures;
+    private volatile long instantane;
+    private volatile boolean instantaneAJour; // Rafraîchi par le moteur au pas demandé
     
-    private final PropertyChangeSupport support;
-    private Timer internalTimer;
-    private boolean serviceActif;
+    private final RegistreAbonnements abonnements;
+    private final int[] unitesEnAttente;
+    private final int[] anciennesEnAttente;
+    private int nombreEnAttente;
+    private DiffusionRepartie repartition; // Écrite sous verrou par le thread de diffusion
+    private volatile DiffusionRepartie repartitionDemandee;
+    private final AdaptateurTimerChangeListener.Evenements evenements;
+    private ExecutorService executeurDiffusion;
+    private int capaciteAsynchrone;
+    private PolitiqueDebordement politiqueAsynchrone;
+    private final RoueTemporelle roue;
+    private final SourceTemps source;
+    private final DecalageFuseau fuseau;
+    private final DecalageFuseau fuseauLecture; // Pour les accesseurs, sous son verrou
+    private volatile VueFuseau[] vues = new VueFuseau[0];
+    private final MetriquesServiceTemps metriques;
+    private volatile MoteurTicks moteur;
+    private final Object verrouCadence = new Object();
+    private volatile int resolutionMillis = (int) MoteurTicks.PERIODE_MILLIS;
+    private int decalageMillis;
+    private long dernierTempsMurMillis;
+    private volatile boolean serviceActif;
     private long derniereMiseAJour;
 
     /**
-     * Initialise le service de chronométrage
-     * Configure le timer interne et démarre la surveillance temporelle
+     * Initialise le service de chronométrage sur l'horloge du système.
+     * Aucun thread n'est créé avant le premier abonnement : ce constructeur
+     * est aussi celui qu'utilise {@link java.util.ServiceLoader}.
      */
     public DummyTimeServiceImpl() {
-        this.support = new PropertyChangeSupport(this);
+        this(SourceTempsSysteme.INSTANCE, ZoneId.systemDefault());
+    }
+    
+    /**
+     * Initialise le service de chronométrage sur une source de temps donnée,
+     * par exemple une {@link HorlogeVirtuelle}
+     *
+     * @param source Source du temps monotone et de l'heure murale
+     * @param zone Fuseau horaire de l'heure diffusée
+     */
+    public DummyTimeServiceImpl(SourceTemps source, ZoneId zone) {
+        this.source = source;
+        this.abonnements = new RegistreAbonnements();
+        this.unitesEnAttente = new int[UniteTemps.NOMBRE_UNITES + 1];
+        this.anciennesEnAttente = new int[UniteTemps.NOMBRE_UNITES + 1];
+        this.evenements = new AdaptateurTimerChangeListener.Evenements(this);
+        this.roue = new RoueTemporelle(PERIODE_TICK_NANOS, source.nanoTime());
+        this.fuseau = new DecalageFuseau(zone);
+        this.fuseauLecture = new DecalageFuseau(zone);
         this.serviceActif = true;
-        this.derniereMiseAJour = System.currentTimeMillis();
+        this.derniereMiseAJour = source.tempsMurMillis();
+        this.metriques = new MetriquesServiceTemps(this);
         
         initialiserValeurs();
-        demarrerTimer();
+        demarrerMoteur();
     }
     
     /**
-     * Démarre le timer de surveillance
+     * Met en marche le moteur de ticks. Son thread démarre avec le premier
+     * abonnement ou la première tâche programmée, et s'arrête dès que le
+     * dernier écouteur se désabonne et que la roue est vide.
      */
-    private void demarrerTimer() {
-        internalTimer = creerTimer();
-        TimerTask tache = construireTimerTask();
-        planifierExecution(internalTimer, tache);
+    private void demarrerMoteur() {
+        moteur = new MoteurTicks(this::traiterTick, source, metriques.getGigueTick(),
+                                 "service-temps");
+        moteur.demarrer();
+        ajusterCadence();
     }
     
     /**
-     * Crée une nouvelle instance de Timer
+     * Traite un tick du moteur
      */
-    private Timer creerTimer() {
-        return new Timer();
+    private void traiterTick(long tempsMurMillis, long ecartMillis, long maintenantNanos) {
+        if (serviceActif) {
+            long debut = System.nanoTime();
+            traiterChangementTemps(tempsMurMillis, ecartMillis);
+            roue.avancer(maintenantNanos);
+            metriques.enregistrerTick(System.nanoTime() - debut);
+        }
+        // La roue a pu se vider
+        ajusterCadence();
     }
     
     /**
-     * Construit la tâche de surveillance temporelle
+     * Règle le pas du moteur sur le plus fin dont ont besoin les abonnés
+     * et les tâches programmées. Le calcul et le réglage se font sous un
+     * même verrou, pour qu'un réglage périmé n'en écrase pas un plus récent.
      */
-    private TimerTask construireTimerTask() {
-        return new TimerTask() {
-            @Override
-            public void run() {
-                if (serviceActif) {
-                    traiterChangementTemps();
-                }
+    void ajusterCadence() {
+        MoteurTicks m = moteur;
+        if (m == null) {
+            return;
+        }
+        synchronized (verrouCadence) {
+            long pas = pasRequis();
+            long actuel = m.getPasMillis();
+            // Un pas plus fin ne vaut qu'à partir du prochain tick
+            if (pas != MoteurTicks.SUSPENDU && (actuel == MoteurTicks.SUSPENDU || pas < actuel)) {
+                instantaneAJour = false;
             }
-        };
+            m.regler(pas);
+        }
     }
     
     /**
-     * Planifie l'exécution périodique de la tâche
+     * Calcule le pas des ticks : la résolution pour les abonnés aux
+     * millisecondes ; le dixième pour les abonnés aux dixièmes ou aux
+     * discontinuités, détectées au dixième près, et pour les tâches de la
+     * roue ; la seconde ou la minute pour des abonnés plus grossiers ;
+     * aucun pour un service désactivé ou sans abonné.
+     * Les accesseurs de l'heure lisent l'horloge eux-mêmes lorsque ce pas
+     * est plus grossier que l'unité lue.
+     */
+    private long pasRequis() {
+        if (!serviceActif) {
+            return MoteurTicks.SUSPENDU;
+        }
+        int masque = abonnements.getMasqueUnites();
+        for (VueFuseau vue : vues) {
+            masque |= vue.getMasqueUnites();
+        }
+        if ((masque & UniteTemps.MASQUE_MILLISECONDE) != 0) {
+            return resolutionMillis;
+        }
+        if ((masque & (UniteTemps.MASQUE_DIXIEME | UniteTemps.MASQUE_DISCONTINUITE)) != 0
+                || roue.getNombreTaches() > 0) {
+            return MoteurTicks.PERIODE_MILLIS;
+        }
+        if ((masque & UniteTemps.MASQUE_SECONDE) != 0) {
+            return MoteurTicks.PAS_SECONDE_MILLIS;
+        }
+        return masque != 0 ? MoteurTicks.PAS_MINUTE_MILLIS : MoteurTicks.SUSPENDU;
+    }
+
+    /**
+     * Règle la résolution des millisecondes. Le moteur ne tourne à cette
+     * résolution que tant qu'un écouteur est abonné aux millisecondes.
+     *
+     * @param resolution Diviseur de 100 ms, de 1 à 100 ms
      */
-    private void planifierExecution(Timer timer, TimerTask task) {
-        timer.scheduleAtFixedRate(task, 100, 100);
+    public void setResolutionMillis(int resolution) {
+        if (resolution < 1 || MoteurTicks.PERIODE_MILLIS % resolution != 0) {
+            throw new IllegalArgumentException("La résolution doit diviser "
+                    + MoteurTicks.PERIODE_MILLIS + " ms : " + resolution);
+        }
+        this.resolutionMillis = resolution;
+        ajusterCadence();
+    }
+
+    /**
+     * Retourne la résolution des millisecondes
+     */
+    public int getResolutionMillis() {
+        return resolutionMillis;
     }
 
     /**
      * Initialise les valeurs temporelles à partir de l'heure système
      */
     private void initialiserValeurs() {
-        LocalTime tempsActuel = obtenirTempsSysteme();
-        appliquerValeurs(tempsActuel);
+        long maintenant = source.tempsMurMillis();
+        decalageMillis = calculerDecalage(maintenant);
+        dernierTempsMurMillis = maintenant;
+        long millisDuJour = Math.floorMod(maintenant + decalageMillis, MILLIS_PAR_JOUR);
+        heures = (int) (millisDuJour / 3600000);
+        minutes = (int) (millisDuJour / 60000 % 60);
+        secondes = (int) (millisDuJour / 1000 % 60);
+        millisecondes = (int) (millisDuJour % 1000);
+        dixiemeDeSeconde = millisecondes / 100;
+        publierInstantane();
+    }
+    
+    /**
+     * Publie l'heure courante d'une seule écriture volatile.
+     * Les lecteurs obtiennent ainsi une heure cohérente sans verrou.
+     */
+    private void publierInstantane() {
+        instantane = InstantaneTemps.composer(heures, minutes, secondes, millisecondes);
     }
     
     /**
-     * Obtient le temps système actuel
+     * Retourne l'heure publiée par le dernier tick si elle est à jour pour
+     * la granularité lue, sinon la calcule depuis l'horloge murale
      */
-    private LocalTime obtenirTempsSysteme() {
-        return LocalTime.now();
+    private long instantanePour(long granulariteMillis) {
+        return estAJour(granulariteMillis) ? instantane : lireInstantane(fuseauLecture);
+    }
+
+    /**
+     * Vérifie si le moteur rafraîchit l'heure publiée au moins à la
+     * granularité lue. Ce n'est pas le cas d'un moteur suspendu faute
+     * d'abonné ou dont le pas est plus grossier. Un service désactivé
+     * garde l'heure de son dernier tick.
+     */
+    boolean estAJour(long granulariteMillis) {
+        long pas = getPasTickMillis();
+        return !serviceActif
+               || instantaneAJour && pas != MoteurTicks.SUSPENDU && pas <= granulariteMillis;
+    }
+
+    /**
+     * Lit l'horloge murale et la convertit dans un fuseau, depuis
+     * n'importe quel thread
+     *
+     * @param decalages Décalages du fuseau, réservés aux lectures
+     */
+    long lireInstantane(DecalageFuseau decalages) {
+        long maintenant = source.tempsMurMillis();
+        int decalage;
+        synchronized (decalages) {
+            decalage = decalages.pour(maintenant);
+        }
+        long millisDuJour = Math.floorMod(maintenant + decalage, MILLIS_PAR_JOUR);
+        return InstantaneTemps.composer((int) (millisDuJour / 3600000),
+                                        (int) (millisDuJour / 60000 % 60),
+                                        (int) (millisDuJour / 1000 % 60),
+                                        (int) (millisDuJour % 1000));
+    }
+
+    /**
+     * Retourne le décalage du fuseau local à un instant donné
+     */
+    private int calculerDecalage(long tempsMurMillis) {
+        return fuseau.pour(tempsMurMillis);
+    }
+
+    /**
+     * Retourne la vue de ce service dans un autre fuseau horaire.
+     * <p>
+     * Toutes les vues partagent le moteur du service : chaque tick lit
+     * l'horloge une seule fois et chaque vue le convertit avec un décalage
+     * recalculé seulement aux changements d'heure. Une vue s'utilise comme
+     * un service à part entière ; ses abonnés sont notifiés sur le thread
+     * du service, après ceux du service. Une même vue est rendue pour un
+     * même fuseau.
+     */
+    public TimerService pourFuseau(ZoneId zone) {
+        synchronized (verrouCadence) {
+            for (VueFuseau vue : vues) {
+                if (vue.getZone().equals(zone)) {
+                    return vue;
+                }
+            }
+            VueFuseau vue = new VueFuseau(this, zone, source.tempsMurMillis());
+            VueFuseau[] nouvelles = Arrays.copyOf(vues, vues.length + 1);
+            nouvelles[vues.length] = vue;
+            vues = nouvelles;
+            return vue;
+        }
+    }
+    
+    /**
+     * Applique l'heure murale d'un tick.
+     * Un changement de décalage horaire est traité comme un saut de l'horloge.
+     */
+    private void appliquerTemps(long tempsMurMillis, long ecartMillis) {
+        int decalage = calculerDecalage(tempsMurMillis);
+        long ecartLocal = ecartMillis + decalage - decalageMillis;
+        decalageMillis = decalage;
+
+        // Seconde réellement écoulée, mesurée avant le saut éventuel
+        boolean secondeEcoulee = Math.floorDiv(tempsMurMillis - ecartMillis, 1000)
+                                 != Math.floorDiv(dernierTempsMurMillis, 1000);
+        dernierTempsMurMillis = tempsMurMillis;
+
+        long millisDuJour = Math.floorMod(tempsMurMillis + decalage, MILLIS_PAR_JOUR);
+        appliquerValeurs((int) (millisDuJour / 3600000),
+                         (int) (millisDuJour / 60000 % 60),
+                         (int) (millisDuJour / 1000 % 60),
+                         (int) (millisDuJour % 1000),
+                         ecartLocal != 0, secondeEcoulee);
+    }
+    
+    /**
+     * Applique les valeurs du temps local.
+     * Toutes les unités sont mises à jour avant la première notification,
+     * afin que chaque écouteur reçoive une heure cohérente.
+     * <p>
+     * Les secondes sont notifiées lorsqu'une seconde s'est réellement écoulée :
+     * un saut de l'horloge murale ne fait ni perdre ni compter deux fois une
+     * seconde aux comptes à rebours. Le saut lui-même est notifié en premier.
+     */
+    private void appliquerValeurs(int nouvellesHeures, int nouvellesMinutes,
+                                  int nouvellesSecondes, int nouvellesMillisecondes,
+                                  boolean discontinuite, boolean secondeEcoulee) {
+        int anciennesSecondes = secondes;
+        int anciennesMinutes = minutes;
+        int anciennesHeures = heures;
+        int anciensDixiemes = dixiemeDeSeconde;
+        int anciennesMillisecondes = millisecondes;
+
+        secondes = nouvellesSecondes;
+        minutes = nouvellesMinutes;
+        heures = nouvellesHeures;
+        millisecondes = nouvellesMillisecondes;
+        dixiemeDeSeconde = nouvellesMillisecondes / 100;
+        publierInstantane();
+        instantaneAJour = true;
+
+        if (discontinuite) {
+            diffuser(UniteTemps.DISCONTINUITE,
+                     anciennesHeures * 3600 + anciennesMinutes * 60 + anciennesSecondes);
+        }
+        if (secondeEcoulee) {
+            diffuser(UniteTemps.SECONDE, anciennesSecondes);
+        }
+        notifierSiChangement(UniteTemps.MINUTE, anciennesMinutes, minutes);
+        notifierSiChangement(UniteTemps.HEURE, anciennesHeures, heures);
+        notifierSiChangement(UniteTemps.DIXIEME, anciensDixiemes, dixiemeDeSeconde);
+        notifierSiChangement(UniteTemps.MILLISECONDE, anciennesMillisecondes, millisecondes);
+        terminerDiffusion();
     }
     
     /**
-     * Applique les valeurs du temps local
+     * Notifie les abonnés d'une unité si sa valeur a changé
      */
-    private void appliquerValeurs(LocalTime localTime) {
-        mettreAJourSecondes(localTime.getSecond());
-        mettreAJourMinutes(localTime.getMinute());
-        mettreAJourHeures(localTime.getHour());
-        mettreAJourDixiemes(localTime.getNano() / 100000000);
+    private void notifierSiChangement(int unite, int ancienne, int nouvelle) {
+        if (valeurDifferente(ancienne, nouvelle)) {
+            diffuser(unite, ancienne);
+        }
     }
     
     /**
@@ -116,7 +367,22 @@ public class DummyTimeServiceImpl implements TimerService {
         if (pl == null) {
             return;
         }
-        support.addPropertyChangeListener(pl);
+        addTimeChangeListener(pl, UniteTemps.MASQUE_TOUTES, 1);
+    }
+
+    /**
+     * Enregistre un écouteur pour les seules unités de temps demandées
+     */
+    @Override
+    public void addTimeChangeListener(TimerChangeListener pl, int masque, int frequence) {
+        if (pl == null) {
+            return;
+        }
+        verifierAbonnement(masque, frequence);
+        TickListener adaptateur = new AdaptateurTimerChangeListener(pl, evenements);
+        abonnements.abonner(pl, preparerCible(adaptateur), masque, frequence,
+                            metriques.latencesPour(pl.getClass()));
+        ajusterCadence();
     }
 
     /**
@@ -127,22 +393,138 @@ public class DummyTimeServiceImpl implements TimerService {
         if (pl == null) {
             return;
         }
-        support.removePropertyChangeListener(pl);
+        abonnements.desabonner(pl);
+        ajusterCadence();
+    }
+
+    /**
+     * Enregistre un écouteur à valeurs primitives
+     */
+    @Override
+    public void addTickListener(TickListener tl, int masque, int frequence) {
+        if (tl == null) {
+            return;
+        }
+        verifierAbonnement(masque, frequence);
+        abonnements.abonner(tl, preparerCible(tl), masque, frequence,
+                            metriques.latencesPour(tl.getClass()));
+        ajusterCadence();
+    }
+
+    /**
+     * Retire un écouteur à valeurs primitives
+     */
+    @Override
+    public void removeTickListener(TickListener tl) {
+        if (tl == null) {
+            return;
+        }
+        abonnements.desabonner(tl);
+        ajusterCadence();
+    }
+
+    /**
+     * Active la diffusion asynchrone pour les écouteurs enregistrés ensuite.
+     * Chacun reçoit une boîte aux lettres bornée et s'exécute sur un
+     * exécuteur dédié, sans retarder le thread du service ni les autres.
+     *
+     * @param capacite Nombre d'événements en attente par écouteur
+     * @param politique Comportement lorsque la boîte est pleine
+     */
+    public synchronized void activerDiffusionAsynchrone(int capacite,
+                                                        PolitiqueDebordement politique) {
+        if (capacite < 1) {
+            throw new IllegalArgumentException("La capacité doit être au moins 1");
+        }
+        if (politique == null) {
+            throw new NullPointerException("politique");
+        }
+        if (executeurDiffusion == null) {
+            executeurDiffusion = Executeurs.creerExecuteurDiffusion();
+        }
+        this.capaciteAsynchrone = capacite;
+        this.politiqueAsynchrone = politique;
+    }
+    
+    /**
+     * Revient à la diffusion synchrone pour les écouteurs enregistrés ensuite
+     */
+    public synchronized void activerDiffusionSynchrone() {
+        this.capaciteAsynchrone = 0;
+    }
+    
+    /**
+     * Place l'écouteur derrière une boîte aux lettres en mode asynchrone
+     */
+    synchronized TickListener preparerCible(TickListener cible) {
+        if (capaciteAsynchrone == 0) {
+            return cible;
+        }
+        return new BoiteAuxLettres(cible, executeurDiffusion,
+                                   capaciteAsynchrone, politiqueAsynchrone);
+    }
+
+    /**
+     * Vérifie les paramètres d'un abonnement
+     */
+    void verifierAbonnement(int masque, int frequence) {
+        if (!UniteTemps.estValide(masque)) {
+            throw new IllegalArgumentException("Masque d'unités inconnu : " + masque);
+        }
+        if (frequence < 1) {
+            throw new IllegalArgumentException("La fréquence doit être au moins 1");
+        }
+    }
+
+    /**
+     * Programme l'exécution unique d'une tâche dans la roue temporelle
+     */
+    @Override
+    public TacheProgrammee programmer(Runnable tache, long delai, TimeUnit unite) {
+        TacheProgrammee programmee = roue.programmer(tache, source.nanoTime(),
+                                                     unite.toNanos(delai), 0);
+        ajusterCadence();
+        return programmee;
+    }
+
+    /**
+     * Programme l'exécution périodique d'une tâche dans la roue temporelle
+     */
+    @Override
+    public TacheProgrammee programmerPeriodique(Runnable tache, long delaiInitial,
+                                                long periode, TimeUnit unite) {
+        if (periode <= 0) {
+            throw new IllegalArgumentException("La période doit être strictement positive");
+        }
+        TacheProgrammee programmee = roue.programmer(tache, source.nanoTime(),
+                unite.toNanos(delaiInitial), unite.toNanos(periode));
+        ajusterCadence();
+        return programmee;
+    }
+    
+    /**
+     * Retourne le nombre de tâches programmées en attente
+     */
+    public long getNombreTachesProgrammees() {
+        return roue.getNombreTaches();
     }
 
     /**
      * Gère le changement de temps détecté
      */
-    private void traiterChangementTemps() {
-        initialiserValeurs();
-        mettreAJourTimestamp();
+    private void traiterChangementTemps(long tempsMurMillis, long ecartMillis) {
+        appliquerTemps(tempsMurMillis, ecartMillis);
+        for (VueFuseau vue : vues) {
+            vue.appliquer(tempsMurMillis, ecartMillis);
+        }
+        mettreAJourTimestamp(tempsMurMillis);
     }
     
     /**
-     * Met à jour le timestamp de dernière modification
+     * Met à jour le timestamp de dernière modification avec l'heure du tick
      */
-    private void mettreAJourTimestamp() {
-        this.derniereMiseAJour = System.currentTimeMillis();
+    private void mettreAJourTimestamp(long tempsMurMillis) {
+        this.derniereMiseAJour = tempsMurMillis;
     }
 
     /**
@@ -155,7 +537,10 @@ public class DummyTimeServiceImpl implements TimerService {
         
         int ancienneValeur = dixiemeDeSeconde;
         dixiemeDeSeconde = newDixiemeDeSeconde;
+        millisecondes = newDixiemeDeSeconde * 100;
+        publierInstantane();
         notifierChangementDixieme(ancienneValeur, dixiemeDeSeconde);
+        terminerDiffusion();
     }
     
     /**
@@ -169,17 +554,172 @@ public class DummyTimeServiceImpl implements TimerService {
      * Notifie les observateurs d'un changement de dixième
      */
     private void notifierChangementDixieme(int oldValue, int newValue) {
-        support.firePropertyChange(TimerChangeListener.DIXEME_DE_SECONDE_PROP, 
-                                   oldValue, newValue);
+        diffuser(UniteTemps.DIXIEME, oldValue);
     }
     
     /**
-     * Met à jour la valeur des dixièmes
+     * Active la diffusion répartie avec un thread par cœur disponible
      */
-    private void mettreAJourDixiemes(int valeur) {
-        setDixiemeDeSeconde(valeur);
+    public void activerDiffusionRepartie() {
+        activerDiffusionRepartie(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Répartit les écouteurs en partitions notifiées en parallèle, le thread
+     * du service traitant la première et un thread dédié chacune des autres.
+     * Chaque écouteur reste dans sa partition et reçoit ses événements dans
+     * l'ordre ; un tick se termine lorsque toutes les partitions sont servies.
+     * Une seule partition revient à la diffusion sur le thread du service.
+     *
+     * @param partitions Nombre de partitions, et de threads de diffusion
+     */
+    public synchronized void activerDiffusionRepartie(int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Il faut au moins une partition");
+        }
+        abonnements.repartir(partitions);
+        DiffusionRepartie precedente = repartitionDemandee;
+        repartitionDemandee = partitions == 1 ? null
+                : new DiffusionRepartie(this::parcourir, partitions, "diffusion-partition");
+        if (precedente != null && precedente != repartition) {
+            precedente.arreter();
+        }
+    }
+    
+    /**
+     * Met un changement en attente jusqu'à la fin du tick
+     */
+    private void diffuser(int unite, int oldValue) {
+        unitesEnAttente[nombreEnAttente] = unite;
+        anciennesEnAttente[nombreEnAttente] = oldValue;
+        nombreEnAttente++;
+    }
+    
+    /**
+     * Diffuse les changements du tick, dans l'ordre où ils se sont produits,
+     * directement ou par la diffusion répartie
+     */
+    private void terminerDiffusion() {
+        int nombre = nombreEnAttente;
+        if (nombre == 0) {
+            return;
+        }
+        nombreEnAttente = 0;
+        RegistreEcouteurs<Abonnement>[][] partitions = abonnements.getPartitions();
+        DiffusionRepartie repartie = adopterRepartition();
+        if (repartie != null) {
+            repartie.publier(partitions, unitesEnAttente, anciennesEnAttente, nombre);
+            return;
+        }
+        for (int e = 0; e < nombre; e++) {
+            for (RegistreEcouteurs<Abonnement>[] parUnite : partitions) {
+                parcourir(parUnite[unitesEnAttente[e]], unitesEnAttente[e], anciennesEnAttente[e]);
+            }
+        }
+    }
+    
+    /**
+     * Adopte la dernière répartition demandée. Le changement se fait sur le
+     * thread de diffusion, entre deux ticks, pour qu'aucune diffusion ne
+     * s'appuie sur des ouvriers arrêtés.
+     */
+    private DiffusionRepartie adopterRepartition() {
+        if (repartitionDemandee == repartition) {
+            return repartition;
+        }
+        synchronized (this) {
+            if (repartition != null) {
+                repartition.arreter();
+            }
+            repartition = repartitionDemandee;
+            return repartition;
+        }
+    }
+    
+    /**
+     * Diffuse un changement aux abonnés d'une unité dans une partition
+     */
+    private void parcourir(RegistreEcouteurs<Abonnement> abonnes, int unite, int oldValue) {
+        RegistreAbonnements.diffuser(abonnes, unite, oldValue, heures, minutes, secondes,
+                                     unite == UniteTemps.MILLISECONDE
+                                     ? millisecondes : dixiemeDeSeconde,
+                                     metriques.isMesureParEcouteur(), null);
+    }
+    
+    /**
+     * Retourne le nombre d'écouteurs enregistrés
+     */
+    public int getNombreEcouteurs() {
+        return abonnements.taille();
+    }
+    
+    /**
+     * Retourne les métriques du service, publiées par JMX après
+     * {@link #exposerJmx()}
+     */
+    public MetriquesServiceTemps getMetriques() {
+        return metriques;
     }
 
+    /**
+     * Publie les métriques du service auprès du serveur MBean de la
+     * plateforme. Le service reste alors référencé par JMX jusqu'à
+     * {@link #arreter()}.
+     *
+     * @return Ce service
+     */
+    public DummyTimeServiceImpl exposerJmx() {
+        metriques.enregistrerMBean();
+        return this;
+    }
+    
+    /**
+     * Retourne le nombre de ticks sautés par le moteur
+     */
+    long getTicksManques() {
+        MoteurTicks m = moteur;
+        return m == null ? 0 : m.getTicksManques();
+    }
+    
+    /**
+     * Retourne le nombre de ticks émis en retard
+     */
+    long getTicksRattrapes() {
+        MoteurTicks m = moteur;
+        return m == null ? 0 : m.getTicksRattrapes();
+    }
+    
+    /**
+     * Retourne l'état du thread du service, {@link Thread.State#TERMINATED}
+     * tant que le moteur n'a rien à produire
+     */
+    Thread.State getEtatThread() {
+        MoteurTicks m = moteur;
+        return m == null ? Thread.State.TERMINATED : m.getEtatThread();
+    }
+    
+    /**
+     * Retourne le pas courant du moteur en millisecondes, 0 s'il est suspendu
+     */
+    long getPasTickMillis() {
+        MoteurTicks m = moteur;
+        return m == null ? MoteurTicks.SUSPENDU : m.getPasMillis();
+    }
+    
+    /**
+     * Retourne le nombre d'événements fusionnés en mode asynchrone
+     */
+    long getEvenementsFusionnes() {
+        return abonnements.compterFusionnes();
+    }
+    
+    /**
+     * Retourne le nombre d'événements supprimés en mode asynchrone
+     */
+    long getEvenementsSupprimes() {
+        return abonnements.compterSupprimes();
+    }
+    
     /**
      * Définit une nouvelle valeur pour les secondes
      */
@@ -190,24 +730,18 @@ public class DummyTimeServiceImpl implements TimerService {
         
         int ancienneValeur = secondes;
         secondes = newSecondes;
+        publierInstantane();
         notifierChangementSeconde(ancienneValeur, secondes);
+        terminerDiffusion();
     }
     
     /**
      * Notifie les observateurs d'un changement de seconde
      */
     private void notifierChangementSeconde(int oldValue, int newValue) {
-        support.firePropertyChange(TimerChangeListener.SECONDE_PROP, 
-                                   oldValue, newValue);
+        diffuser(UniteTemps.SECONDE, oldValue);
     }
     
-    /**
-     * Met à jour la valeur des secondes
-     */
-    private void mettreAJourSecondes(int valeur) {
-        setSecondes(valeur);
-    }
-
     /**
      * Définit une nouvelle valeur pour les minutes
      */
@@ -218,24 +752,18 @@ public class DummyTimeServiceImpl implements TimerService {
         
         int ancienneValeur = minutes;
         minutes = newMinutes;
+        publierInstantane();
         notifierChangementMinute(ancienneValeur, minutes);
+        terminerDiffusion();
     }
     
     /**
      * Notifie les observateurs d'un changement de minute
      */
     private void notifierChangementMinute(int oldValue, int newValue) {
-        support.firePropertyChange(TimerChangeListener.MINUTE_PROP, 
-                                   oldValue, newValue);
+        diffuser(UniteTemps.MINUTE, oldValue);
     }
     
-    /**
-     * Met à jour la valeur des minutes
-     */
-    private void mettreAJourMinutes(int valeur) {
-        setMinutes(valeur);
-    }
-
     /**
      * Définit une nouvelle valeur pour les heures
      */
@@ -246,30 +774,33 @@ public class DummyTimeServiceImpl implements TimerService {
         
         int ancienneValeur = heures;
         heures = newHeures;
+        publierInstantane();
         notifierChangementHeure(ancienneValeur, heures);
+        terminerDiffusion();
     }
     
     /**
      * Notifie les observateurs d'un changement d'heure
      */
     private void notifierChangementHeure(int oldValue, int newValue) {
-        support.firePropertyChange(TimerChangeListener.HEURE_PROP, 
-                                   oldValue, newValue);
+        diffuser(UniteTemps.HEURE, oldValue);
     }
     
     /**
-     * Met à jour la valeur des heures
+     * Récupère les dixièmes de seconde actuels
      */
-    private void mettreAJourHeures(int valeur) {
-        setHeures(valeur);
+    @Override
+    public int getDixiemeDeSeconde() { 
+        return InstantaneTemps.dixiemes(instantanePour(MoteurTicks.PERIODE_MILLIS)); 
     }
-
+    
     /**
-     * Récupère les dixièmes de seconde actuels
+     * Récupère les millisecondes actuelles, à la résolution du moteur
+     * tant qu'il les diffuse
      */
     @Override
-    public int getDixiemeDeSeconde() { 
-        return dixiemeDeSeconde; 
+    public int getMillisecondes() {
+        return InstantaneTemps.millisecondes(instantanePour(resolutionMillis));
     }
     
     /**
@@ -277,7 +808,7 @@ public class DummyTimeServiceImpl implements TimerService {
      */
     @Override
     public int getHeures() { 
-        return heures; 
+        return InstantaneTemps.heures(instantanePour(MoteurTicks.PAS_MINUTE_MILLIS)); 
     }
     
     /**
@@ -285,7 +816,7 @@ public class DummyTimeServiceImpl implements TimerService {
      */
     @Override
     public int getMinutes() { 
-        return minutes; 
+        return InstantaneTemps.minutes(instantanePour(MoteurTicks.PAS_MINUTE_MILLIS)); 
     }
     
     /**
@@ -293,7 +824,15 @@ public class DummyTimeServiceImpl implements TimerService {
      */
     @Override
     public int getSecondes() { 
-        return secondes; 
+        return InstantaneTemps.secondes(instantanePour(MoteurTicks.PAS_SECONDE_MILLIS)); 
+    }
+    
+    /**
+     * Récupère l'heure complète en une seule lecture atomique
+     */
+    @Override
+    public long snapshot() {
+        return instantanePour(MoteurTicks.PERIODE_MILLIS);
     }
     
     /**
@@ -308,13 +847,16 @@ public class DummyTimeServiceImpl implements TimerService {
      */
     public void activer() {
         this.serviceActif = true;
+        ajusterCadence();
     }
     
     /**
-     * Désactive le service de chronométrage
+     * Désactive le service de chronométrage. Le moteur est suspendu
+     * jusqu'à la réactivation.
      */
     public void desactiver() {
         this.serviceActif = false;
+        ajusterCadence();
     }
     
     /**
@@ -328,10 +870,24 @@ public class DummyTimeServiceImpl implements TimerService {
      * Arrête complètement le service et libère les ressources
      */
     public void arreter() {
-        if (internalTimer != null) {
-            internalTimer.cancel();
-            internalTimer = null;
+        if (moteur != null) {
+            moteur.arreter();
+            moteur = null;
+        }
+        synchronized (this) {
+            if (executeurDiffusion != null) {
+                executeurDiffusion.shutdown();
+            }
+        }
+        synchronized (this) {
+            if (repartitionDemandee != null) {
+                repartitionDemandee.arreter();
+            }
+            if (repartition != null) {
+                repartition.arreter();
+            }
         }
+        metriques.desenregistrerMBean();
         serviceActif = false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+/*
+ * Enregistreur binaire des événements d'un service de temps
+ */
+package org.emp.gl.time.service.impl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
+
+/**
+ * Enregistre chaque événement diffusé par un service dans un journal
+ * binaire, relu par {@link RejoueurTicks}.
+ * <p>
+ * Un événement occupe 16 octets : l'instant monotone de sa réception,
+ * l'unité et l'heure du tick à la milliseconde dans un entier, puis
+ * l'ancienne valeur. L'en-tête porte la version de ce format. Le
+ * fichier est projeté en mémoire par régions successives : enregistrer un
+ * événement se résume à trois écritures en mémoire sur le thread du
+ * service, le système se chargeant du disque. Le fichier est ramené à sa
+ * taille utile à la fermeture ; après un arrêt brutal, la fin restée à
+ * zéro est ignorée à la relecture.
+ * <p>
+ * L'enregistreur doit être abonné en diffusion synchrone, une boîte aux
+ * lettres pouvant fusionner des événements. Abonné aux millisecondes, il
+ * fait tourner le service à sa résolution.
+ */
+public final class EnregistreurTicks implements TickListener, AutoCloseable {
+
+    static final int MAGIQUE = 0x54494B31; // "TIK1"
+    static final int VERSION = 2;
+    static final int TAILLE_ENTETE = 16;
+    static final int TAILLE_EVENEMENT = 16;
+    static final long TAILLE_REGION = 1L << 24; // Multiple de TAILLE_EVENEMENT
+
+    private final TimerService service;
+    private final FileChannel canal;
+    private MappedByteBuffer region;
+    private long debutRegion;
+    private long nombreEvenements;
+    private boolean ouvert;
+
+    /**
+     * Crée le journal, en remplaçant un fichier existant
+     *
+     * @param service Service dont les événements sont enregistrés
+     * @param fichier Fichier du journal
+     */
+    public EnregistreurTicks(TimerService service, Path fichier) throws IOException {
+        this.service = service;
+        this.canal = FileChannel.open(fichier, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.region = canal.map(FileChannel.MapMode.READ_WRITE, 0, TAILLE_REGION);
+        region.putInt(MAGIQUE);
+        region.putInt(VERSION);
+        region.putLong(0);
+        this.ouvert = true;
+    }
+
+    /**
+     * Abonne l'enregistreur à tous les événements du service,
+     * discontinuités et millisecondes comprises
+     */
+    public void demarrer() {
+        service.addTickListener(this, UniteTemps.MASQUE_EVENEMENTS, 1);
+    }
+
+    @Override
+    public void onTick(int unite, int ancienneValeur, int heures, int minutes,
+                       int secondes, int dixiemes) {
+        long instant = System.nanoTime();
+        synchronized (this) {
+            if (!ouvert) {
+                return;
+            }
+            if (region.remaining() < TAILLE_EVENEMENT && !changerDeRegion()) {
+                return;
+            }
+            region.putLong(instant);
+            int millisecondes = unite == UniteTemps.MILLISECONDE ? dixiemes : dixiemes * 100;
+            region.putInt(composer(unite, heures, minutes, secondes, millisecondes));
+            region.putInt(ancienneValeur);
+            nombreEvenements++;
+        }
+    }
+
+    /**
+     * Regroupe l'unité et l'heure d'un événement. L'unité est décalée
+     * d'un cran pour qu'un emplacement resté à zéro marque la fin.
+     * <pre>
+     * bits 27-29 : unité + 1  bits 22-26 : heures  bits 16-21 : minutes
+     * bits 10-15 : secondes   bits  0-9  : millisecondes
+     * </pre>
+     */
+    static int composer(int unite, int heures, int minutes, int secondes, int millisecondes) {
+        return (unite + 1) << 27 | heures << 22 | minutes << 16 | secondes << 10 | millisecondes;
+    }
+
+    /**
+     * Projette la région suivante du fichier
+     *
+     * @return false si le fichier ne peut plus grandir, l'enregistrement s'arrêtant
+     */
+    private boolean changerDeRegion() {
+        debutRegion += region.position();
+        try {
+            region = canal.map(FileChannel.MapMode.READ_WRITE, debutRegion, TAILLE_REGION);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Enregistrement des ticks interrompu : " + e);
+            ouvert = false;
+            return false;
+        }
+    }
+
+    /**
+     * Retourne le nombre d'événements enregistrés
+     */
+    public synchronized long getNombreEvenements() {
+        return nombreEvenements;
+    }
+
+    /**
+     * Désabonne l'enregistreur et ramène le fichier à sa taille utile
+     */
+    @Override
+    public void close() throws IOException {
+        service.removeTickListener(this);
+        synchronized (this) {
+            if (!canal.isOpen()) {
+                return;
+            }
+            ouvert = false;
+            region.force();
+            canal.truncate(debutRegion + region.position());
+            canal.close();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Entrée chaînée d'une roue temporelle
+ */
+package org.emp.gl.time.service.impl;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.emp.gl.timer.service.TacheProgrammee;
+
+/**
+ * Tâche programmée dans une {@link RoueTemporelle}.
+ * Chaque entrée est un maillon de la liste doublement chaînée de son seau,
+ * ce qui permet un retrait en temps constant.
+ */
+final class EntreeRoue implements TacheProgrammee {
+
+    static final int EN_ATTENTE = 0;
+    static final int ANNULEE = 1;
+    static final int EXPIREE = 2;
+
+    private static final AtomicIntegerFieldUpdater<EntreeRoue> ETAT =
+            AtomicIntegerFieldUpdater.newUpdater(EntreeRoue.class, "etat");
+
+    final RoueTemporelle roue;
+    final Runnable tache;
+    final long periode;
+
+    // Champs manipulés uniquement par le thread qui fait avancer la roue
+    long echeance;
+    int niveau = -1;
+    int index;
+    EntreeRoue precedente;
+    EntreeRoue suivante;
+
+    private volatile int etat = EN_ATTENTE;
+
+    EntreeRoue(RoueTemporelle roue, Runnable tache, long echeance, long periode) {
+        this.roue = roue;
+        this.tache = tache;
+        this.echeance = echeance;
+        this.periode = periode;
+    }
+
+    /**
+     * Vérifie si l'entrée est périodique
+     */
+    boolean estPeriodique() {
+        return periode > 0;
+    }
+
+    /**
+     * Vérifie si l'entrée est actuellement chaînée dans un seau
+     */
+    boolean estChainee() {
+        return niveau >= 0;
+    }
+
+    /**
+     * Marque une entrée ponctuelle comme expirée
+     *
+     * @return false si l'entrée a été annulée entre-temps
+     */
+    boolean marquerExpiree() {
+        return ETAT.compareAndSet(this, EN_ATTENTE, EXPIREE);
+    }
+
+    @Override
+    public boolean annuler() {
+        if (!ETAT.compareAndSet(this, EN_ATTENTE, ANNULEE)) {
+            return false;
+        }
+        roue.signalerAnnulation(this);
+        return true;
+    }
+
+    @Override
+    public boolean estAnnulee() {
+        return etat == ANNULEE;
+    }
+
+    @Override
+    public boolean estExpiree() {
+        return etat == EXPIREE;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Exécuteurs utilisés pour la diffusion asynchrone
+ */
+package org.emp.gl.time.service.impl;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fabrique des exécuteurs de diffusion asynchrone
+ */
+final class Executeurs {
+
+    private Executeurs() {
+    }
+
+    /**
+     * Crée un exécuteur à threads virtuels si la JVM les propose,
+     * sinon un pool de threads démons dimensionné sur les cœurs, avec une
+     * marge pour les écouteurs qui bloquent
+     */
+    static ExecutorService creerExecuteurDiffusion() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(2, 2 * Runtime.getRuntime().availableProcessors());
+            return Executors.newFixedThreadPool(threads, fabriqueDemons("diffusion-temps"));
+        }
+    }
+
+    /**
+     * Fabrique de threads démons nommés
+     */
+    static ThreadFactory fabriqueDemons(String prefixe) {
+        AtomicInteger numero = new AtomicInteger();
+        return tache -> {
+            Thread thread = new Thread(tache, prefixe + "-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Histogramme de latences sans verrou
+ */
+package org.emp.gl.time.service.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramme de durées à seaux log-linéaires, à la manière de HdrHistogram.
+ * <p>
+ * Chaque puissance de deux est découpée en 16 seaux, soit une précision
+ * d'environ 6 % sur toute la plage des {@code long}. L'enregistrement ne
+ * prend aucun verrou et n'alloue rien : il peut se faire sur le thread
+ * du service à chaque tick.
+ */
+public final class HistogrammeLatences {
+
+    private static final int BITS_SOUS_SEAUX = 4;
+    private static final int SOUS_SEAUX = 1 << BITS_SOUS_SEAUX;
+    private static final int NOMBRE_SEAUX = (64 - BITS_SOUS_SEAUX + 1) * SOUS_SEAUX;
+
+    private final AtomicLongArray comptes;
+    private final AtomicLong nombre;
+    private final AtomicLong somme;
+    private final AtomicLong maximum;
+
+    public HistogrammeLatences() {
+        this.comptes = new AtomicLongArray(NOMBRE_SEAUX);
+        this.nombre = new AtomicLong();
+        this.somme = new AtomicLong();
+        this.maximum = new AtomicLong();
+    }
+
+    /**
+     * Enregistre une valeur, les valeurs négatives comptant pour 0
+     */
+    public void enregistrer(long valeur) {
+        if (valeur < 0) {
+            valeur = 0;
+        }
+        comptes.incrementAndGet(index(valeur));
+        nombre.incrementAndGet();
+        somme.addAndGet(valeur);
+        long max;
+        while (valeur > (max = maximum.get()) && !maximum.compareAndSet(max, valeur)) {
+            // Un autre thread a enregistré un maximum entre-temps
+        }
+    }
+
+    /**
+     * Seau d'une valeur positive
+     */
+    static int index(long valeur) {
+        if (valeur < SOUS_SEAUX) {
+            return (int) valeur;
+        }
+        int decalage = 63 - Long.numberOfLeadingZeros(valeur) - BITS_SOUS_SEAUX;
+        int sousSeau = (int) (valeur >>> decalage) & (SOUS_SEAUX - 1);
+        return (decalage + 1) * SOUS_SEAUX + sousSeau;
+    }
+
+    /**
+     * Plus grande valeur rangée dans un seau
+     */
+    static long borneSuperieure(int index) {
+        if (index < SOUS_SEAUX) {
+            return index;
+        }
+        int decalage = index / SOUS_SEAUX - 1;
+        long base = SOUS_SEAUX + index % SOUS_SEAUX;
+        return ((base + 1) << decalage) - 1;
+    }
+
+    /**
+     * Retourne la valeur en dessous de laquelle se trouve le centile donné
+     * des enregistrements
+     *
+     * @param centile Entre 0 et 100
+     */
+    public long getCentile(double centile) {
+        long total = nombre.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rang = Math.max(1, (long) Math.ceil(total * centile / 100.0));
+        long cumul = 0;
+        for (int i = 0; i < NOMBRE_SEAUX; i++) {
+            cumul += comptes.get(i);
+            if (cumul >= rang) {
+                return Math.min(borneSuperieure(i), maximum.get());
+            }
+        }
+        return maximum.get();
+    }
+
+    /**
+     * Retourne le nombre de valeurs enregistrées
+     */
+    public long getNombre() {
+        return nombre.get();
+    }
+
+    /**
+     * Retourne la plus grande valeur enregistrée
+     */
+    public long getMaximum() {
+        return maximum.get();
+    }
+
+    /**
+     * Retourne la moyenne des valeurs enregistrées
+     */
+    public double getMoyenne() {
+        long total = nombre.get();
+        return total == 0 ? 0 : (double) somme.get() / total;
+    }
+
+    /**
+     * Remet l'histogramme à zéro. Les enregistrements concurrents
+     * peuvent être partiellement perdus.
+     */
+    public void reinitialiser() {
+        for (int i = 0; i < NOMBRE_SEAUX; i++) {
+            comptes.set(i, 0);
+        }
+        nombre.set(0);
+        somme.set(0);
+        maximum.set(0);
+    }
+}
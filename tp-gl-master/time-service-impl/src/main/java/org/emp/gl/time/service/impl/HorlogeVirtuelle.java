@@ -0,0 +1,221 @@
+/*
+ * Horloge virtuelle pour les simulations
+ */
+package org.emp.gl.time.service.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Source de temps virtuelle, déterministe.
+ * <p>
+ * Le temps virtuel n'avance que d'échéance en échéance du moteur : chaque
+ * tick est traité exactement comme en temps réel, et les écouteurs
+ * reçoivent la même suite d'événements. Trois façons de le faire avancer :
+ * <ul>
+ * <li>manuelle : {@link #avancer(long, TimeUnit)} fait défiler les ticks un
+ * par un et rend la main lorsque le moteur les a tous traités ;</li>
+ * <li>accélérée : le temps virtuel suit le temps réel multiplié par un
+ * facteur, par exemple 1000 ;</li>
+ * <li>maximale (facteur infini) : les échéances s'enchaînent aussi vite que
+ * le processeur le permet.</li>
+ * </ul>
+ * Pendant que le moteur est suspendu, le temps d'une horloge manuelle
+ * avance sans tick et celui d'une horloge accélérée s'arrête.
+ * Une horloge virtuelle ne pilote qu'un seul service.
+ */
+public class HorlogeVirtuelle implements SourceTemps {
+
+    private static final long NANOS_PAR_MILLI = 1000000L;
+
+    private final Object verrou = new Object();
+    private final boolean manuelle;
+    private final double facteur;
+
+    private volatile long nanos;
+    private volatile long origineMurMillis;
+
+    // Protégés par le verrou ; sans thread du moteur, aucune échéance n'est attendue
+    private long echeanceAttendue = Long.MAX_VALUE;
+    private volatile boolean liberee;
+    private volatile boolean reveil;
+
+    // Cadence du mode accéléré
+    private long debutReelNanos = -1;
+    private long debutVirtuelNanos;
+
+    /**
+     * Crée une horloge virtuelle avancée manuellement
+     *
+     * @param murInitialMillis Heure murale de départ, en millisecondes depuis l'époque Unix
+     */
+    public HorlogeVirtuelle(long murInitialMillis) {
+        this(murInitialMillis, 0, true);
+    }
+
+    /**
+     * Crée une horloge virtuelle accélérée
+     *
+     * @param murInitialMillis Heure murale de départ
+     * @param facteur Vitesse par rapport au temps réel,
+     *                {@link Double#POSITIVE_INFINITY} pour aller au plus vite
+     */
+    public HorlogeVirtuelle(long murInitialMillis, double facteur) {
+        this(murInitialMillis, facteur, false);
+        if (!(facteur > 0)) {
+            throw new IllegalArgumentException("Le facteur doit être strictement positif");
+        }
+    }
+
+    private HorlogeVirtuelle(long murInitialMillis, double facteur, boolean manuelle) {
+        this.origineMurMillis = murInitialMillis;
+        this.facteur = facteur;
+        this.manuelle = manuelle;
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanos;
+    }
+
+    @Override
+    public long tempsMurMillis() {
+        return origineMurMillis + Math.floorDiv(nanos, NANOS_PAR_MILLI);
+    }
+
+    @Override
+    public void attendre(long echeanceNanos) {
+        if (manuelle) {
+            attendreAvancee(echeanceNanos);
+        } else {
+            long atteint = cadencer(echeanceNanos);
+            synchronized (verrou) {
+                if (nanos < atteint) {
+                    nanos = atteint;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void relacher() {
+        synchronized (verrou) {
+            // Une horloge manuelle peut avancer librement
+            echeanceAttendue = Long.MAX_VALUE;
+            verrou.notifyAll();
+        }
+        // La cadence accélérée repartira de l'instant de la reprise
+        debutReelNanos = -1;
+    }
+
+    @Override
+    public void reveiller() {
+        synchronized (verrou) {
+            reveil = true;
+            if (echeanceAttendue == Long.MAX_VALUE) {
+                // Le moteur redémarre : l'avance attend sa première échéance
+                echeanceAttendue = -1;
+            }
+            verrou.notifyAll();
+        }
+    }
+
+    /**
+     * Attend qu'un appel à {@link #avancer(long, TimeUnit)} atteigne l'échéance
+     */
+    private void attendreAvancee(long echeanceNanos) {
+        synchronized (verrou) {
+            echeanceAttendue = echeanceNanos;
+            verrou.notifyAll();
+            while (nanos < echeanceNanos && !liberee && !reveil) {
+                try {
+                    verrou.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            reveil = false;
+            echeanceAttendue = -1;
+        }
+    }
+
+    /**
+     * Attend en temps réel la durée correspondant à l'échéance virtuelle
+     *
+     * @return Le temps virtuel atteint, avant l'échéance en cas de réveil
+     */
+    private long cadencer(long echeanceNanos) {
+        if (Double.isInfinite(facteur)) {
+            return echeanceNanos;
+        }
+        if (debutReelNanos < 0) {
+            debutReelNanos = System.nanoTime();
+            debutVirtuelNanos = nanos;
+        }
+        long cibleReelle = debutReelNanos + (long) ((echeanceNanos - debutVirtuelNanos) / facteur);
+        long reste;
+        while (!liberee && !reveil && (reste = cibleReelle - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, reste);
+        }
+        if (!reveil) {
+            return echeanceNanos;
+        }
+        reveil = false;
+        long ecoule = (long) ((System.nanoTime() - debutReelNanos) * facteur);
+        return Math.min(echeanceNanos, debutVirtuelNanos + ecoule);
+    }
+
+    @Override
+    public void liberer() {
+        synchronized (verrou) {
+            liberee = true;
+            verrou.notifyAll();
+        }
+    }
+
+    /**
+     * Fait avancer le temps virtuel d'une horloge manuelle.
+     * Chaque échéance franchie est traitée par le moteur avant que la
+     * méthode ne rende la main. Ne doit pas être appelée depuis un écouteur.
+     */
+    public void avancer(long duree, TimeUnit unite) {
+        if (!manuelle) {
+            throw new IllegalStateException("Horloge virtuelle non manuelle");
+        }
+        synchronized (verrou) {
+            long cible = nanos + unite.toNanos(duree);
+            while (nanos < cible) {
+                while (!liberee && echeanceAttendue <= nanos) {
+                    try {
+                        verrou.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                nanos = liberee ? cible : Math.min(cible, echeanceAttendue);
+                verrou.notifyAll();
+            }
+            // Laisse le moteur traiter la dernière échéance atteinte
+            while (!liberee && echeanceAttendue <= nanos) {
+                try {
+                    verrou.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Décale l'heure murale sans faire avancer le temps monotone,
+     * pour simuler un pas NTP ou un réglage manuel de l'horloge
+     */
+    public void decalerHeureMurale(long ecartMillis) {
+        synchronized (verrou) {
+            origineMurMillis += ecartMillis;
+        }
+    }
+}
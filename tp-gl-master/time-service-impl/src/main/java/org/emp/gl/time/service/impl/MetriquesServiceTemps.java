@@ -0,0 +1,242 @@
+/*
+ * Métriques du service de temps
+ */
+package org.emp.gl.time.service.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Métriques d'un {@link DummyTimeServiceImpl}, lisibles directement ou,
+ * une fois le service exposé par {@link DummyTimeServiceImpl#exposerJmx()},
+ * par JMX sous le domaine {@code org.emp.gl.time}. Le serveur MBean
+ * retenant les métriques et leur service, seul un service exposé puis
+ * arrêté est libéré.
+ * <p>
+ * L'enregistrement se fait sans verrou ni allocation sur le thread du
+ * service. La mesure par écouteur coûte deux lectures d'horloge par
+ * notification : elle est désactivée par défaut.
+ */
+public class MetriquesServiceTemps implements MetriquesServiceTempsMXBean {
+
+    private static final AtomicInteger NUMERO = new AtomicInteger();
+
+    private final DummyTimeServiceImpl service;
+    private final HistogrammeLatences gigueTick;
+    private final HistogrammeLatences dureeDiffusion;
+    private final Map<Class<?>, HistogrammeLatences> latencesParClasse;
+    private final AtomicLong nombreTicks;
+    private volatile boolean mesureParEcouteur;
+    private volatile ObjectName nom;
+
+    MetriquesServiceTemps(DummyTimeServiceImpl service) {
+        this.service = service;
+        this.gigueTick = new HistogrammeLatences();
+        this.dureeDiffusion = new HistogrammeLatences();
+        this.latencesParClasse = new ConcurrentHashMap<>();
+        this.nombreTicks = new AtomicLong();
+    }
+
+    /**
+     * Enregistre les métriques auprès du serveur MBean de la plateforme,
+     * une seule fois
+     */
+    synchronized void enregistrerMBean() {
+        if (nom != null) {
+            return;
+        }
+        try {
+            MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+            nom = new ObjectName("org.emp.gl.time:type=ServiceTemps,id=" + NUMERO.incrementAndGet());
+            serveur.registerMBean(this, nom);
+        } catch (JMException e) {
+            System.err.println("Métriques non publiées par JMX : " + e);
+            nom = null;
+        }
+    }
+
+    /**
+     * Retire les métriques du serveur MBean
+     */
+    synchronized void desenregistrerMBean() {
+        if (nom == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(nom);
+        } catch (JMException e) {
+            System.err.println("Métriques JMX non retirées : " + e);
+        }
+        nom = null;
+    }
+
+    /**
+     * Histogramme du retard de chaque tick sur son échéance
+     */
+    HistogrammeLatences getGigueTick() {
+        return gigueTick;
+    }
+
+    /**
+     * Enregistre la durée de traitement d'un tick
+     */
+    void enregistrerTick(long dureeNanos) {
+        nombreTicks.incrementAndGet();
+        dureeDiffusion.enregistrer(dureeNanos);
+    }
+
+    /**
+     * Histogramme partagé par les écouteurs d'une même classe
+     */
+    HistogrammeLatences latencesPour(Class<?> classe) {
+        return latencesParClasse.computeIfAbsent(classe, c -> new HistogrammeLatences());
+    }
+
+    /**
+     * Retourne le nom JMX des métriques, null si elles ne sont pas publiées
+     */
+    public ObjectName getNomMBean() {
+        return nom;
+    }
+
+    @Override
+    public int getNombreEcouteurs() {
+        return service.getNombreEcouteurs();
+    }
+
+    @Override
+    public long getNombreTachesProgrammees() {
+        return service.getNombreTachesProgrammees();
+    }
+
+    @Override
+    public long getNombreTicks() {
+        return nombreTicks.get();
+    }
+
+    @Override
+    public long getGigueTickMoyenneNanos() {
+        return (long) gigueTick.getMoyenne();
+    }
+
+    @Override
+    public long getGigueTickP50Nanos() {
+        return gigueTick.getCentile(50);
+    }
+
+    @Override
+    public long getGigueTickP99Nanos() {
+        return gigueTick.getCentile(99);
+    }
+
+    @Override
+    public long getGigueTickMaxNanos() {
+        return gigueTick.getMaximum();
+    }
+
+    @Override
+    public long getDureeDiffusionP50Nanos() {
+        return dureeDiffusion.getCentile(50);
+    }
+
+    @Override
+    public long getDureeDiffusionP99Nanos() {
+        return dureeDiffusion.getCentile(99);
+    }
+
+    @Override
+    public long getDureeDiffusionMaxNanos() {
+        return dureeDiffusion.getMaximum();
+    }
+
+    @Override
+    public long getTicksManques() {
+        return service.getTicksManques();
+    }
+
+    @Override
+    public long getTicksRattrapes() {
+        return service.getTicksRattrapes();
+    }
+
+    @Override
+    public long getEvenementsFusionnes() {
+        return service.getEvenementsFusionnes();
+    }
+
+    @Override
+    public long getEvenementsSupprimes() {
+        return service.getEvenementsSupprimes();
+    }
+
+    @Override
+    public String getEtatThreadService() {
+        return service.getEtatThread().name();
+    }
+
+    @Override
+    public long getPasTickMillis() {
+        return service.getPasTickMillis();
+    }
+
+    @Override
+    public int getResolutionMillis() {
+        return service.getResolutionMillis();
+    }
+
+    @Override
+    public void setResolutionMillis(int resolution) {
+        service.setResolutionMillis(resolution);
+    }
+
+    @Override
+    public boolean isMesureParEcouteur() {
+        return mesureParEcouteur;
+    }
+
+    @Override
+    public void setMesureParEcouteur(boolean active) {
+        this.mesureParEcouteur = active;
+    }
+
+    @Override
+    public Map<String, Long> getLatenceEcouteursP50Nanos() {
+        return latencesParClasse(50);
+    }
+
+    @Override
+    public Map<String, Long> getLatenceEcouteursP99Nanos() {
+        return latencesParClasse(99);
+    }
+
+    /**
+     * Centile des latences de chaque classe d'écouteur
+     */
+    private Map<String, Long> latencesParClasse(double centile) {
+        Map<String, Long> resultat = new TreeMap<>();
+        for (Map.Entry<Class<?>, HistogrammeLatences> entree : latencesParClasse.entrySet()) {
+            if (entree.getValue().getNombre() > 0) {
+                resultat.put(entree.getKey().getName(), entree.getValue().getCentile(centile));
+            }
+        }
+        return resultat;
+    }
+
+    @Override
+    public void reinitialiser() {
+        gigueTick.reinitialiser();
+        dureeDiffusion.reinitialiser();
+        for (HistogrammeLatences latences : latencesParClasse.values()) {
+            latences.reinitialiser();
+        }
+        nombreTicks.set(0);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Interface JMX des métriques du service de temps
+ */
+package org.emp.gl.time.service.impl;
+
+import java.util.Map;
+
+/**
+ * Métriques du service de temps exposées par JMX.
+ * Les durées sont exprimées en nanosecondes.
+ */
+public interface MetriquesServiceTempsMXBean {
+
+    int getNombreEcouteurs();
+
+    long getNombreTachesProgrammees();
+
+    long getNombreTicks();
+
+    long getGigueTickMoyenneNanos();
+
+    long getGigueTickP50Nanos();
+
+    long getGigueTickP99Nanos();
+
+    long getGigueTickMaxNanos();
+
+    long getDureeDiffusionP50Nanos();
+
+    long getDureeDiffusionP99Nanos();
+
+    long getDureeDiffusionMaxNanos();
+
+    long getTicksManques();
+
+    long getTicksRattrapes();
+
+    long getEvenementsFusionnes();
+
+    long getEvenementsSupprimes();
+
+    String getEtatThreadService();
+
+    /**
+     * Pas courant des ticks en millisecondes, 0 si le moteur est suspendu
+     */
+    long getPasTickMillis();
+
+    /**
+     * Résolution des millisecondes, appliquée aux abonnés de cette unité
+     */
+    int getResolutionMillis();
+
+    void setResolutionMillis(int resolution);
+
+    boolean isMesureParEcouteur();
+
+    void setMesureParEcouteur(boolean active);
+
+    /**
+     * Latence au 50e centile par classe d'écouteur
+     */
+    Map<String, Long> getLatenceEcouteursP50Nanos();
+
+    /**
+     * Latence au 99e centile par classe d'écouteur
+     */
+    Map<String, Long> getLatenceEcouteursP99Nanos();
+
+    void reinitialiser();
+}
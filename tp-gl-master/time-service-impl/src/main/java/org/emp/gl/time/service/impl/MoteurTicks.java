@@ -0,0 +1,326 @@
+/*
+ * Moteur de ticks monotone du service de temps
+ */
+package org.emp.gl.time.service.impl;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Produit un tick à chaque pas de l'heure murale : la résolution des
+ * millisecondes, le dixième de seconde, la seconde ou la minute selon la
+ * finesse que demandent les abonnés.
+ * Sans pas, le moteur est suspendu : son thread s'arrête, et n'est recréé
+ * qu'au prochain réglage d'un pas. Un service sans abonné n'a ainsi aucun
+ * thread.
+ * <p>
+ * Les échéances sont calculées à partir du temps monotone de la
+ * {@link SourceTemps} et d'un ancrage sur l'heure murale : elles restent alignées sur les
+ * frontières réelles de chaque pas et ne dérivent pas, quel que soit le
+ * retard d'un réveil. Un tick manqué est rattrapé au réveil suivant.
+ * <p>
+ * La dérive lente de l'horloge murale (ajustement progressif NTP) est
+ * absorbée sans bruit. Un saut franc (pas NTP, changement manuel) provoque
+ * un nouvel ancrage, signalé au récepteur par l'écart mesuré.
+ */
+final class MoteurTicks implements Runnable {
+
+    /**
+     * Reçoit les ticks du moteur, sur le thread du moteur
+     */
+    interface Recepteur {
+
+        /**
+         * @param tempsMurMillis Heure murale du tick, multiple du pas
+         * @param ecartMillis Saut de l'horloge murale détecté avant ce tick, 0 sinon
+         * @param maintenantNanos Instant monotone du traitement
+         */
+        void tick(long tempsMurMillis, long ecartMillis, long maintenantNanos);
+    }
+
+    static final long PERIODE_MILLIS = 100;
+    static final long PAS_SECONDE_MILLIS = 1000;
+    static final long PAS_MINUTE_MILLIS = 60000;
+    static final long SUSPENDU = 0;
+
+    private static final long NANOS_PAR_MILLI = 1000000L;
+    private static final long SEUIL_DISCONTINUITE_MILLIS = 250;
+    private static final long TOLERANCE_DERIVE_MILLIS = 2;
+    private static final long RATTRAPAGE_MAX_TICKS = 600;
+    private static final long ATTENTE_RECALAGE_NANOS = 100000;
+
+    private final Recepteur recepteur;
+    private final SourceTemps source;
+    private final HistogrammeLatences gigue;
+    private final String nom;
+    private volatile Thread thread; // Écrit sous le verrou du moteur
+    private volatile boolean enMarche;
+    private volatile long ticksManques;
+    private volatile long ticksRattrapes;
+
+    // Réglage de la cadence, écrit sous le verrou du moteur
+    private volatile long pasDemande = SUSPENDU;
+    private volatile int version;
+    private volatile int versionAppliquee = -1;
+    private volatile boolean enAttente;
+
+    // Propres au thread du moteur
+    private long origineNanos;
+    private long origineMurMillis;
+    private long prochainTick;
+    private long pas = SUSPENDU;
+
+    /**
+     * @param gigue Histogramme recevant le retard de chaque tick sur son échéance
+     */
+    MoteurTicks(Recepteur recepteur, SourceTemps source, HistogrammeLatences gigue, String nom) {
+        this.recepteur = recepteur;
+        this.source = source;
+        this.gigue = gigue;
+        this.nom = nom;
+    }
+
+    /**
+     * Met le moteur en marche. Son thread ne démarre qu'au premier pas réglé.
+     */
+    void demarrer() {
+        enMarche = true;
+    }
+
+    /**
+     * Règle le pas des ticks. Si le moteur attend, il est réveillé et la
+     * méthode rend la main une fois qu'il a quitté son attente : avec une
+     * horloge virtuelle manuelle, l'avance suivante respecte le nouveau pas.
+     *
+     * @param pasMillis Un diviseur de {@link #PERIODE_MILLIS},
+     *                  {@link #PAS_SECONDE_MILLIS}, {@link #PAS_MINUTE_MILLIS}
+     *                  ou {@link #SUSPENDU}
+     */
+    void regler(long pasMillis) {
+        int demandee;
+        Thread t;
+        synchronized (this) {
+            if (pasMillis == pasDemande) {
+                return;
+            }
+            pasDemande = pasMillis;
+            demandee = ++version;
+            t = thread;
+            if (t == null) {
+                if (pasMillis != SUSPENDU && enMarche) {
+                    lancerThread();
+                }
+                return;
+            }
+        }
+        // Un changement demandé par le moteur lui-même est lu au tour suivant
+        if (Thread.currentThread() == t || !enAttente) {
+            return;
+        }
+        source.reveiller();
+        LockSupport.unpark(t);
+        // Sorti de son attente, le moteur applique le pas avant la suivante
+        while (enMarche && enAttente && versionAppliquee - demandee < 0) {
+            LockSupport.parkNanos(this, ATTENTE_RECALAGE_NANOS);
+        }
+    }
+
+    /**
+     * Crée et démarre le thread du moteur, sous le verrou du moteur.
+     * Une horloge virtuelle manuelle attend alors sa première échéance.
+     */
+    private void lancerThread() {
+        source.reveiller();
+        thread = new Thread(this, nom);
+        thread.start();
+    }
+
+    /**
+     * Retourne le pas demandé, en millisecondes, 0 si le moteur est suspendu
+     */
+    long getPasMillis() {
+        return pasDemande;
+    }
+
+    /**
+     * Arrête le moteur après le tick en cours
+     */
+    void arreter() {
+        Thread t;
+        synchronized (this) {
+            enMarche = false;
+            t = thread;
+        }
+        source.liberer();
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (enMarche) {
+            if (versionAppliquee != version) {
+                appliquerPas();
+            }
+            if (pas == SUSPENDU) {
+                if (quitter()) {
+                    return;
+                }
+                continue;
+            }
+            attendre(nanosPour(prochainTick));
+            if (!enMarche) {
+                return;
+            }
+            long maintenant = source.nanoTime();
+            long ecart = recaler(maintenant);
+            emettreTicksEchus(maintenant, ecart);
+        }
+    }
+
+    /**
+     * Adopte le dernier pas demandé. Le prochain tick est la prochaine
+     * frontière de ce pas ; au sortir d'une suspension, le moteur se
+     * réancre sur l'heure murale sans rattraper les ticks du sommeil.
+     */
+    private void appliquerPas() {
+        int demandee = version;
+        long nouveauPas = pasDemande;
+        if (pas == SUSPENDU && nouveauPas != SUSPENDU) {
+            ancrer(source.tempsMurMillis(), source.nanoTime());
+        }
+        pas = nouveauPas;
+        if (pas != SUSPENDU) {
+            long murale = origineMurMillis + (source.nanoTime() - origineNanos) / NANOS_PAR_MILLI;
+            prochainTick = Math.floorDiv(murale, pas) * pas + pas;
+        }
+        versionAppliquee = demandee;
+    }
+
+    /**
+     * Arrête le thread suspendu, sauf si un nouveau pas vient d'être
+     * demandé : le prochain réglage en démarrera un autre
+     *
+     * @return {@code true} si le thread doit se terminer
+     */
+    private boolean quitter() {
+        synchronized (this) {
+            if (enMarche && versionAppliquee != version) {
+                return false;
+            }
+            thread = null;
+            // Sous le verrou : un thread lancé ensuite trouve l'horloge réveillée
+            source.relacher();
+        }
+        return true;
+    }
+
+    /**
+     * Fixe la correspondance entre temps monotone et heure murale
+     */
+    private void ancrer(long murMillis, long nanos) {
+        this.origineMurMillis = murMillis;
+        this.origineNanos = nanos;
+    }
+
+    /**
+     * Attend l'échéance monotone donnée, ou un nouveau réglage du pas
+     */
+    private void attendre(long echeanceNanos) {
+        while (enMarche && versionAppliquee == version
+               && source.nanoTime() - echeanceNanos < 0) {
+            enAttente = true;
+            // Relu après enAttente : regler() voit l'un ou l'autre
+            if (versionAppliquee == version) {
+                source.attendre(echeanceNanos);
+            }
+            enAttente = false;
+        }
+    }
+
+    /**
+     * Convertit une heure murale en échéance monotone
+     */
+    private long nanosPour(long tempsMurMillis) {
+        return origineNanos + (tempsMurMillis - origineMurMillis) * NANOS_PAR_MILLI;
+    }
+
+    /**
+     * Compare l'heure murale à celle déduite du temps monotone
+     *
+     * @return l'écart si l'horloge murale a sauté, 0 sinon
+     */
+    private long recaler(long maintenantNanos) {
+        long murale = source.tempsMurMillis();
+        long attendue = origineMurMillis + (maintenantNanos - origineNanos) / NANOS_PAR_MILLI;
+        long ecart = murale - attendue;
+
+        if (Math.abs(ecart) >= SEUIL_DISCONTINUITE_MILLIS) {
+            ancrer(murale, maintenantNanos);
+            prochainTick = Math.floorDiv(murale, pas) * pas;
+            return ecart;
+        }
+        if (Math.abs(ecart) > TOLERANCE_DERIVE_MILLIS) {
+            origineMurMillis += ecart;
+        }
+        return 0;
+    }
+
+    /**
+     * Émet tous les ticks dont l'échéance est passée. Le rattrapage est
+     * borné à la même durée quel que soit le pas.
+     */
+    private void emettreTicksEchus(long maintenantNanos, long ecart) {
+        long periodeNanos = pas * NANOS_PAR_MILLI;
+        long retard = (maintenantNanos - nanosPour(prochainTick)) / periodeNanos;
+        if (retard > RATTRAPAGE_MAX_TICKS * PERIODE_MILLIS / pas) {
+            ticksManques += retard;
+            prochainTick += retard * pas;
+        }
+        long echeance;
+        while (enMarche && (echeance = nanosPour(prochainTick)) <= maintenantNanos) {
+            long retardTick = maintenantNanos - echeance;
+            gigue.enregistrer(retardTick);
+            if (retardTick >= periodeNanos) {
+                ticksRattrapes++;
+            }
+            emettre(prochainTick, ecart, maintenantNanos);
+            ecart = 0;
+            prochainTick += pas;
+        }
+    }
+
+    /**
+     * Transmet un tick au récepteur sans laisser une erreur arrêter le moteur
+     */
+    private void emettre(long tempsMurMillis, long ecart, long maintenantNanos) {
+        try {
+            recepteur.tick(tempsMurMillis, ecart, maintenantNanos);
+        } catch (RuntimeException e) {
+            System.err.println("Tick en échec : " + e);
+        }
+    }
+
+    /**
+     * Retourne le nombre de ticks abandonnés après un trop long retard
+     */
+    long getTicksManques() {
+        return ticksManques;
+    }
+
+    /**
+     * Retourne le nombre de ticks émis avec plus d'un pas de retard
+     */
+    long getTicksRattrapes() {
+        return ticksRattrapes;
+    }
+
+    /**
+     * Retourne l'état du thread du moteur, {@link Thread.State#TERMINATED}
+     * s'il est arrêté ou n'a pas encore démarré
+     */
+    Thread.State getEtatThread() {
+        Thread t = thread;
+        return t == null ? Thread.State.TERMINATED : t.getState();
+    }
+}
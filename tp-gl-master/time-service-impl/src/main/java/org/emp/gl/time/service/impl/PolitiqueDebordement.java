@@ -0,0 +1,28 @@
+/*
+ * Comportement d'une boîte aux lettres pleine
+ */
+package org.emp.gl.time.service.impl;
+
+/**
+ * Politique appliquée lorsqu'un écouteur asynchrone ne consomme pas
+ * ses événements assez vite et que sa boîte aux lettres est pleine.
+ */
+public enum PolitiqueDebordement {
+
+    /**
+     * L'événement le plus ancien est supprimé pour faire de la place
+     */
+    SUPPRIMER_ANCIEN,
+
+    /**
+     * Le nouvel événement est fusionné avec le dernier événement en attente
+     * de la même unité : l'écouteur reçoit directement la valeur la plus récente
+     */
+    FUSIONNER,
+
+    /**
+     * Le thread du service attend que l'écouteur libère de la place ; si
+     * l'exécuteur refuse la livraison, l'événement le plus ancien est supprimé
+     */
+    BLOQUER
+}
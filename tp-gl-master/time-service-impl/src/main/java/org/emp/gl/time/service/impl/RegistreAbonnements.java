@@ -0,0 +1,224 @@
+/*
+ * Abonnements regroupés par unité de temps
+ */
+package org.emp.gl.time.service.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.UniteTemps;
+
+/**
+ * Range chaque abonnement dans le registre de chacune des unités qu'il
+ * demande : la diffusion d'une unité ne parcourt que ses abonnés.
+ * <p>
+ * Les abonnements peuvent être répartis en partitions, chaque écouteur
+ * restant dans la même partition tant que leur nombre ne change pas.
+ */
+final class RegistreAbonnements {
+
+    private volatile RegistreEcouteurs<Abonnement>[][] partitions;
+    private final Map<Object, Abonnement> abonnements;
+    private final int[] abonnesParUnite;
+    private volatile int masqueUnites;
+
+    RegistreAbonnements() {
+        this.partitions = creerPartitions(1);
+        this.abonnements = new HashMap<>();
+        this.abonnesParUnite = new int[UniteTemps.NOMBRE_UNITES];
+    }
+
+    /**
+     * Crée des registres vides, indexés par partition puis par unité
+     */
+    @SuppressWarnings("unchecked")
+    private static RegistreEcouteurs<Abonnement>[][] creerPartitions(int nombre) {
+        RegistreEcouteurs<Abonnement>[][] table = new RegistreEcouteurs[nombre][];
+        for (int partition = 0; partition < nombre; partition++) {
+            table[partition] = new RegistreEcouteurs[UniteTemps.NOMBRE_UNITES];
+            for (int unite = 0; unite < UniteTemps.NOMBRE_UNITES; unite++) {
+                table[partition][unite] = new RegistreEcouteurs<>();
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Retourne les registres d'unités de la partition d'un écouteur
+     */
+    private static RegistreEcouteurs<Abonnement>[] partitionDe(
+            RegistreEcouteurs<Abonnement>[][] table, Object cle) {
+        return table[(System.identityHashCode(cle) & Integer.MAX_VALUE) % table.length];
+    }
+
+    /**
+     * Répartit les abonnements existants et futurs en un nouveau nombre
+     * de partitions. Une diffusion en cours termine sur l'ancienne répartition.
+     */
+    synchronized void repartir(int nombre) {
+        if (nombre < 1) {
+            throw new IllegalArgumentException("Il faut au moins une partition");
+        }
+        RegistreEcouteurs<Abonnement>[][] table = creerPartitions(nombre);
+        for (Abonnement abonnement : abonnements.values()) {
+            ranger(partitionDe(table, abonnement.cle), abonnement);
+        }
+        partitions = table;
+    }
+
+    /**
+     * Ajoute un abonnement aux registres des unités qu'il demande
+     */
+    private static void ranger(RegistreEcouteurs<Abonnement>[] parUnite, Abonnement abonnement) {
+        for (int unite = 0; unite < parUnite.length; unite++) {
+            if (UniteTemps.contient(abonnement.masque, unite)) {
+                parUnite[unite].ajouter(abonnement);
+            }
+        }
+    }
+
+    /**
+     * Abonne un écouteur, en remplaçant son abonnement précédent
+     *
+     * @param cle L'objet enregistré par le client
+     * @param cible L'écouteur à notifier pour le compte de ce client
+     * @param latences Histogramme des durées de notification
+     */
+    synchronized void abonner(Object cle, TickListener cible, int masque, int frequence,
+                              HistogrammeLatences latences) {
+        desabonner(cle);
+        Abonnement abonnement = new Abonnement(cle, cible, masque, frequence, latences);
+        abonnements.put(cle, abonnement);
+        ranger(partitionDe(partitions, cle), abonnement);
+        compter(masque, 1);
+    }
+
+    /**
+     * Retire l'abonnement d'un écouteur
+     */
+    synchronized boolean desabonner(Object cle) {
+        Abonnement abonnement = abonnements.remove(cle);
+        if (abonnement == null) {
+            return false;
+        }
+        RegistreEcouteurs<Abonnement>[] parUnite = partitionDe(partitions, cle);
+        for (int unite = 0; unite < parUnite.length; unite++) {
+            if (UniteTemps.contient(abonnement.masque, unite)) {
+                parUnite[unite].retirer(abonnement);
+            }
+        }
+        compter(abonnement.masque, -1);
+        return true;
+    }
+
+    /**
+     * Tient à jour le nombre d'abonnés de chaque unité et leur union
+     */
+    private void compter(int masque, int delta) {
+        int union = 0;
+        for (int unite = 0; unite < abonnesParUnite.length; unite++) {
+            if (UniteTemps.contient(masque, unite)) {
+                abonnesParUnite[unite] += delta;
+            }
+            if (abonnesParUnite[unite] > 0) {
+                union |= UniteTemps.masque(unite);
+            }
+        }
+        masqueUnites = union;
+    }
+
+    /**
+     * Retourne le masque des unités demandées par au moins un abonné, sans verrou
+     */
+    int getMasqueUnites() {
+        return masqueUnites;
+    }
+
+    /**
+     * Retourne les registres de chaque partition, indexés par unité.
+     * Un même tableau doit servir à toute une diffusion.
+     */
+    RegistreEcouteurs<Abonnement>[][] getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Notifie les abonnés d'une unité, dans toutes les partitions
+     *
+     * @param dernier Dixième, ou milliseconde pour l'unité des millisecondes
+     * @param origine Complète le message d'un écouteur en échec, ou null
+     */
+    void diffuser(int unite, int ancienneValeur, int heures, int minutes, int secondes,
+                  int dernier, Object origine) {
+        for (RegistreEcouteurs<Abonnement>[] parUnite : partitions) {
+            diffuser(parUnite[unite], unite, ancienneValeur, heures, minutes, secondes,
+                     dernier, false, origine);
+        }
+    }
+
+    /**
+     * Notifie les abonnés d'une unité dans une partition. Le registre est
+     * parcouru sans verrou, sans copie et sans allocation. Une exception
+     * levée par un écouteur est signalée sans interrompre les autres.
+     *
+     * @param mesurer Enregistre la durée de chaque notification dans les
+     *                latences de l'abonnement
+     */
+    static void diffuser(RegistreEcouteurs<Abonnement> abonnes, int unite, int ancienneValeur,
+                         int heures, int minutes, int secondes, int dernier,
+                         boolean mesurer, Object origine) {
+        int limite = abonnes.getLimite();
+        AtomicReferenceArray<Abonnement> emplacements = abonnes.getEmplacements();
+        for (int i = 0; i < limite; i++) {
+            Abonnement abonnement = emplacements.get(i);
+            if (abonnement == null || !abonnement.compter(unite)) {
+                continue;
+            }
+            long debut = mesurer ? System.nanoTime() : 0;
+            try {
+                abonnement.cible.onTick(unite, ancienneValeur, heures, minutes, secondes, dernier);
+            } catch (RuntimeException e) {
+                System.err.println("Écouteur en échec (" + abonnement.cle
+                                   + (origine == null ? "" : ", " + origine) + ") : " + e);
+            }
+            if (mesurer) {
+                abonnement.latences.enregistrer(System.nanoTime() - debut);
+            }
+        }
+    }
+
+    /**
+     * Somme des événements fusionnés par les boîtes aux lettres
+     */
+    synchronized long compterFusionnes() {
+        long total = 0;
+        for (Abonnement abonnement : abonnements.values()) {
+            if (abonnement.cible instanceof BoiteAuxLettres) {
+                total += ((BoiteAuxLettres) abonnement.cible).getNombreFusionnes();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Somme des événements supprimés par les boîtes aux lettres
+     */
+    synchronized long compterSupprimes() {
+        long total = 0;
+        for (Abonnement abonnement : abonnements.values()) {
+            if (abonnement.cible instanceof BoiteAuxLettres) {
+                total += ((BoiteAuxLettres) abonnement.cible).getNombreSupprimes();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Retourne le nombre d'écouteurs abonnés
+     */
+    synchronized int taille() {
+        return abonnements.size();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Registre d'écouteurs à lecture sans verrou
+ */
+package org.emp.gl.time.service.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Registre d'écouteurs optimisé pour la diffusion des ticks.
+ * <p>
+ * Les écouteurs occupent des emplacements fixes d'un tableau : la lecture
+ * ne prend aucun verrou et ne copie rien, il suffit de parcourir les
+ * emplacements jusqu'à {@link #getLimite()}. Les écritures sont sérialisées
+ * et coûtent O(1) amorti : un retrait libère son emplacement, qui sera
+ * réutilisé par un ajout ultérieur. Le tableau n'est recopié que lorsqu'il
+ * double de taille. Les emplacements libres en fin de tableau sont rendus
+ * en abaissant la limite : après un pic d'abonnements, la diffusion ne
+ * parcourt plus que les emplacements encore utiles.
+ * <p>
+ * Un écouteur ajouté ou retiré pendant une diffusion peut être vu ou non
+ * par celle-ci, comme avec une copie sur écriture.
+ */
+final class RegistreEcouteurs<T> {
+
+    private static final int CAPACITE_INITIALE = 16;
+
+    private volatile AtomicReferenceArray<T> emplacements;
+    private volatile int limite;
+
+    // Protégés par le verrou du registre
+    private final Map<T, Integer> positions;
+    private int[] libres;      // Pile des emplacements libres sous la limite
+    private int[] rangsLibres; // Rang de chaque emplacement libre dans la pile
+    private int nombreLibres;
+
+    RegistreEcouteurs() {
+        this.emplacements = new AtomicReferenceArray<>(CAPACITE_INITIALE);
+        this.positions = new HashMap<>();
+        this.libres = new int[CAPACITE_INITIALE];
+        this.rangsLibres = new int[CAPACITE_INITIALE];
+    }
+
+    /**
+     * Ajoute un écouteur s'il n'est pas déjà présent
+     */
+    synchronized boolean ajouter(T ecouteur) {
+        if (positions.containsKey(ecouteur)) {
+            return false;
+        }
+        int position = nombreLibres > 0 ? libres[--nombreLibres] : nouvelEmplacement();
+        emplacements.set(position, ecouteur);
+        positions.put(ecouteur, position);
+        return true;
+    }
+
+    /**
+     * Réserve un emplacement à la suite des emplacements utilisés
+     */
+    private int nouvelEmplacement() {
+        int position = limite;
+        AtomicReferenceArray<T> actuels = emplacements;
+        if (position == actuels.length()) {
+            AtomicReferenceArray<T> agrandis = new AtomicReferenceArray<>(position * 2);
+            for (int i = 0; i < position; i++) {
+                agrandis.lazySet(i, actuels.get(i));
+            }
+            emplacements = agrandis;
+            libres = Arrays.copyOf(libres, position * 2);
+            rangsLibres = Arrays.copyOf(rangsLibres, position * 2);
+        }
+        limite = position + 1;
+        return position;
+    }
+
+    /**
+     * Retire un écouteur et libère son emplacement
+     */
+    synchronized boolean retirer(T ecouteur) {
+        Integer position = positions.remove(ecouteur);
+        if (position == null) {
+            return false;
+        }
+        AtomicReferenceArray<T> actuels = emplacements;
+        actuels.set(position, null);
+        if (position < limite - 1) {
+            rangsLibres[position] = nombreLibres;
+            libres[nombreLibres++] = position;
+            return true;
+        }
+        // Dernier emplacement : la limite redescend sous les libres de la fin
+        int nouvelleLimite = position;
+        while (nouvelleLimite > 0 && actuels.get(nouvelleLimite - 1) == null) {
+            nouvelleLimite--;
+            retirerDesLibres(nouvelleLimite);
+        }
+        limite = nouvelleLimite;
+        return true;
+    }
+
+    /**
+     * Retire un emplacement de la pile des libres, en O(1)
+     */
+    private void retirerDesLibres(int position) {
+        int rang = rangsLibres[position];
+        int dernier = libres[--nombreLibres];
+        libres[rang] = dernier;
+        rangsLibres[dernier] = rang;
+    }
+
+    /**
+     * Nombre d'emplacements à parcourir lors d'une diffusion.
+     * Doit être lu avant {@link #getEmplacements()}.
+     */
+    int getLimite() {
+        return limite;
+    }
+
+    /**
+     * Emplacements courants, dont certains peuvent être vides
+     */
+    AtomicReferenceArray<T> getEmplacements() {
+        return emplacements;
+    }
+
+    /**
+     * Retourne le nombre d'écouteurs enregistrés
+     */
+    synchronized int taille() {
+        return positions.size();
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Service de temps rejouant un journal d'événements
+ */
+package org.emp.gl.time.service.impl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.emp.gl.timer.service.InstantaneTemps;
+import org.emp.gl.timer.service.TacheProgrammee;
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
+
+/**
+ * Service de temps qui rejoue un journal écrit par {@link EnregistreurTicks}.
+ * <p>
+ * Les écouteurs s'abonnent comme auprès du service d'origine et reçoivent
+ * exactement la même suite d'événements, sur le thread qui appelle
+ * {@link #rejouer(double)}, au rythme d'origine, accéléré ou aussi vite que
+ * possible. L'heure et les tâches programmées suivent le temps du journal.
+ * <p>
+ * Le journal est projeté par régions, comme il a été écrit : sa taille
+ * n'est pas limitée à 2 Go.
+ */
+public class RejoueurTicks implements TimerService, AutoCloseable {
+
+    private static final long PERIODE_TICK_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(MoteurTicks.PERIODE_MILLIS);
+
+    private static final int DECALAGE_REGION =
+            Long.numberOfTrailingZeros(EnregistreurTicks.TAILLE_REGION);
+    private static final long MASQUE_REGION = EnregistreurTicks.TAILLE_REGION - 1;
+
+    private final MappedByteBuffer[] regions;
+    private final long nombreEvenements;
+    private final RegistreAbonnements abonnements;
+    private final AdaptateurTimerChangeListener.Evenements evenements;
+    private final Object rejeu = new Object(); // Un seul rejeu à la fois
+
+    // Écrits sous le verrou du rejoueur
+    private RoueTemporelle roue;
+    private volatile long suivant;
+    private volatile long instantane;
+
+    /**
+     * Ouvre un journal
+     */
+    public RejoueurTicks(Path fichier) throws IOException {
+        long taille;
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            taille = canal.size();
+            this.regions = new MappedByteBuffer[(int) ((taille + MASQUE_REGION) >>> DECALAGE_REGION)];
+            for (int i = 0; i < regions.length; i++) {
+                long debut = (long) i << DECALAGE_REGION;
+                regions[i] = canal.map(FileChannel.MapMode.READ_ONLY, debut,
+                                       Math.min(EnregistreurTicks.TAILLE_REGION, taille - debut));
+            }
+        }
+        if (taille < EnregistreurTicks.TAILLE_ENTETE
+                || regions[0].getInt(0) != EnregistreurTicks.MAGIQUE) {
+            throw new IOException("Fichier qui n'est pas un journal de ticks : " + fichier);
+        }
+        if (regions[0].getInt(4) != EnregistreurTicks.VERSION) {
+            throw new IOException("Version de journal de ticks non prise en charge ("
+                    + regions[0].getInt(4) + ") : " + fichier);
+        }
+        this.nombreEvenements = compter(taille);
+        this.abonnements = new RegistreAbonnements();
+        this.evenements = new AdaptateurTimerChangeListener.Evenements(this);
+        revenirAuDebut();
+    }
+
+    /**
+     * Compte les événements complets, jusqu'à la fin laissée à zéro
+     * par un enregistrement interrompu
+     */
+    private long compter(long taille) {
+        long places = (taille - EnregistreurTicks.TAILLE_ENTETE)
+                      / EnregistreurTicks.TAILLE_EVENEMENT;
+        long nombre = 0;
+        while (nombre < places && temps(nombre) != 0) {
+            nombre++;
+        }
+        return nombre;
+    }
+
+    /**
+     * Retourne la région d'un événement ; un événement n'est jamais à
+     * cheval sur deux régions
+     */
+    private MappedByteBuffer region(long adresse) {
+        return regions[(int) (adresse >>> DECALAGE_REGION)];
+    }
+
+    private static long adresse(long index) {
+        return EnregistreurTicks.TAILLE_ENTETE + index * EnregistreurTicks.TAILLE_EVENEMENT;
+    }
+
+    private long instant(long index) {
+        long adresse = adresse(index);
+        return region(adresse).getLong((int) (adresse & MASQUE_REGION));
+    }
+
+    private int temps(long index) {
+        long adresse = adresse(index) + 8;
+        return region(adresse).getInt((int) (adresse & MASQUE_REGION));
+    }
+
+    private int ancienne(long index) {
+        long adresse = adresse(index) + 12;
+        return region(adresse).getInt((int) (adresse & MASQUE_REGION));
+    }
+
+    private static int unite(int temps) {
+        return (temps >>> 27) - 1;
+    }
+
+    private static int heures(int temps) {
+        return (temps >>> 22) & 0x1F;
+    }
+
+    private static int minutes(int temps) {
+        return (temps >>> 16) & 0x3F;
+    }
+
+    private static int secondes(int temps) {
+        return (temps >>> 10) & 0x3F;
+    }
+
+    private static int millisecondes(int temps) {
+        return temps & 0x3FF;
+    }
+
+    private static long instantane(int temps) {
+        return InstantaneTemps.composer(heures(temps), minutes(temps), secondes(temps),
+                                        millisecondes(temps));
+    }
+
+    /**
+     * Rejoue les événements restants du journal. Les attentes se font hors
+     * du verrou du rejoueur, qu'un rembobinage peut prendre pour
+     * interrompre le rejeu.
+     *
+     * @param vitesse 1 pour le rythme d'origine, 10 pour dix fois plus vite,
+     *                {@link Double#POSITIVE_INFINITY} pour ne jamais attendre
+     * @return Le nombre d'événements rejoués
+     */
+    public long rejouer(double vitesse) {
+        if (!(vitesse > 0)) {
+            throw new IllegalArgumentException("La vitesse doit être strictement positive");
+        }
+        synchronized (rejeu) {
+            long premier = suivant;
+            if (premier >= nombreEvenements) {
+                return 0;
+            }
+            long origine = instant(premier);
+            long debutReel = System.nanoTime();
+            boolean cadence = !Double.isInfinite(vitesse);
+
+            long rejoues = 0;
+            for (long index = premier; index < nombreEvenements; index++) {
+                long instant = instant(index);
+                if (cadence) {
+                    attendre(debutReel + (long) ((instant - origine) / vitesse));
+                }
+                synchronized (this) {
+                    if (suivant != index) {
+                        break; // Rembobiné pendant l'attente
+                    }
+                    int temps = temps(index);
+                    instantane = instantane(temps);
+                    diffuser(unite(temps), ancienne(index), temps);
+                    roue.avancer(instant);
+                    suivant = index + 1;
+                }
+                rejoues++;
+            }
+            return rejoues;
+        }
+    }
+
+    private static void attendre(long echeanceReelle) {
+        long reste;
+        while ((reste = echeanceReelle - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(reste);
+        }
+    }
+
+    /**
+     * Diffuse un événement aux abonnés de son unité, comme le service
+     */
+    private void diffuser(int unite, int ancienneValeur, int temps) {
+        int millisecondes = millisecondes(temps);
+        int dernier = unite == UniteTemps.MILLISECONDE ? millisecondes : millisecondes / 100;
+        abonnements.diffuser(unite, ancienneValeur, heures(temps), minutes(temps),
+                             secondes(temps), dernier, null);
+    }
+
+    /**
+     * Revient au début du journal, en interrompant un rejeu en cours.
+     * Les abonnements sont conservés, les tâches programmées abandonnées.
+     */
+    public synchronized void rembobiner() {
+        revenirAuDebut();
+    }
+
+    private void revenirAuDebut() {
+        suivant = 0;
+        roue = new RoueTemporelle(PERIODE_TICK_NANOS, nombreEvenements == 0 ? 0 : instant(0));
+        if (nombreEvenements > 0) {
+            instantane = instantane(temps(0));
+        }
+    }
+
+    /**
+     * Retourne le nombre d'événements du journal
+     */
+    public long getNombreEvenements() {
+        return nombreEvenements;
+    }
+
+    /**
+     * Retourne la durée couverte par le journal, en nanosecondes
+     */
+    public long getDureeNanos() {
+        return nombreEvenements < 2 ? 0 : instant(nombreEvenements - 1) - instant(0);
+    }
+
+    @Override
+    public void addTimeChangeListener(TimerChangeListener pl) {
+        addTimeChangeListener(pl, UniteTemps.MASQUE_TOUTES, 1);
+    }
+
+    @Override
+    public void addTimeChangeListener(TimerChangeListener pl, int masque, int frequence) {
+        if (pl == null) {
+            return;
+        }
+        verifierAbonnement(masque, frequence);
+        abonnements.abonner(pl, new AdaptateurTimerChangeListener(pl, evenements),
+                            masque, frequence, null);
+    }
+
+    @Override
+    public void removeTimeChangeListener(TimerChangeListener pl) {
+        abonnements.desabonner(pl);
+    }
+
+    @Override
+    public void addTickListener(TickListener tl, int masque, int frequence) {
+        if (tl == null) {
+            return;
+        }
+        verifierAbonnement(masque, frequence);
+        abonnements.abonner(tl, tl, masque, frequence, null);
+    }
+
+    @Override
+    public void removeTickListener(TickListener tl) {
+        abonnements.desabonner(tl);
+    }
+
+    private static void verifierAbonnement(int masque, int frequence) {
+        if (!UniteTemps.estValide(masque)) {
+            throw new IllegalArgumentException("Masque d'unités inconnu : " + masque);
+        }
+        if (frequence < 1) {
+            throw new IllegalArgumentException("La fréquence doit être au moins 1");
+        }
+    }
+
+    /**
+     * Programme une tâche en temps du journal
+     */
+    @Override
+    public synchronized TacheProgrammee programmer(Runnable tache, long delai, TimeUnit unite) {
+        return roue.programmer(tache, instantCourant(), unite.toNanos(delai), 0);
+    }
+
+    /**
+     * Programme une tâche périodique en temps du journal
+     */
+    @Override
+    public synchronized TacheProgrammee programmerPeriodique(Runnable tache, long delaiInitial,
+                                                             long periode, TimeUnit unite) {
+        if (periode <= 0) {
+            throw new IllegalArgumentException("La période doit être strictement positive");
+        }
+        return roue.programmer(tache, instantCourant(),
+                               unite.toNanos(delaiInitial), unite.toNanos(periode));
+    }
+
+    /**
+     * Instant du journal du dernier événement rejoué
+     */
+    private long instantCourant() {
+        if (nombreEvenements == 0) {
+            return 0;
+        }
+        return instant(Math.max(0, suivant - 1));
+    }
+
+    @Override
+    public int getHeures() {
+        return InstantaneTemps.heures(instantane);
+    }
+
+    @Override
+    public int getMinutes() {
+        return InstantaneTemps.minutes(instantane);
+    }
+
+    @Override
+    public int getSecondes() {
+        return InstantaneTemps.secondes(instantane);
+    }
+
+    @Override
+    public int getDixiemeDeSeconde() {
+        return InstantaneTemps.dixiemes(instantane);
+    }
+
+    @Override
+    public long snapshot() {
+        return instantane;
+    }
+
+    /**
+     * Rien à libérer : la projection du journal est rendue par le ramasse-miettes
+     */
+    @Override
+    public void close() {
+        rembobiner();
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Roue temporelle hiérarchique pour les tâches différées du service
+ */
+package org.emp.gl.time.service.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.emp.gl.timer.service.TacheProgrammee;
+
+/**
+ * Roue temporelle hiérarchique à quatre niveaux de 256 seaux.
+ * <p>
+ * Le premier niveau couvre les 256 prochains ticks, chaque niveau suivant
+ * couvre 256 fois plus de temps. Une tâche est rangée dans le seau
+ * correspondant à son échéance puis redescend d'un niveau lorsque le niveau
+ * inférieur fait un tour complet. L'insertion, l'annulation et l'expiration
+ * se font en temps constant : un tick ne parcourt que les tâches échues.
+ * <p>
+ * Les tâches peuvent être programmées et annulées depuis n'importe quel
+ * thread ; seules les files d'attente sont partagées. La structure de la
+ * roue n'est modifiée que par le thread qui appelle {@link #avancer(long)}.
+ */
+public class RoueTemporelle {
+
+    private static final int BITS_NIVEAU = 8;
+    private static final int TAILLE_NIVEAU = 1 << BITS_NIVEAU;
+    private static final int MASQUE_NIVEAU = TAILLE_NIVEAU - 1;
+    private static final int NOMBRE_NIVEAUX = 4;
+    private static final long PORTEE_MAX = (1L << (BITS_NIVEAU * NOMBRE_NIVEAUX)) - 1;
+
+    private final EntreeRoue[][] seaux;
+    private final long dureeTickNanos;
+    private final long origineNanos;
+
+    private final Queue<EntreeRoue> ajoutsEnAttente;
+    private final Queue<EntreeRoue> annulationsEnAttente;
+    private final AtomicLong nombreTaches;
+
+    private long tickCourant;
+
+    /**
+     * Crée une roue dont le tick 0 commence à l'instant donné
+     *
+     * @param dureeTickNanos Durée d'un tick en nanosecondes
+     * @param origineNanos Instant de référence, dans l'échelle de {@link System#nanoTime()}
+     */
+    public RoueTemporelle(long dureeTickNanos, long origineNanos) {
+        if (dureeTickNanos <= 0) {
+            throw new IllegalArgumentException("La durée d'un tick doit être strictement positive");
+        }
+        this.seaux = new EntreeRoue[NOMBRE_NIVEAUX][TAILLE_NIVEAU];
+        this.dureeTickNanos = dureeTickNanos;
+        this.origineNanos = origineNanos;
+        this.ajoutsEnAttente = new ConcurrentLinkedQueue<>();
+        this.annulationsEnAttente = new ConcurrentLinkedQueue<>();
+        this.nombreTaches = new AtomicLong();
+        this.tickCourant = 0;
+    }
+
+    /**
+     * Programme une tâche
+     *
+     * @param tache La tâche à exécuter
+     * @param maintenantNanos Instant courant
+     * @param delaiNanos Délai avant la première exécution
+     * @param periodeNanos Période de répétition, 0 pour une tâche ponctuelle
+     */
+    public TacheProgrammee programmer(Runnable tache, long maintenantNanos,
+                                      long delaiNanos, long periodeNanos) {
+        if (tache == null) {
+            throw new NullPointerException("tache");
+        }
+        long echeance = tickPour(maintenantNanos, Math.max(0, delaiNanos));
+        long periode = periodeNanos > 0 ? versTicks(periodeNanos) : 0;
+
+        EntreeRoue entree = new EntreeRoue(this, tache, echeance, periode);
+        nombreTaches.incrementAndGet();
+        ajoutsEnAttente.add(entree);
+        return entree;
+    }
+
+    /**
+     * Calcule le premier tick qui commence après l'échéance
+     */
+    private long tickPour(long maintenantNanos, long delaiNanos) {
+        long instant = maintenantNanos - origineNanos + Math.min(delaiNanos, Long.MAX_VALUE / 4);
+        long tick = Math.floorDiv(instant, dureeTickNanos);
+        return Math.floorMod(instant, dureeTickNanos) == 0 ? tick : tick + 1;
+    }
+
+    /**
+     * Convertit une durée en nombre de ticks, arrondi au supérieur
+     */
+    private long versTicks(long nanos) {
+        long ticks = nanos / dureeTickNanos;
+        return nanos % dureeTickNanos == 0 ? ticks : ticks + 1;
+    }
+
+    /**
+     * Enregistre une annulation à traiter au prochain tick
+     */
+    void signalerAnnulation(EntreeRoue entree) {
+        nombreTaches.decrementAndGet();
+        annulationsEnAttente.add(entree);
+    }
+
+    /**
+     * Fait avancer la roue jusqu'à l'instant donné et exécute les tâches échues
+     */
+    public void avancer(long maintenantNanos) {
+        long cible = Math.floorDiv(maintenantNanos - origineNanos, dureeTickNanos);
+
+        traiterAjouts();
+        traiterAnnulations();
+
+        while (tickCourant <= cible) {
+            long tick = tickCourant;
+            int index = (int) (tick & MASQUE_NIVEAU);
+            if (index == 0) {
+                cascader(tick);
+            }
+            EntreeRoue echues = detacherSeau(0, index);
+            tickCourant = tick + 1;
+            expirer(echues, tick);
+        }
+    }
+
+    /**
+     * Range dans la roue les tâches programmées depuis le dernier tick
+     */
+    private void traiterAjouts() {
+        EntreeRoue entree;
+        while ((entree = ajoutsEnAttente.poll()) != null) {
+            if (!entree.estAnnulee()) {
+                inserer(entree);
+            }
+        }
+    }
+
+    /**
+     * Retire de la roue les tâches annulées depuis le dernier tick
+     */
+    private void traiterAnnulations() {
+        EntreeRoue entree;
+        while ((entree = annulationsEnAttente.poll()) != null) {
+            if (entree.estChainee()) {
+                retirer(entree);
+            }
+        }
+    }
+
+    /**
+     * Redescend les seaux des niveaux supérieurs lorsque le niveau
+     * inférieur termine un tour
+     */
+    private void cascader(long tick) {
+        for (int niveau = 1; niveau < NOMBRE_NIVEAUX; niveau++) {
+            int index = (int) ((tick >>> (BITS_NIVEAU * niveau)) & MASQUE_NIVEAU);
+            EntreeRoue entree = detacherSeau(niveau, index);
+            while (entree != null) {
+                EntreeRoue suivante = entree.suivante;
+                entree.suivante = null;
+                inserer(entree);
+                entree = suivante;
+            }
+            if (index != 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Exécute les tâches d'un seau échu
+     */
+    private void expirer(EntreeRoue entree, long tick) {
+        while (entree != null) {
+            EntreeRoue suivante = entree.suivante;
+            entree.suivante = null;
+            if (entree.echeance > tick) {
+                // Échéance au-delà de la portée de la roue : on la replace
+                inserer(entree);
+            } else {
+                executer(entree);
+            }
+            entree = suivante;
+        }
+    }
+
+    /**
+     * Exécute une tâche échue et la reprogramme si elle est périodique
+     */
+    private void executer(EntreeRoue entree) {
+        if (entree.estPeriodique()) {
+            if (entree.estAnnulee()) {
+                return;
+            }
+            lancer(entree);
+            if (!entree.estAnnulee()) {
+                entree.echeance = Math.max(entree.echeance + entree.periode, tickCourant);
+                inserer(entree);
+            }
+        } else if (entree.marquerExpiree()) {
+            nombreTaches.decrementAndGet();
+            lancer(entree);
+        }
+    }
+
+    /**
+     * Lance une tâche en isolant ses éventuelles erreurs
+     */
+    private void lancer(EntreeRoue entree) {
+        try {
+            entree.tache.run();
+        } catch (RuntimeException e) {
+            System.err.println("Tâche programmée en échec : " + e);
+        }
+    }
+
+    /**
+     * Range une entrée dans le seau correspondant à son échéance
+     */
+    private void inserer(EntreeRoue entree) {
+        long delta = entree.echeance - tickCourant;
+        if (delta < 0) {
+            chainer(entree, 0, (int) (tickCourant & MASQUE_NIVEAU));
+            return;
+        }
+        long echeance = entree.echeance;
+        if (delta > PORTEE_MAX) {
+            delta = PORTEE_MAX;
+            echeance = tickCourant + PORTEE_MAX;
+        }
+        int niveau = 0;
+        while (delta >= 1L << (BITS_NIVEAU * (niveau + 1))) {
+            niveau++;
+        }
+        int index = (int) ((echeance >>> (BITS_NIVEAU * niveau)) & MASQUE_NIVEAU);
+        chainer(entree, niveau, index);
+    }
+
+    /**
+     * Ajoute une entrée en tête d'un seau
+     */
+    private void chainer(EntreeRoue entree, int niveau, int index) {
+        EntreeRoue tete = seaux[niveau][index];
+        entree.niveau = niveau;
+        entree.index = index;
+        entree.precedente = null;
+        entree.suivante = tete;
+        if (tete != null) {
+            tete.precedente = entree;
+        }
+        seaux[niveau][index] = entree;
+    }
+
+    /**
+     * Retire une entrée de son seau
+     */
+    private void retirer(EntreeRoue entree) {
+        if (entree.precedente != null) {
+            entree.precedente.suivante = entree.suivante;
+        } else {
+            seaux[entree.niveau][entree.index] = entree.suivante;
+        }
+        if (entree.suivante != null) {
+            entree.suivante.precedente = entree.precedente;
+        }
+        entree.precedente = null;
+        entree.suivante = null;
+        entree.niveau = -1;
+    }
+
+    /**
+     * Vide un seau et retourne la tête de sa liste
+     */
+    private EntreeRoue detacherSeau(int niveau, int index) {
+        EntreeRoue tete = seaux[niveau][index];
+        seaux[niveau][index] = null;
+        for (EntreeRoue e = tete; e != null; e = e.suivante) {
+            e.niveau = -1;
+            e.precedente = null;
+        }
+        return tete;
+    }
+
+    /**
+     * Retourne le nombre de tâches en attente d'exécution
+     */
+    public long getNombreTaches() {
+        return nombreTaches.get();
+    }
+
+    /**
+     * Retourne la durée d'un tick en nanosecondes
+     */
+    public long getDureeTickNanos() {
+        return dureeTickNanos;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Source de temps du service
+ */
+package org.emp.gl.time.service.impl;
+
+/**
+ * Fournit au service son temps monotone, son heure murale et sa façon
+ * d'attendre une échéance. Permet de remplacer l'horloge du système par
+ * une horloge virtuelle, par exemple pour accélérer une simulation.
+ */
+public interface SourceTemps {
+
+    /**
+     * Temps monotone en nanosecondes, à la manière de {@link System#nanoTime()}
+     */
+    long nanoTime();
+
+    /**
+     * Heure murale en millisecondes depuis l'époque Unix
+     */
+    long tempsMurMillis();
+
+    /**
+     * Attend que le temps monotone atteigne l'échéance.
+     * Peut rendre la main plus tôt : l'appelant vérifie l'échéance en boucle.
+     */
+    void attendre(long echeanceNanos);
+
+    /**
+     * Signale que le thread du moteur s'arrête faute d'abonnés : aucune
+     * échéance n'est plus attendue jusqu'au prochain {@link #reveiller()}
+     */
+    void relacher();
+
+    /**
+     * Interrompt l'attente en cours ou la prochaine, appelé lorsque la
+     * cadence du moteur change ou que son thread redémarre
+     */
+    void reveiller();
+
+    /**
+     * Libère les attentes en cours, appelé à l'arrêt du moteur
+     */
+    void liberer();
+}
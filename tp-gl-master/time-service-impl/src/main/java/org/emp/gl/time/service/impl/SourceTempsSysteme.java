@@ -0,0 +1,100 @@
+/*
+ * Source de temps du système
+ */
+package org.emp.gl.time.service.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Source de temps reposant sur les horloges du système.
+ * <p>
+ * Une échéance est attendue en endormant le thread, dont le réveil peut
+ * tarder de quelques dizaines de microsecondes à quelques millisecondes
+ * selon le système. Avec une fenêtre d'attente active, le thread se
+ * réveille plus tôt de la durée de la fenêtre et la termine en scrutant
+ * l'horloge : le retard des ticks devient de l'ordre de la microseconde,
+ * au prix d'un cœur occupé pendant la fenêtre à chaque tick.
+ */
+public final class SourceTempsSysteme implements SourceTemps {
+
+    public static final SourceTempsSysteme INSTANCE = new SourceTempsSysteme(0);
+
+    private volatile long fenetreActiveNanos;
+
+    /**
+     * Crée une source propre, dont la fenêtre d'attente active se règle
+     * indépendamment de celle de {@link #INSTANCE}
+     *
+     * @param fenetreActive Fin de chaque attente passée à scruter l'horloge, 0 pour aucune
+     */
+    public SourceTempsSysteme(long fenetreActive, TimeUnit unite) {
+        this(unite.toNanos(fenetreActive));
+    }
+
+    private SourceTempsSysteme(long fenetreActiveNanos) {
+        setFenetreActiveNanos(fenetreActiveNanos);
+    }
+
+    /**
+     * Règle la fenêtre d'attente active, appliquée dès l'attente suivante
+     */
+    public void setFenetreActiveNanos(long fenetreActiveNanos) {
+        if (fenetreActiveNanos < 0) {
+            throw new IllegalArgumentException("Fenêtre négative : " + fenetreActiveNanos);
+        }
+        this.fenetreActiveNanos = fenetreActiveNanos;
+    }
+
+    /**
+     * Retourne la fenêtre d'attente active en nanosecondes
+     */
+    public long getFenetreActiveNanos() {
+        return fenetreActiveNanos;
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public long tempsMurMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Dort jusqu'à l'entrée dans la fenêtre, puis scrute l'horloge jusqu'à
+     * l'échéance
+     */
+    @Override
+    public void attendre(long echeanceNanos) {
+        long fenetre = fenetreActiveNanos;
+        long reste = echeanceNanos - System.nanoTime();
+        if (reste > fenetre) {
+            LockSupport.parkNanos(this, reste - fenetre);
+            reste = echeanceNanos - System.nanoTime();
+        }
+        // Réveillé avant la fenêtre, pour un nouveau pas : l'appelant décide
+        if (reste > 0 && reste <= fenetre) {
+            while (System.nanoTime() - echeanceNanos < 0) {
+                // Attente active jusqu'à l'échéance
+            }
+        }
+    }
+
+    @Override
+    public void relacher() {
+        // Aucun thread n'attend plus
+    }
+
+    @Override
+    public void reveiller() {
+        // Le moteur réveille lui-même son thread
+    }
+
+    @Override
+    public void liberer() {
+        // Le moteur réveille lui-même son thread
+    }
+}
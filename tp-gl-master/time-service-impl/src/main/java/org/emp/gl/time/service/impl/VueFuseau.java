@@ -0,0 +1,231 @@
+/*
+ * Vue d'un service de temps dans un autre fuseau horaire
+ */
+package org.emp.gl.time.service.impl;
+
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+import org.emp.gl.timer.service.InstantaneTemps;
+import org.emp.gl.timer.service.TacheProgrammee;
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
+
+/**
+ * Heure d'un {@link DummyTimeServiceImpl} dans un fuseau donné.
+ * <p>
+ * La vue n'a ni thread ni lecture d'horloge : le service lui transmet
+ * l'heure murale de chacun de ses ticks, qu'elle convertit avec son
+ * décalage mis en cache jusqu'au prochain changement d'heure. Ses abonnés
+ * sont notifiés sur le thread du service, avec les mêmes masques et
+ * fréquences, et comptent dans la cadence du moteur. Les tâches
+ * programmées le sont auprès du service. Comme ceux du service, ses
+ * accesseurs lisent l'horloge eux-mêmes quand le moteur ne rafraîchit
+ * pas l'heure à la granularité lue.
+ */
+final class VueFuseau implements TimerService {
+
+    private static final long MILLIS_PAR_JOUR = TimeUnit.DAYS.toMillis(1);
+
+    private final DummyTimeServiceImpl service;
+    private final ZoneId zone;
+    private final DecalageFuseau fuseau;
+    private final DecalageFuseau fuseauLecture; // Pour les accesseurs, sous son verrou
+    private final RegistreAbonnements abonnements;
+    private final AdaptateurTimerChangeListener.Evenements evenements;
+
+    // Propres au thread du service
+    private int heures;
+    private int minutes;
+    private int secondes;
+    private int millisecondes;
+    private int decalageMillis;
+    private long dernierTempsMurMillis;
+
+    private volatile long instantane;
+
+    VueFuseau(DummyTimeServiceImpl service, ZoneId zone, long tempsMurMillis) {
+        this.service = service;
+        this.zone = zone;
+        this.fuseau = new DecalageFuseau(zone);
+        this.fuseauLecture = new DecalageFuseau(zone);
+        this.abonnements = new RegistreAbonnements();
+        this.evenements = new AdaptateurTimerChangeListener.Evenements(this);
+        this.decalageMillis = fuseau.pour(tempsMurMillis);
+        this.dernierTempsMurMillis = tempsMurMillis;
+        long millisDuJour = Math.floorMod(tempsMurMillis + decalageMillis, MILLIS_PAR_JOUR);
+        this.heures = (int) (millisDuJour / 3600000);
+        this.minutes = (int) (millisDuJour / 60000 % 60);
+        this.secondes = (int) (millisDuJour / 1000 % 60);
+        this.millisecondes = (int) (millisDuJour % 1000);
+        this.instantane = InstantaneTemps.composer(heures, minutes, secondes, millisecondes);
+    }
+
+    /**
+     * Retourne le fuseau de la vue
+     */
+    ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Retourne les unités demandées par les abonnés de la vue
+     */
+    int getMasqueUnites() {
+        return abonnements.getMasqueUnites();
+    }
+
+    /**
+     * Applique l'heure murale d'un tick du service, sur son thread.
+     * Les notifications suivent les règles du service : le saut est
+     * signalé en premier et une seconde n'est comptée que si elle s'est
+     * réellement écoulée.
+     */
+    void appliquer(long tempsMurMillis, long ecartMillis) {
+        int decalage = fuseau.pour(tempsMurMillis);
+        boolean discontinuite = ecartMillis != 0 || decalage != decalageMillis;
+        decalageMillis = decalage;
+        boolean secondeEcoulee = Math.floorDiv(tempsMurMillis - ecartMillis, 1000)
+                                 != Math.floorDiv(dernierTempsMurMillis, 1000);
+        dernierTempsMurMillis = tempsMurMillis;
+
+        long millisDuJour = Math.floorMod(tempsMurMillis + decalage, MILLIS_PAR_JOUR);
+        int anciennesHeures = heures;
+        int anciennesMinutes = minutes;
+        int anciennesSecondes = secondes;
+        int anciennesMillisecondes = millisecondes;
+        heures = (int) (millisDuJour / 3600000);
+        minutes = (int) (millisDuJour / 60000 % 60);
+        secondes = (int) (millisDuJour / 1000 % 60);
+        millisecondes = (int) (millisDuJour % 1000);
+        instantane = InstantaneTemps.composer(heures, minutes, secondes, millisecondes);
+
+        if (abonnements.getMasqueUnites() == 0) {
+            return;
+        }
+        if (discontinuite) {
+            diffuser(UniteTemps.DISCONTINUITE,
+                     anciennesHeures * 3600 + anciennesMinutes * 60 + anciennesSecondes);
+        }
+        if (secondeEcoulee) {
+            diffuser(UniteTemps.SECONDE, anciennesSecondes);
+        }
+        if (minutes != anciennesMinutes) {
+            diffuser(UniteTemps.MINUTE, anciennesMinutes);
+        }
+        if (heures != anciennesHeures) {
+            diffuser(UniteTemps.HEURE, anciennesHeures);
+        }
+        if (millisecondes / 100 != anciennesMillisecondes / 100) {
+            diffuser(UniteTemps.DIXIEME, anciennesMillisecondes / 100);
+        }
+        if (millisecondes != anciennesMillisecondes) {
+            diffuser(UniteTemps.MILLISECONDE, anciennesMillisecondes);
+        }
+    }
+
+    /**
+     * Diffuse un changement aux abonnés d'une unité, sans verrou ni allocation
+     */
+    private void diffuser(int unite, int ancienneValeur) {
+        int dernier = unite == UniteTemps.MILLISECONDE ? millisecondes : millisecondes / 100;
+        abonnements.diffuser(unite, ancienneValeur, heures, minutes, secondes, dernier, zone);
+    }
+
+    @Override
+    public void addTimeChangeListener(TimerChangeListener pl) {
+        addTimeChangeListener(pl, UniteTemps.MASQUE_TOUTES, 1);
+    }
+
+    @Override
+    public void addTimeChangeListener(TimerChangeListener pl, int masque, int frequence) {
+        if (pl == null) {
+            return;
+        }
+        service.verifierAbonnement(masque, frequence);
+        TickListener adaptateur = new AdaptateurTimerChangeListener(pl, evenements);
+        abonnements.abonner(pl, service.preparerCible(adaptateur), masque, frequence, null);
+        service.ajusterCadence();
+    }
+
+    @Override
+    public void removeTimeChangeListener(TimerChangeListener pl) {
+        if (pl != null && abonnements.desabonner(pl)) {
+            service.ajusterCadence();
+        }
+    }
+
+    @Override
+    public void addTickListener(TickListener tl, int masque, int frequence) {
+        if (tl == null) {
+            return;
+        }
+        service.verifierAbonnement(masque, frequence);
+        abonnements.abonner(tl, service.preparerCible(tl), masque, frequence, null);
+        service.ajusterCadence();
+    }
+
+    @Override
+    public void removeTickListener(TickListener tl) {
+        if (tl != null && abonnements.desabonner(tl)) {
+            service.ajusterCadence();
+        }
+    }
+
+    @Override
+    public TacheProgrammee programmer(Runnable tache, long delai, TimeUnit unite) {
+        return service.programmer(tache, delai, unite);
+    }
+
+    @Override
+    public TacheProgrammee programmerPeriodique(Runnable tache, long delaiInitial,
+                                                long periode, TimeUnit unite) {
+        return service.programmerPeriodique(tache, delaiInitial, periode, unite);
+    }
+
+    @Override
+    public int getHeures() {
+        return InstantaneTemps.heures(instantanePour(MoteurTicks.PAS_MINUTE_MILLIS));
+    }
+
+    @Override
+    public int getMinutes() {
+        return InstantaneTemps.minutes(instantanePour(MoteurTicks.PAS_MINUTE_MILLIS));
+    }
+
+    @Override
+    public int getSecondes() {
+        return InstantaneTemps.secondes(instantanePour(MoteurTicks.PAS_SECONDE_MILLIS));
+    }
+
+    @Override
+    public int getDixiemeDeSeconde() {
+        return InstantaneTemps.dixiemes(instantanePour(MoteurTicks.PERIODE_MILLIS));
+    }
+
+    @Override
+    public int getMillisecondes() {
+        return InstantaneTemps.millisecondes(instantanePour(service.getResolutionMillis()));
+    }
+
+    @Override
+    public long snapshot() {
+        return instantanePour(MoteurTicks.PERIODE_MILLIS);
+    }
+
+    /**
+     * Retourne l'heure du dernier tick si elle est à jour pour la
+     * granularité lue, sinon la calcule depuis l'horloge murale
+     */
+    private long instantanePour(long granulariteMillis) {
+        return service.estAJour(granulariteMillis) ? instantane
+                                                   : service.lireInstantane(fuseauLecture);
+    }
+
+    @Override
+    public String toString() {
+        return "VueFuseau[" + zone + "]";
+    }
+}
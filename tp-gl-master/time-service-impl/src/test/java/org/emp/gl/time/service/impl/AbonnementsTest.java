@@ -0,0 +1,121 @@
+package org.emp.gl.time.service.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.emp.gl.timer.service.UniteTemps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests des abonnements : masques, sous-échantillonnage, chemin primitif
+ * et modifications pendant une diffusion
+ */
+public class AbonnementsTest {
+
+    private static final long DEPART = ZonedDateTime
+            .of(2024, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC)
+            .toInstant().toEpochMilli();
+
+    private HorlogeVirtuelle horloge;
+    private DummyTimeServiceImpl service;
+
+    @Before
+    public void demarrer() {
+        horloge = new HorlogeVirtuelle(DEPART);
+        service = new DummyTimeServiceImpl(horloge, ZoneOffset.UTC);
+    }
+
+    @After
+    public void arreter() {
+        service.arreter();
+    }
+
+    @Test
+    public void seulesLesUnitesDuMasqueSontRecues() {
+        List<String> recus = new ArrayList<>();
+        service.addTimeChangeListener(evt -> recus.add(evt.getPropertyName()),
+                                      UniteTemps.MASQUE_MINUTE, 1);
+
+        horloge.avancer(2, TimeUnit.MINUTES);
+
+        assertEquals(Arrays.asList(TimerChangeListener.MINUTE_PROP,
+                                   TimerChangeListener.MINUTE_PROP), recus);
+    }
+
+    @Test
+    public void sousEchantillonnageParUnite() {
+        List<Integer> secondes = new ArrayList<>();
+        AtomicInteger dixiemes = new AtomicInteger();
+        service.addTickListener((unite, ancienne, h, m, s, d) -> {
+            if (unite == UniteTemps.SECONDE) {
+                secondes.add(s);
+            } else {
+                dixiemes.incrementAndGet();
+            }
+        }, UniteTemps.MASQUE_SECONDE | UniteTemps.MASQUE_DIXIEME, 3);
+
+        horloge.avancer(9, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(3, 6, 9), secondes);
+        assertEquals(30, dixiemes.get());
+    }
+
+    @Test
+    public void cheminPrimitifRecoitLHeureDuTick() {
+        List<String> recus = new ArrayList<>();
+        service.addTickListener((unite, ancienne, h, m, s, d) ->
+                recus.add(unite + ":" + ancienne + " " + h + ":" + m + ":" + s + "." + d),
+                UniteTemps.MASQUE_SECONDE | UniteTemps.MASQUE_MINUTE, 1);
+
+        horloge.avancer(60, TimeUnit.SECONDS);
+
+        assertEquals(61, recus.size());
+        assertEquals(UniteTemps.SECONDE + ":0 10:0:1.0", recus.get(0));
+        assertEquals(UniteTemps.SECONDE + ":59 10:1:0.0", recus.get(59));
+        assertEquals(UniteTemps.MINUTE + ":0 10:1:0.0", recus.get(60));
+    }
+
+    @Test
+    public void abonnementsModifiesPendantUneDiffusion() {
+        AtomicInteger premier = new AtomicInteger();
+        AtomicInteger remplacant = new AtomicInteger();
+        List<TickListener> autres = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            TickListener autre = (unite, ancienne, h, m, s, d) -> { };
+            autres.add(autre);
+            service.addTickListener(autre, UniteTemps.MASQUE_SECONDE, 1);
+        }
+        TickListener ajoute = (unite, ancienne, h, m, s, d) -> remplacant.incrementAndGet();
+        service.addTickListener(new TickListener() {
+            @Override
+            public void onTick(int unite, int ancienne, int h, int m, int s, int d) {
+                // Au premier tick, se retire, retire les autres et se fait remplacer
+                premier.incrementAndGet();
+                service.removeTickListener(this);
+                for (TickListener autre : autres) {
+                    service.removeTickListener(autre);
+                }
+                service.addTickListener(ajoute, UniteTemps.MASQUE_SECONDE, 1);
+            }
+        }, UniteTemps.MASQUE_SECONDE, 1);
+
+        horloge.avancer(3, TimeUnit.SECONDS);
+
+        assertEquals(1, premier.get());
+        // Le remplaçant peut voir ou non le tick de son ajout
+        int recus = remplacant.get();
+        assertEquals(true, recus == 2 || recus == 3);
+        assertEquals(1, service.getMetriques().getNombreEcouteurs());
+    }
+}
@@ -0,0 +1,187 @@
+package org.emp.gl.time.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.UniteTemps;
+import org.junit.Test;
+
+/**
+ * Tests des boîtes aux lettres des écouteurs asynchrones
+ */
+public class BoiteAuxLettresTest {
+
+    /**
+     * Un thread par tâche, dont les erreurs ne sont pas affichées
+     */
+    private static final Executor THREADS = tache -> {
+        Thread thread = new Thread(tache);
+        thread.setUncaughtExceptionHandler((t, e) -> { });
+        thread.start();
+    };
+
+    /**
+     * Écouteur qui reste bloqué sur son premier événement jusqu'à sa libération
+     */
+    private static final class EcouteurBloque implements TickListener {
+
+        final CountDownLatch entre = new CountDownLatch(1);
+        final CountDownLatch libere = new CountDownLatch(1);
+        final List<String> recus = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onTick(int unite, int ancienne, int h, int m, int s, int d) {
+            recus.add(unite + ":" + ancienne + ":" + s);
+            entre.countDown();
+            try {
+                libere.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    public void supprimerAncienGardeLesPlusRecents() throws Exception {
+        EcouteurBloque ecouteur = new EcouteurBloque();
+        BoiteAuxLettres boite = new BoiteAuxLettres(ecouteur, THREADS, 2,
+                                                    PolitiqueDebordement.SUPPRIMER_ANCIEN);
+        seconde(boite, 1);
+        assertTrue(ecouteur.entre.await(5, TimeUnit.SECONDS));
+        for (int s = 2; s <= 5; s++) {
+            seconde(boite, s);
+        }
+        assertEquals(2, boite.getNombreSupprimes());
+
+        ecouteur.libere.countDown();
+        attendreVide(boite);
+        assertEquals(Arrays.asList("1:0:1", "1:3:4", "1:4:5"), ecouteur.recus);
+    }
+
+    @Test
+    public void fusionnerGardeLAncienneValeur() throws Exception {
+        EcouteurBloque ecouteur = new EcouteurBloque();
+        BoiteAuxLettres boite = new BoiteAuxLettres(ecouteur, THREADS, 2,
+                                                    PolitiqueDebordement.FUSIONNER);
+        seconde(boite, 1);
+        assertTrue(ecouteur.entre.await(5, TimeUnit.SECONDS));
+        seconde(boite, 2);
+        boite.onTick(UniteTemps.MINUTE, 0, 0, 1, 0, 0);
+        seconde(boite, 3);
+        assertEquals(1, boite.getNombreFusionnes());
+        assertEquals(0, boite.getNombreSupprimes());
+
+        ecouteur.libere.countDown();
+        attendreVide(boite);
+        assertEquals(Arrays.asList("1:0:1", "1:1:3", "2:0:0"), ecouteur.recus);
+    }
+
+    @Test
+    public void bloquerAttendLaLivraison() throws Exception {
+        EcouteurBloque ecouteur = new EcouteurBloque();
+        BoiteAuxLettres boite = new BoiteAuxLettres(ecouteur, THREADS, 1,
+                                                    PolitiqueDebordement.BLOQUER);
+        seconde(boite, 1);
+        assertTrue(ecouteur.entre.await(5, TimeUnit.SECONDS));
+        seconde(boite, 2);
+        Thread service = new Thread(() -> seconde(boite, 3));
+        service.start();
+        service.join(200);
+        assertTrue(service.isAlive());
+
+        ecouteur.libere.countDown();
+        service.join(5000);
+        assertTrue(!service.isAlive());
+        attendreVide(boite);
+        assertEquals(Arrays.asList("1:0:1", "1:1:2", "1:2:3"), ecouteur.recus);
+        assertEquals(0, boite.getNombreSupprimes());
+    }
+
+    @Test(timeout = 5000)
+    public void bloquerSupprimeSiLaLivraisonEstRefusee() {
+        AtomicInteger recus = new AtomicInteger();
+        Executor refus = tache -> {
+            throw new RejectedExecutionException("arrêté");
+        };
+        BoiteAuxLettres boite = new BoiteAuxLettres(
+                (unite, ancienne, h, m, s, d) -> recus.incrementAndGet(), refus, 1,
+                PolitiqueDebordement.BLOQUER);
+        for (int s = 1; s <= 3; s++) {
+            seconde(boite, s);
+        }
+        assertEquals(2, boite.getNombreSupprimes());
+        assertEquals(0, recus.get());
+    }
+
+    @Test(timeout = 5000)
+    public void livraisonReprendApresUneError() throws Exception {
+        List<Integer> recus = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch echec = new CountDownLatch(1);
+        BoiteAuxLettres boite = new BoiteAuxLettres((unite, ancienne, h, m, s, d) -> {
+            if (s == 1) {
+                echec.countDown();
+                throw new Error("écouteur en échec");
+            }
+            recus.add(s);
+        }, THREADS, 1, PolitiqueDebordement.BLOQUER);
+        seconde(boite, 1);
+        assertTrue(echec.await(5, TimeUnit.SECONDS));
+        // Ni la livraison suivante ni le thread du service ne restent bloqués
+        seconde(boite, 2);
+        seconde(boite, 3);
+        attendreVide(boite);
+        while (recus.size() < 2) {
+            Thread.sleep(1);
+        }
+        assertEquals(Arrays.asList(2, 3), recus);
+    }
+
+    @Test
+    public void ecouteurLentNeRetardePasLesAutres() throws Exception {
+        HorlogeVirtuelle horloge = new HorlogeVirtuelle(0);
+        DummyTimeServiceImpl service = new DummyTimeServiceImpl(horloge, ZoneOffset.UTC);
+        try {
+            EcouteurBloque lent = new EcouteurBloque();
+            service.activerDiffusionAsynchrone(4, PolitiqueDebordement.SUPPRIMER_ANCIEN);
+            service.addTickListener(lent, UniteTemps.MASQUE_SECONDE, 1);
+            service.activerDiffusionSynchrone();
+            AtomicInteger rapide = new AtomicInteger();
+            service.addTickListener((unite, ancienne, h, m, s, d) -> rapide.incrementAndGet(),
+                                    UniteTemps.MASQUE_SECONDE, 1);
+
+            horloge.avancer(20, TimeUnit.SECONDS);
+
+            assertEquals(20, rapide.get());
+            assertTrue(lent.entre.await(5, TimeUnit.SECONDS));
+            lent.libere.countDown();
+            // Quatre en attente, un en cours de livraison si la tâche l'a déjà retiré
+            assertTrue(service.getEvenementsSupprimes() >= 15);
+        } finally {
+            service.arreter();
+        }
+    }
+
+    private static void seconde(BoiteAuxLettres boite, int secondes) {
+        boite.onTick(UniteTemps.SECONDE, secondes - 1, 0, 0, secondes, 0);
+    }
+
+    private static void attendreVide(BoiteAuxLettres boite) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!boite.estVide() && System.nanoTime() < limite) {
+            Thread.sleep(1);
+        }
+        assertTrue(boite.estVide());
+    }
+}
@@ -0,0 +1,52 @@
+package org.emp.gl.time.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.UniteTemps;
+import org.junit.Test;
+
+/**
+ * Tests de la diffusion répartie sur plusieurs threads
+ */
+public class DiffusionRepartieTest {
+
+    @Test
+    public void chaqueEcouteurRecoitSesSecondesDansLOrdre() {
+        HorlogeVirtuelle horloge = new HorlogeVirtuelle(0);
+        DummyTimeServiceImpl service = new DummyTimeServiceImpl(horloge, ZoneOffset.UTC);
+        try {
+            service.activerDiffusionRepartie(4);
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            List<List<Integer>> recus = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                List<Integer> secondes = new ArrayList<>();
+                recus.add(secondes);
+                TickListener ecouteur = (unite, ancienne, h, m, s, d) -> {
+                    secondes.add(s);
+                    threads.add(Thread.currentThread().getName());
+                };
+                service.addTickListener(ecouteur, UniteTemps.MASQUE_SECONDE, 1);
+            }
+
+            horloge.avancer(3, TimeUnit.SECONDS);
+
+            for (List<Integer> secondes : recus) {
+                assertEquals(3, secondes.size());
+                assertEquals(1, (int) secondes.get(0));
+                assertEquals(3, (int) secondes.get(2));
+            }
+            assertTrue(threads.size() > 1);
+        } finally {
+            service.arreter();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package org.emp.gl.time.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.emp.gl.timer.service.InstantaneTemps;
+import org.emp.gl.timer.service.ServicesTemps;
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests du service piloté par une horloge virtuelle manuelle
+ */
+public class HorlogeVirtuelleTest {
+
+    private static final long DEPART = ZonedDateTime
+            .of(2024, 1, 1, 23, 59, 58, 950000000, ZoneOffset.UTC)
+            .toInstant().toEpochMilli();
+
+    private HorlogeVirtuelle horloge;
+    private DummyTimeServiceImpl service;
+
+    @Before
+    public void demarrer() {
+        horloge = new HorlogeVirtuelle(DEPART);
+        service = new DummyTimeServiceImpl(horloge, ZoneOffset.UTC);
+    }
+
+    @After
+    public void arreter() {
+        service.arreter();
+    }
+
+    @Test
+    public void suiteDEvenementsIdentiqueAuTempsReel() {
+        List<String> recus = new ArrayList<>();
+        TimerChangeListener ecouteur = evt -> recus.add(
+                evt.getPropertyName() + " " + evt.getOldValue() + "->" + evt.getNewValue());
+        service.addTimeChangeListener(ecouteur, UniteTemps.MASQUE_SECONDE
+                | UniteTemps.MASQUE_MINUTE | UniteTemps.MASQUE_HEURE, 1);
+
+        horloge.avancer(2, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(
+                "seconde 58->59",
+                "seconde 59->0",
+                "minute 59->0",
+                "heure 23->0"), recus);
+        assertEquals(0, service.getHeures());
+        assertEquals(0, service.getSecondes());
+    }
+
+    @Test
+    public void deuxHeuresSimuleesSansAttendre() {
+        AtomicInteger secondes = new AtomicInteger();
+        service.addTimeChangeListener(evt -> secondes.incrementAndGet(),
+                                      UniteTemps.MASQUE_SECONDE, 1);
+
+        horloge.avancer(2, TimeUnit.HOURS);
+
+        assertEquals(7200, secondes.get());
+    }
+
+    @Test
+    public void sautDeLHeureMuraleSansPerteDeSeconde() {
+        AtomicInteger secondes = new AtomicInteger();
+        List<String> sauts = new ArrayList<>();
+        service.addTimeChangeListener(evt -> {
+            if (TimerChangeListener.SECONDE_PROP.equals(evt.getPropertyName())) {
+                secondes.incrementAndGet();
+            } else {
+                sauts.add(evt.getOldValue() + "->" + evt.getNewValue());
+            }
+        }, UniteTemps.MASQUE_SECONDE | UniteTemps.MASQUE_DISCONTINUITE, 1);
+
+        horloge.avancer(1, TimeUnit.SECONDS);
+        horloge.decalerHeureMurale(TimeUnit.HOURS.toMillis(1));
+        horloge.avancer(2, TimeUnit.SECONDS);
+
+        assertEquals(3, secondes.get());
+        assertEquals(1, sauts.size());
+    }
+
+    @Test
+    public void sautIgnoreDesEcouteursDeToutesLesUnites() {
+        List<String> proprietes = new ArrayList<>();
+        service.addTimeChangeListener(evt -> proprietes.add(evt.getPropertyName()));
+
+        horloge.decalerHeureMurale(TimeUnit.HOURS.toMillis(1));
+        horloge.avancer(1, TimeUnit.SECONDS);
+
+        assertTrue(!proprietes.isEmpty());
+        assertTrue(!proprietes.contains(TimerChangeListener.DISCONTINUITE_PROP));
+    }
+
+    @Test
+    public void moteurSuspenduSansEcouteurNiTache() {
+        MetriquesServiceTemps metriques = service.getMetriques();
+        horloge.avancer(10, TimeUnit.SECONDS);
+        assertEquals(0, metriques.getNombreTicks());
+        assertEquals(0, metriques.getPasTickMillis());
+
+        TickListener ecouteur = (unite, ancienne, h, m, s, d) -> { };
+        service.addTickListener(ecouteur, UniteTemps.MASQUE_MINUTE, 1);
+        assertEquals(60000, metriques.getPasTickMillis());
+        service.addTickListener(ecouteur, UniteTemps.MASQUE_DIXIEME, 1);
+        horloge.avancer(1, TimeUnit.SECONDS);
+        assertEquals(10, metriques.getNombreTicks());
+
+        service.desactiver();
+        horloge.avancer(10, TimeUnit.SECONDS);
+        assertEquals(10, metriques.getNombreTicks());
+        assertEquals(0, metriques.getPasTickMillis());
+    }
+
+    @Test
+    public void accesseursAJourSansEcouteur() {
+        TimerService paris = service.pourFuseau(ZoneOffset.ofHours(1));
+        assertEquals(58, service.getSecondes());
+        horloge.avancer(5, TimeUnit.SECONDS);
+        assertEquals(0, service.getMetriques().getNombreTicks());
+        assertEquals(3, service.getSecondes());
+        assertEquals(0, service.getHeures());
+        assertEquals(1, paris.getHeures());
+        assertEquals(3, InstantaneTemps.secondes(paris.snapshot()));
+
+        // Un pas à la minute ne rafraîchit pas les secondes publiées
+        TickListener ecouteur = (unite, ancienne, h, m, s, d) -> { };
+        service.addTickListener(ecouteur, UniteTemps.MASQUE_MINUTE, 1);
+        horloge.avancer(2500, TimeUnit.MILLISECONDS);
+        assertEquals(6, service.getSecondes());
+        assertEquals(4, service.getDixiemeDeSeconde());
+        assertEquals(450, service.getMillisecondes());
+    }
+
+    @Test
+    public void threadDuMoteurLimiteAuxAbonnements() throws InterruptedException {
+        assertEquals(Thread.State.TERMINATED, service.getEtatThread());
+        AtomicInteger secondes = new AtomicInteger();
+        TickListener ecouteur = (unite, ancienne, h, m, s, d) -> secondes.incrementAndGet();
+        service.addTickListener(ecouteur, UniteTemps.MASQUE_SECONDE, 1);
+        horloge.avancer(2, TimeUnit.SECONDS);
+        assertEquals(2, secondes.get());
+        assertNotEquals(Thread.State.TERMINATED, service.getEtatThread());
+
+        service.removeTickListener(ecouteur);
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.getEtatThread() != Thread.State.TERMINATED && System.nanoTime() < limite) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.TERMINATED, service.getEtatThread());
+        horloge.avancer(10, TimeUnit.SECONDS);
+
+        service.addTickListener(ecouteur, UniteTemps.MASQUE_SECONDE, 1);
+        horloge.avancer(1, TimeUnit.SECONDS);
+        assertEquals(3, secondes.get());
+    }
+
+    @Test
+    public void implementationDecouverteParServiceLoader() {
+        TimerService decouvert = ServicesTemps.charger();
+        try {
+            assertTrue(decouvert instanceof DummyTimeServiceImpl);
+        } finally {
+            ((DummyTimeServiceImpl) decouvert).arreter();
+        }
+
+        System.setProperty(ServicesTemps.PROPRIETE, DummyTimeServiceImpl.class.getName());
+        try {
+            decouvert = ServicesTemps.charger();
+            assertTrue(decouvert instanceof DummyTimeServiceImpl);
+            ((DummyTimeServiceImpl) decouvert).arreter();
+
+            System.setProperty(ServicesTemps.PROPRIETE, RejoueurTicks.class.getName());
+            try {
+                ServicesTemps.charger();
+                fail("Implémentation non déclarée retenue");
+            } catch (IllegalStateException e) {
+                // Attendu : seules les classes déclarées sont créées
+            }
+        } finally {
+            System.clearProperty(ServicesTemps.PROPRIETE);
+        }
+    }
+
+    @Test
+    public void millisecondesALaResolutionConfiguree() {
+        List<Integer> millisecondes = new ArrayList<>();
+        List<String> proprietes = new ArrayList<>();
+        service.setResolutionMillis(5);
+        service.addTickListener((unite, ancienne, h, m, s, ms) -> millisecondes.add(ms),
+                                UniteTemps.MASQUE_MILLISECONDE, 1);
+        service.addTimeChangeListener(evt -> proprietes.add(
+                evt.getPropertyName() + " " + evt.getNewValue()),
+                UniteTemps.MASQUE_MILLISECONDE, 10);
+        assertEquals(5, service.getMetriques().getPasTickMillis());
+
+        horloge.avancer(100, TimeUnit.MILLISECONDS);
+
+        assertEquals(20, millisecondes.size());
+        assertEquals(955, (int) millisecondes.get(0));
+        assertEquals(50, (int) millisecondes.get(19));
+        assertEquals(Arrays.asList("milliseconde 0", "milliseconde 50"), proprietes);
+        assertEquals(50, service.getMillisecondes());
+        assertEquals(59, service.getSecondes());
+    }
+}
@@ -0,0 +1,59 @@
+package org.emp.gl.time.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.UniteTemps;
+import org.junit.Test;
+
+/**
+ * Tests des histogrammes et des métriques publiées par JMX
+ */
+public class MetriquesServiceTempsTest {
+
+    @Test
+    public void histogrammeRespecteLaPrecisionDesSeaux() {
+        HistogrammeLatences histogramme = new HistogrammeLatences();
+        for (long v = 1; v <= 1000; v++) {
+            histogramme.enregistrer(v * 1000);
+        }
+        assertEquals(1000, histogramme.getNombre());
+        assertEquals(1000000, histogramme.getMaximum());
+        long p50 = histogramme.getCentile(50);
+        assertTrue(p50 >= 500000 && p50 <= 500000 * 107 / 100);
+        assertEquals(1000000, histogramme.getCentile(100));
+    }
+
+    @Test
+    public void metriquesCompteesEtPublieesParJmx() throws Exception {
+        HorlogeVirtuelle horloge = new HorlogeVirtuelle(0);
+        DummyTimeServiceImpl service = new DummyTimeServiceImpl(horloge, ZoneOffset.UTC);
+        try {
+            MetriquesServiceTemps metriques = service.getMetriques();
+            assertNull(metriques.getNomMBean());
+            service.exposerJmx();
+            metriques.setMesureParEcouteur(true);
+            TickListener ecouteur = (unite, ancienne, h, m, s, d) -> { };
+            service.addTickListener(ecouteur, UniteTemps.MASQUE_SECONDE, 1);
+
+            horloge.avancer(3, TimeUnit.SECONDS);
+
+            // Un seul tick par seconde pour un abonné aux secondes
+            assertEquals(3, metriques.getNombreTicks());
+            assertEquals(1, metriques.getNombreEcouteurs());
+            assertEquals(1, metriques.getLatenceEcouteursP50Nanos().size());
+            assertNotNull(metriques.getNomMBean());
+            assertEquals(3L, ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(metriques.getNomMBean(), "NombreTicks"));
+        } finally {
+            service.arreter();
+        }
+    }
+}
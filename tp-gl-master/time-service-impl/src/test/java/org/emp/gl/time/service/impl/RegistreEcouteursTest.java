@@ -0,0 +1,96 @@
+package org.emp.gl.time.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests du registre d'écouteurs à lecture sans verrou
+ */
+public class RegistreEcouteursTest {
+
+    @Test
+    public void limiteRedescendApresUnPic() {
+        RegistreEcouteurs<Integer> registre = new RegistreEcouteurs<>();
+        for (int i = 0; i < 100000; i++) {
+            registre.ajouter(i);
+        }
+        assertEquals(100000, registre.getLimite());
+        for (int i = 0; i < 100000; i++) {
+            registre.retirer(i);
+        }
+        assertEquals(0, registre.getLimite());
+        assertEquals(0, registre.taille());
+    }
+
+    @Test
+    public void emplacementsLibresReutilisesSousLaLimite() {
+        RegistreEcouteurs<String> registre = new RegistreEcouteurs<>();
+        registre.ajouter("a");
+        registre.ajouter("b");
+        registre.ajouter("c");
+        registre.ajouter("d");
+        assertTrue(registre.retirer("b"));
+        assertEquals(4, registre.getLimite());
+        registre.retirer("d");
+        assertEquals(3, registre.getLimite());
+        // Le trou laissé par b est rendu avec c
+        registre.retirer("c");
+        assertEquals(1, registre.getLimite());
+        assertFalse(registre.retirer("c"));
+
+        registre.ajouter("e");
+        registre.ajouter("f");
+        assertEquals(3, registre.getLimite());
+        assertEquals("e", registre.getEmplacements().get(1));
+        assertEquals("f", registre.getEmplacements().get(2));
+    }
+
+    @Test
+    public void limiteToujoursAuPlusJusteApresDesOperationsAleatoires() {
+        RegistreEcouteurs<Integer> registre = new RegistreEcouteurs<>();
+        List<Integer> presents = new ArrayList<>();
+        Random aleatoire = new Random(42);
+        for (int operation = 0; operation < 200000; operation++) {
+            if (presents.isEmpty() || aleatoire.nextInt(3) != 0) {
+                int ecouteur = operation;
+                assertTrue(registre.ajouter(ecouteur));
+                presents.add(ecouteur);
+            } else {
+                int index = aleatoire.nextInt(presents.size());
+                assertTrue(registre.retirer(presents.get(index)));
+                presents.set(index, presents.get(presents.size() - 1));
+                presents.remove(presents.size() - 1);
+            }
+            if (operation % 1000 == 0 || presents.isEmpty()) {
+                verifier(registre, presents.size());
+            }
+        }
+        for (Integer ecouteur : new ArrayList<>(presents)) {
+            registre.retirer(ecouteur);
+        }
+        assertEquals(0, registre.getLimite());
+    }
+
+    /**
+     * Chaque écouteur est vu une fois sous la limite, dont le dernier emplacement est occupé
+     */
+    private static void verifier(RegistreEcouteurs<Integer> registre, int attendus) {
+        int limite = registre.getLimite();
+        int vus = 0;
+        for (int i = 0; i < limite; i++) {
+            if (registre.getEmplacements().get(i) != null) {
+                vus++;
+            }
+        }
+        assertEquals(attendus, vus);
+        assertEquals(attendus, registre.taille());
+        assertTrue(limite == 0 || registre.getEmplacements().get(limite - 1) != null);
+    }
+}
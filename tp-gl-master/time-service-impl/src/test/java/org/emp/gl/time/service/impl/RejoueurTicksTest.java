@@ -0,0 +1,149 @@
+package org.emp.gl.time.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.emp.gl.timer.service.UniteTemps;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests de l'enregistrement puis du rejeu d'un service piloté par une
+ * horloge virtuelle
+ */
+public class RejoueurTicksTest {
+
+    private static final long DEPART = ZonedDateTime
+            .of(2024, 1, 1, 23, 59, 58, 950000000, ZoneOffset.UTC)
+            .toInstant().toEpochMilli();
+
+    @Rule
+    public TemporaryFolder dossier = new TemporaryFolder();
+
+    @Test
+    public void rejeuIdentiqueALEnregistrement() throws Exception {
+        Path fichier = dossier.getRoot().toPath().resolve("ticks.journal");
+        HorlogeVirtuelle horloge = new HorlogeVirtuelle(DEPART);
+        DummyTimeServiceImpl service = new DummyTimeServiceImpl(horloge, ZoneOffset.UTC);
+        service.setResolutionMillis(50);
+        List<String> enDirect = new ArrayList<>();
+        List<Integer> millisEnDirect = new ArrayList<>();
+        service.addTickListener((unite, ancienne, h, m, s, ms) -> millisEnDirect.add(ms),
+                                UniteTemps.MASQUE_MILLISECONDE, 1);
+        service.addTimeChangeListener(ecouteur(enDirect), UniteTemps.MASQUE_SECONDE
+                | UniteTemps.MASQUE_MINUTE | UniteTemps.MASQUE_HEURE, 1);
+        try (EnregistreurTicks enregistreur = new EnregistreurTicks(service, fichier)) {
+            enregistreur.demarrer();
+            horloge.avancer(2, TimeUnit.SECONDS);
+            assertEquals(64, enregistreur.getNombreEvenements());
+        } finally {
+            service.arreter();
+        }
+
+        try (RejoueurTicks rejoueur = new RejoueurTicks(fichier)) {
+            List<String> rejoues = new ArrayList<>();
+            rejoueur.addTimeChangeListener(ecouteur(rejoues), UniteTemps.MASQUE_SECONDE
+                    | UniteTemps.MASQUE_MINUTE | UniteTemps.MASQUE_HEURE, 1);
+            AtomicInteger dixiemes = new AtomicInteger();
+            rejoueur.addTickListener((unite, ancienne, h, m, s, d) -> dixiemes.incrementAndGet(),
+                                     UniteTemps.MASQUE_DIXIEME, 1);
+            List<Integer> millisRejouees = new ArrayList<>();
+            rejoueur.addTickListener((unite, ancienne, h, m, s, ms) -> millisRejouees.add(ms),
+                                     UniteTemps.MASQUE_MILLISECONDE, 1);
+
+            assertEquals(64, rejoueur.rejouer(Double.POSITIVE_INFINITY));
+            assertEquals(enDirect, rejoues);
+            assertEquals(40, millisRejouees.size());
+            assertEquals(millisEnDirect, millisRejouees);
+            assertEquals(Arrays.asList(0, 50), millisRejouees.subList(0, 2));
+            assertEquals(Arrays.asList(
+                    "seconde 58->59",
+                    "seconde 59->0",
+                    "minute 59->0",
+                    "heure 23->0"), rejoues);
+            assertEquals(20, dixiemes.get());
+            assertEquals(0, rejoueur.getHeures());
+            assertEquals(0, rejoueur.getSecondes());
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void journalSurPlusieursRegionsRembobinePendantUnRejeu() throws Exception {
+        Path fichier = dossier.getRoot().toPath().resolve("long.journal");
+        long nombre = EnregistreurTicks.TAILLE_REGION / EnregistreurTicks.TAILLE_EVENEMENT + 1000;
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer tampon = ByteBuffer.allocate(1 << 16);
+            tampon.putInt(EnregistreurTicks.MAGIQUE).putInt(EnregistreurTicks.VERSION).putLong(0);
+            for (long i = 0; i < nombre; i++) {
+                if (!tampon.hasRemaining()) {
+                    ecrire(canal, tampon);
+                }
+                // Une seconde par milliseconde du journal
+                long seconde = i + 1;
+                tampon.putLong(TimeUnit.MILLISECONDS.toNanos(i + 1));
+                tampon.putInt(EnregistreurTicks.composer(UniteTemps.SECONDE,
+                        (int) (seconde / 3600 % 24), (int) (seconde / 60 % 60),
+                        (int) (seconde % 60), 0));
+                tampon.putInt((int) ((seconde + 59) % 60));
+            }
+            ecrire(canal, tampon);
+        }
+
+        try (RejoueurTicks rejoueur = new RejoueurTicks(fichier)) {
+            assertEquals(nombre, rejoueur.getNombreEvenements());
+            AtomicLong recus = new AtomicLong();
+            rejoueur.addTickListener((unite, ancienne, h, m, s, d) -> recus.incrementAndGet(),
+                                     UniteTemps.MASQUE_SECONDE, 1);
+            assertEquals(nombre, rejoueur.rejouer(Double.POSITIVE_INFINITY));
+            assertEquals(nombre, recus.get());
+            long derniere = nombre;
+            assertEquals(derniere / 3600 % 24, rejoueur.getHeures());
+            assertEquals(derniere % 60, rejoueur.getSecondes());
+
+            // Au rythme d'origine, le rejeu durerait près de vingt minutes
+            rejoueur.rembobiner();
+            assertEquals(1, rejoueur.getSecondes());
+            recus.set(0);
+            AtomicLong rejoues = new AtomicLong(-1);
+            Thread lecteur = new Thread(() -> rejoues.set(rejoueur.rejouer(1)));
+            lecteur.start();
+            while (recus.get() < 10) {
+                Thread.sleep(1);
+            }
+            rejoueur.rembobiner();
+            lecteur.join();
+            assertTrue(rejoues.get() >= 10 && rejoues.get() < nombre);
+            assertEquals(1, rejoueur.getSecondes());
+        }
+    }
+
+    private static void ecrire(FileChannel canal, ByteBuffer tampon) throws IOException {
+        tampon.flip();
+        while (tampon.hasRemaining()) {
+            canal.write(tampon);
+        }
+        tampon.clear();
+    }
+
+    private static TimerChangeListener ecouteur(List<String> recus) {
+        return evt -> recus.add(
+                evt.getPropertyName() + " " + evt.getOldValue() + "->" + evt.getNewValue());
+    }
+}
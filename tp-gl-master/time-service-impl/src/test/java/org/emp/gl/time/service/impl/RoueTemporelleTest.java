@@ -0,0 +1,74 @@
+package org.emp.gl.time.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.emp.gl.timer.service.TacheProgrammee;
+import org.junit.Test;
+
+/**
+ * Tests de la roue temporelle hiérarchique, avec un temps simulé
+ */
+public class RoueTemporelleTest {
+
+    private static final long TICK = 100;
+
+    @Test
+    public void tachePonctuelleExpireAuBonTick() {
+        RoueTemporelle roue = new RoueTemporelle(TICK, 0);
+        AtomicInteger executions = new AtomicInteger();
+        TacheProgrammee tache = roue.programmer(executions::incrementAndGet, 0, 250, 0);
+
+        roue.avancer(299);
+        assertEquals(0, executions.get());
+        roue.avancer(300);
+        assertEquals(1, executions.get());
+        assertTrue(tache.estExpiree());
+        assertEquals(0, roue.getNombreTaches());
+    }
+
+    @Test
+    public void tacheLointaineRedescendLesNiveaux() {
+        RoueTemporelle roue = new RoueTemporelle(TICK, 0);
+        AtomicInteger executions = new AtomicInteger();
+        long echeance = 70000 * TICK + 3;
+        roue.programmer(executions::incrementAndGet, 0, echeance, 0);
+
+        roue.avancer(70000 * TICK);
+        assertEquals(0, executions.get());
+        roue.avancer(70001 * TICK);
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void tacheAnnuleeNeSExecutePas() {
+        RoueTemporelle roue = new RoueTemporelle(TICK, 0);
+        AtomicInteger executions = new AtomicInteger();
+        TacheProgrammee tache = roue.programmer(executions::incrementAndGet, 0, 500, 0);
+        roue.avancer(100);
+
+        assertTrue(tache.annuler());
+        assertFalse(tache.annuler());
+        roue.avancer(1000);
+        assertEquals(0, executions.get());
+        assertEquals(0, roue.getNombreTaches());
+    }
+
+    @Test
+    public void tachePeriodiqueSeRepete() {
+        RoueTemporelle roue = new RoueTemporelle(TICK, 0);
+        AtomicInteger executions = new AtomicInteger();
+        TacheProgrammee tache = roue.programmer(executions::incrementAndGet, 0, 100, 200);
+
+        for (long t = 0; t <= 1000; t += TICK) {
+            roue.avancer(t);
+        }
+        assertEquals(5, executions.get());
+        tache.annuler();
+        roue.avancer(5000);
+        assertEquals(5, executions.get());
+    }
+}
@@ -0,0 +1,86 @@
+package org.emp.gl.time.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests des vues par fuseau d'un service piloté par une horloge virtuelle
+ */
+public class VueFuseauTest {
+
+    private HorlogeVirtuelle horloge;
+    private DummyTimeServiceImpl service;
+
+    private void demarrer(int annee, int mois, int jour, int heure, int minute, int seconde) {
+        horloge = new HorlogeVirtuelle(ZonedDateTime
+                .of(annee, mois, jour, heure, minute, seconde, 0, ZoneOffset.UTC)
+                .toInstant().toEpochMilli());
+        service = new DummyTimeServiceImpl(horloge, ZoneOffset.UTC);
+    }
+
+    @After
+    public void arreter() {
+        service.arreter();
+    }
+
+    private static TimerChangeListener ecouteur(List<String> recus) {
+        return evt -> recus.add(
+                evt.getPropertyName() + " " + evt.getOldValue() + "->" + evt.getNewValue());
+    }
+
+    @Test
+    public void plusieursFuseauxSurUnMemeMoteur() {
+        demarrer(2024, 1, 1, 23, 59, 59);
+        TimerService tokyo = service.pourFuseau(ZoneId.of("Asia/Tokyo"));
+        TimerService newYork = service.pourFuseau(ZoneId.of("America/New_York"));
+        assertSame(tokyo, service.pourFuseau(ZoneId.of("Asia/Tokyo")));
+        List<String> aTokyo = new ArrayList<>();
+        List<String> aNewYork = new ArrayList<>();
+        tokyo.addTimeChangeListener(ecouteur(aTokyo), UniteTemps.MASQUE_HEURE, 1);
+        newYork.addTimeChangeListener(ecouteur(aNewYork), UniteTemps.MASQUE_HEURE, 1);
+        assertEquals(60000, service.getMetriques().getPasTickMillis());
+
+        horloge.avancer(1, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("heure 8->9"), aTokyo);
+        assertEquals(Arrays.asList("heure 18->19"), aNewYork);
+        assertEquals(0, service.getHeures());
+        assertEquals(9, tokyo.getHeures());
+        assertEquals(19, newYork.getHeures());
+    }
+
+    @Test
+    public void changementDHeureSignaleParLaSeuleVueConcernee() {
+        // Passage à l'heure d'été à Paris : 2 h locales deviennent 3 h
+        demarrer(2024, 3, 31, 0, 59, 58);
+        TimerService paris = service.pourFuseau(ZoneId.of("Europe/Paris"));
+        List<String> aParis = new ArrayList<>();
+        List<String> enUtc = new ArrayList<>();
+        paris.addTimeChangeListener(ecouteur(aParis),
+                UniteTemps.MASQUE_HEURE | UniteTemps.MASQUE_DISCONTINUITE, 1);
+        service.addTimeChangeListener(ecouteur(enUtc),
+                UniteTemps.MASQUE_HEURE | UniteTemps.MASQUE_DISCONTINUITE, 1);
+
+        horloge.avancer(4, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(
+                TimerChangeListener.DISCONTINUITE_PROP + " 7199->10800",
+                "heure 1->3"), aParis);
+        assertEquals(Arrays.asList("heure 0->1"), enUtc);
+        assertEquals(3, paris.getHeures());
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Serveur de ticks non bloquant
+ */
+package org.emp.gl.time.service.remote;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.emp.gl.timer.service.InstantaneTemps;
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
+
+/**
+ * Publie les ticks d'un service de temps à des abonnés TCP.
+ * <p>
+ * Le thread du service ne fait que ranger chaque tick dans un historique
+ * circulaire et réveiller le sélecteur. Un unique thread de sélection sert
+ * toutes les connexions : les trames accumulées depuis son dernier passage
+ * sont écrites d'un seul appel par abonné, directement depuis un tampon
+ * partagé. Seul un abonné trop lent reçoit son propre tampon d'attente ;
+ * lorsqu'il est plein, les trames suivantes lui sont retirées et comptées,
+ * l'abonné rattrapant l'heure à la trame suivante.
+ */
+public class ServeurTicks implements TickListener, AutoCloseable {
+
+    private static final int TAILLE_HISTORIQUE = 64;
+    private static final int TRAMES_EN_ATTENTE = 64;
+
+    private final TimerService service;
+    private final Selector selecteur;
+    private final ServerSocketChannel canalServeur;
+    private final Thread thread;
+    private final List<Connexion> connexions;
+
+    // Historique écrit par le thread du service
+    private final long[] instantanes;
+    private final boolean[] discontinuites;
+    private volatile long publiee;
+
+    // Manipulés par le seul thread de sélection
+    private long envoyee;
+    private final ByteBuffer lot;
+    private final ByteBuffer accueil;
+    private final ByteBuffer lecture;
+
+    private volatile boolean enMarche;
+    private volatile int nombreAbonnes;
+    private volatile long tramesEnvoyees;
+    private volatile long tramesRejetees;
+
+    /**
+     * Ouvre le serveur sur une adresse locale
+     *
+     * @param service Service dont les ticks sont publiés
+     * @param adresse Adresse d'écoute, le port 0 en choisissant un libre
+     */
+    public ServeurTicks(TimerService service, InetSocketAddress adresse) throws IOException {
+        this.service = service;
+        this.selecteur = Selector.open();
+        this.canalServeur = ServerSocketChannel.open();
+        canalServeur.bind(adresse);
+        canalServeur.configureBlocking(false);
+        canalServeur.register(selecteur, SelectionKey.OP_ACCEPT);
+        this.connexions = new ArrayList<>();
+        this.instantanes = new long[TAILLE_HISTORIQUE];
+        this.discontinuites = new boolean[TAILLE_HISTORIQUE];
+        this.publiee = -1;
+        this.envoyee = -1;
+        this.lot = ByteBuffer.allocateDirect(TAILLE_HISTORIQUE * TrameTick.TAILLE);
+        this.accueil = ByteBuffer.allocateDirect(TrameTick.TAILLE);
+        this.lecture = ByteBuffer.allocateDirect(256);
+        this.thread = new Thread(this::boucler, "serveur-ticks");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Démarre le thread de sélection et l'abonnement au service
+     */
+    public void demarrer() {
+        enMarche = true;
+        thread.start();
+        service.addTickListener(this,
+                UniteTemps.MASQUE_DIXIEME | UniteTemps.MASQUE_DISCONTINUITE, 1);
+    }
+
+    /**
+     * Retourne le port d'écoute effectif
+     */
+    public int getPort() {
+        return canalServeur.socket().getLocalPort();
+    }
+
+    /**
+     * Range un tick dans l'historique, sur le thread du service
+     */
+    @Override
+    public void onTick(int unite, int ancienneValeur, int heures, int minutes,
+                       int secondes, int dixiemes) {
+        long sequence = publiee + 1;
+        int index = (int) (sequence % TAILLE_HISTORIQUE);
+        instantanes[index] = InstantaneTemps.composer(heures, minutes, secondes, dixiemes * 100);
+        discontinuites[index] = unite == UniteTemps.DISCONTINUITE;
+        publiee = sequence;
+        selecteur.wakeup();
+    }
+
+    /**
+     * Boucle du thread de sélection
+     */
+    private void boucler() {
+        try {
+            while (enMarche) {
+                selecteur.select();
+                diffuserTrames();
+                traiterEvenements();
+            }
+        } catch (IOException e) {
+            System.err.println("Serveur de ticks arrêté : " + e);
+        } finally {
+            fermerTout();
+        }
+    }
+
+    /**
+     * Traite les connexions entrantes et les sockets prêtes
+     */
+    private void traiterEvenements() throws IOException {
+        Iterator<SelectionKey> cles = selecteur.selectedKeys().iterator();
+        while (cles.hasNext()) {
+            SelectionKey cle = cles.next();
+            cles.remove();
+            if (!cle.isValid()) {
+                continue;
+            }
+            if (cle.isAcceptable()) {
+                accepter();
+                continue;
+            }
+            Connexion connexion = (Connexion) cle.attachment();
+            if (cle.isReadable()) {
+                lire(connexion);
+            }
+            if (cle.isValid() && cle.isWritable()) {
+                ecrireEnAttente(connexion);
+            }
+        }
+    }
+
+    /**
+     * Accepte un abonné et lui envoie l'heure courante.
+     * Les trames déjà publiées portent un numéro inférieur ou égal à
+     * celui de l'accueil : l'abonné les ignore.
+     */
+    private void accepter() throws IOException {
+        SocketChannel canal = canalServeur.accept();
+        if (canal == null) {
+            return;
+        }
+        canal.configureBlocking(false);
+        canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connexion connexion = new Connexion(canal, connexions.size());
+        connexion.cle = canal.register(selecteur, SelectionKey.OP_READ, connexion);
+        connexions.add(connexion);
+        nombreAbonnes = connexions.size();
+
+        long sequence = publiee;
+        accueil.clear();
+        TrameTick.ecrire(accueil, (int) sequence, service.snapshot(), false);
+        accueil.flip();
+        envoyer(connexion, accueil, 1);
+    }
+
+    /**
+     * Envoie à chaque abonné les trames publiées depuis le dernier passage
+     */
+    private void diffuserTrames() {
+        long derniere = publiee;
+        if (derniere == envoyee || connexions.isEmpty()) {
+            envoyee = derniere;
+            return;
+        }
+        long premiere = Math.max(envoyee + 1, derniere - TAILLE_HISTORIQUE + 1);
+        lot.clear();
+        for (long sequence = premiere; sequence <= derniere; sequence++) {
+            int index = (int) (sequence % TAILLE_HISTORIQUE);
+            TrameTick.ecrire(lot, (int) sequence, instantanes[index], discontinuites[index]);
+        }
+        // Ignore les trames que le service a pu réécrire pendant la copie
+        long plusAncienneSure = publiee - TAILLE_HISTORIQUE + 1;
+        int ignorees = (int) Math.max(0, plusAncienneSure - premiere);
+        int debut = ignorees * TrameTick.TAILLE;
+        int fin = lot.position();
+        int nombre = (int) (derniere - premiere + 1) - ignorees;
+        envoyee = derniere;
+        if (nombre <= 0) {
+            return;
+        }
+
+        for (int i = connexions.size() - 1; i >= 0; i--) {
+            lot.limit(fin);
+            lot.position(debut);
+            envoyer(connexions.get(i), lot, nombre);
+        }
+    }
+
+    /**
+     * Écrit des trames vers un abonné, ou les met en attente s'il est lent
+     */
+    private void envoyer(Connexion connexion, ByteBuffer trames, int nombre) {
+        if (connexion.enAttente != null && connexion.enAttente.position() > 0) {
+            if (connexion.enAttente.remaining() < trames.remaining()) {
+                tramesRejetees += nombre;
+                return;
+            }
+            connexion.enAttente.put(trames);
+            tramesEnvoyees += nombre;
+            return;
+        }
+        try {
+            connexion.canal.write(trames);
+        } catch (IOException e) {
+            fermer(connexion);
+            return;
+        }
+        tramesEnvoyees += nombre;
+        if (trames.hasRemaining()) {
+            if (connexion.enAttente == null) {
+                connexion.enAttente = ByteBuffer.allocate(TRAMES_EN_ATTENTE * TrameTick.TAILLE);
+            }
+            connexion.enAttente.put(trames);
+            connexion.cle.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Écrit le reliquat d'un abonné lent lorsque sa socket est prête
+     */
+    private void ecrireEnAttente(Connexion connexion) {
+        ByteBuffer enAttente = connexion.enAttente;
+        enAttente.flip();
+        try {
+            connexion.canal.write(enAttente);
+        } catch (IOException e) {
+            fermer(connexion);
+            return;
+        }
+        enAttente.compact();
+        if (enAttente.position() == 0) {
+            connexion.cle.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Lit et ignore ce qu'envoie un abonné, pour détecter sa déconnexion
+     */
+    private void lire(Connexion connexion) {
+        lecture.clear();
+        try {
+            if (connexion.canal.read(lecture) < 0) {
+                fermer(connexion);
+            }
+        } catch (IOException e) {
+            fermer(connexion);
+        }
+    }
+
+    /**
+     * Ferme une connexion et la retire de la liste en O(1)
+     */
+    private void fermer(Connexion connexion) {
+        if (connexion.index < 0) {
+            return;
+        }
+        Connexion derniere = connexions.remove(connexions.size() - 1);
+        if (derniere != connexion) {
+            connexions.set(connexion.index, derniere);
+            derniere.index = connexion.index;
+        }
+        connexion.index = -1;
+        nombreAbonnes = connexions.size();
+        connexion.cle.cancel();
+        try {
+            connexion.canal.close();
+        } catch (IOException e) {
+            // Connexion déjà perdue
+        }
+    }
+
+    private void fermerTout() {
+        for (int i = connexions.size() - 1; i >= 0; i--) {
+            fermer(connexions.get(i));
+        }
+        try {
+            canalServeur.close();
+            selecteur.close();
+        } catch (IOException e) {
+            System.err.println("Fermeture du serveur de ticks : " + e);
+        }
+    }
+
+    /**
+     * Retourne le nombre d'abonnés connectés
+     */
+    public int getNombreAbonnes() {
+        return nombreAbonnes;
+    }
+
+    /**
+     * Retourne le nombre de trames écrites ou mises en attente, tous abonnés confondus
+     */
+    public long getTramesEnvoyees() {
+        return tramesEnvoyees;
+    }
+
+    /**
+     * Retourne le nombre de trames retirées à des abonnés trop lents
+     */
+    public long getTramesRejetees() {
+        return tramesRejetees;
+    }
+
+    /**
+     * Se désabonne du service et ferme toutes les connexions
+     */
+    @Override
+    public void close() {
+        service.removeTickListener(this);
+        if (!enMarche) {
+            fermerTout();
+            return;
+        }
+        enMarche = false;
+        selecteur.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * État d'un abonné
+     */
+    private static final class Connexion {
+
+        final SocketChannel canal;
+        SelectionKey cle;
+        int index;
+        ByteBuffer enAttente;
+
+        Connexion(SocketChannel canal, int index) {
+            this.canal = canal;
+            this.index = index;
+        }
+    }
+}
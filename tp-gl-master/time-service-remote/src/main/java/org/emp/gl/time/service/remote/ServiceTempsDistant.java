@@ -0,0 +1,230 @@
+/*
+ * Service de temps alimenté par un serveur de ticks distant
+ */
+package org.emp.gl.time.service.remote;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import org.emp.gl.time.service.impl.DummyTimeServiceImpl;
+import org.emp.gl.time.service.impl.HorlogeVirtuelle;
+import org.emp.gl.timer.service.InstantaneTemps;
+import org.emp.gl.timer.service.TacheProgrammee;
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.emp.gl.timer.service.TimerService;
+
+/**
+ * Implémentation de {@link TimerService} qui suit l'heure d'un
+ * {@link ServeurTicks}.
+ * <p>
+ * Le service local est piloté par une {@link HorlogeVirtuelle} manuelle :
+ * chaque trame reçue fait avancer le temps virtuel jusqu'à l'heure du
+ * serveur, si bien que les écouteurs, les abonnements et les tâches
+ * programmées se comportent exactement comme avec un service local.
+ * Les trames perdues par un client lent sont rattrapées tick par tick,
+ * un saut de l'horloge du serveur est rejoué comme une discontinuité.
+ * <p>
+ * Les accesseurs rendent l'heure du service local, celle du dernier tick
+ * rejoué : pendant un rattrapage, un écouteur lit la même heure que celle
+ * qu'il reçoit. Sans écouteur, ils lisent l'horloge virtuelle, avancée à
+ * chaque trame ; le moteur ne tourne qu'à l'arrivée des trames.
+ * L'heure reçue est déjà celle du fuseau du serveur. Si la connexion est
+ * perdue, l'heure reste figée jusqu'à la fermeture du service.
+ */
+public class ServiceTempsDistant implements TimerService, AutoCloseable {
+
+    private static final long PERIODE_MILLIS = 100;
+    private static final long MILLIS_PAR_JOUR = TimeUnit.DAYS.toMillis(1);
+    private static final long SEUIL_SAUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final SocketChannel canal;
+    private final HorlogeVirtuelle horloge;
+    private final DummyTimeServiceImpl service;
+    private final Thread lecteur;
+
+    // Manipulés par le seul thread de lecture
+    private final ByteBuffer trame;
+    private int derniereSequence;
+    private long heureMillis;
+
+    private volatile boolean connecte;
+
+    /**
+     * Se connecte au serveur et s'aligne sur son heure courante
+     *
+     * @param adresse Adresse du serveur de ticks
+     */
+    public ServiceTempsDistant(InetSocketAddress adresse) throws IOException {
+        this.canal = SocketChannel.open(adresse);
+        this.trame = ByteBuffer.allocate(TrameTick.TAILLE);
+        try {
+            canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            lireTrame();
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+        this.derniereSequence = TrameTick.sequence(trame);
+        this.heureMillis = millisDuJour(TrameTick.instantane(trame));
+        this.horloge = new HorlogeVirtuelle(heureMillis);
+        this.service = new DummyTimeServiceImpl(horloge, ZoneOffset.UTC);
+        this.connecte = true;
+        this.lecteur = new Thread(this::lire, "client-ticks");
+        this.lecteur.setDaemon(true);
+        this.lecteur.start();
+    }
+
+    /**
+     * Lit une trame complète, en bloquant
+     */
+    private void lireTrame() throws IOException {
+        trame.clear();
+        while (trame.hasRemaining()) {
+            if (canal.read(trame) < 0) {
+                throw new EOFException("Serveur de ticks déconnecté");
+            }
+        }
+    }
+
+    /**
+     * Boucle du thread de lecture
+     */
+    private void lire() {
+        try {
+            while (connecte) {
+                lireTrame();
+                if (TrameTick.type(trame) == TrameTick.TYPE_TICK) {
+                    appliquer(TrameTick.sequence(trame), TrameTick.instantane(trame),
+                              TrameTick.estDiscontinuite(trame));
+                }
+            }
+        } catch (IOException e) {
+            if (connecte) {
+                System.err.println("Connexion au serveur de ticks perdue : " + e);
+            }
+        } finally {
+            connecte = false;
+        }
+    }
+
+    /**
+     * Avance l'horloge locale jusqu'à l'heure d'une trame
+     */
+    private void appliquer(int sequence, long instantane, boolean discontinuite) {
+        if (sequence - derniereSequence <= 0) {
+            return;
+        }
+        derniereSequence = sequence;
+
+        long ecart = Math.floorMod(millisDuJour(instantane) - heureMillis, MILLIS_PAR_JOUR);
+        if (ecart > MILLIS_PAR_JOUR / 2) {
+            ecart -= MILLIS_PAR_JOUR;
+        }
+        if (ecart == 0) {
+            return;
+        }
+        heureMillis = Math.floorMod(heureMillis + ecart, MILLIS_PAR_JOUR);
+
+        long avance = ecart;
+        if (discontinuite || ecart < 0 || ecart > SEUIL_SAUT_MILLIS) {
+            // Le saut précède le dernier tick, qui le signalera aux écouteurs
+            horloge.decalerHeureMurale(ecart - PERIODE_MILLIS);
+            avance = PERIODE_MILLIS;
+        }
+        horloge.avancer(avance, TimeUnit.MILLISECONDS);
+    }
+
+    private static long millisDuJour(long instantane) {
+        return InstantaneTemps.secondesDuJour(instantane) * 1000L
+                + InstantaneTemps.millisecondes(instantane);
+    }
+
+    /**
+     * Vérifie si la connexion au serveur est toujours ouverte
+     */
+    public boolean estConnecte() {
+        return connecte;
+    }
+
+    @Override
+    public int getMinutes() {
+        return service.getMinutes();
+    }
+
+    @Override
+    public int getHeures() {
+        return service.getHeures();
+    }
+
+    @Override
+    public int getSecondes() {
+        return service.getSecondes();
+    }
+
+    @Override
+    public int getDixiemeDeSeconde() {
+        return service.getDixiemeDeSeconde();
+    }
+
+    @Override
+    public long snapshot() {
+        return service.snapshot();
+    }
+
+    @Override
+    public TacheProgrammee programmer(Runnable tache, long delai, TimeUnit unite) {
+        return service.programmer(tache, delai, unite);
+    }
+
+    @Override
+    public TacheProgrammee programmerPeriodique(Runnable tache, long delaiInitial,
+                                                long periode, TimeUnit unite) {
+        return service.programmerPeriodique(tache, delaiInitial, periode, unite);
+    }
+
+    @Override
+    public void addTimeChangeListener(TimerChangeListener pl) {
+        service.addTimeChangeListener(pl);
+    }
+
+    @Override
+    public void addTimeChangeListener(TimerChangeListener pl, int masque, int frequence) {
+        service.addTimeChangeListener(pl, masque, frequence);
+    }
+
+    @Override
+    public void removeTimeChangeListener(TimerChangeListener pl) {
+        service.removeTimeChangeListener(pl);
+    }
+
+    @Override
+    public void addTickListener(TickListener tl, int masque, int frequence) {
+        service.addTickListener(tl, masque, frequence);
+    }
+
+    @Override
+    public void removeTickListener(TickListener tl) {
+        service.removeTickListener(tl);
+    }
+
+    /**
+     * Ferme la connexion et arrête le service local
+     */
+    @Override
+    public void close() {
+        connecte = false;
+        try {
+            canal.close();
+        } catch (IOException e) {
+            // Connexion déjà perdue
+        }
+        service.arreter();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Trame binaire d'un tick transmis par le réseau
+ */
+package org.emp.gl.time.service.remote;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Format des trames de 16 octets échangées entre {@link ServeurTicks}
+ * et {@link ServiceTempsDistant}, en ordre réseau :
+ * <pre>
+ * octet 0      type (1 : tick)
+ * octet 1      drapeaux (1 : discontinuité de l'horloge)
+ * octets 2-3   réservés
+ * octets 4-7   numéro de séquence
+ * octets 8-15  heure du jour, au format InstantaneTemps
+ * </pre>
+ */
+final class TrameTick {
+
+    static final int TAILLE = 16;
+    static final byte TYPE_TICK = 1;
+    static final byte DISCONTINUITE = 1;
+
+    private TrameTick() {
+    }
+
+    /**
+     * Écrit une trame à la position courante du tampon
+     */
+    static void ecrire(ByteBuffer tampon, int sequence, long instantane, boolean discontinuite) {
+        tampon.put(TYPE_TICK);
+        tampon.put(discontinuite ? DISCONTINUITE : 0);
+        tampon.putShort((short) 0);
+        tampon.putInt(sequence);
+        tampon.putLong(instantane);
+    }
+
+    static byte type(ByteBuffer trame) {
+        return trame.get(0);
+    }
+
+    static boolean estDiscontinuite(ByteBuffer trame) {
+        return (trame.get(1) & DISCONTINUITE) != 0;
+    }
+
+    static int sequence(ByteBuffer trame) {
+        return trame.getInt(4);
+    }
+
+    static long instantane(ByteBuffer trame) {
+        return trame.getLong(8);
+    }
+}
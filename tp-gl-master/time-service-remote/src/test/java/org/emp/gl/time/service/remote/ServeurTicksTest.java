@@ -0,0 +1,83 @@
+package org.emp.gl.time.service.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.emp.gl.time.service.impl.DummyTimeServiceImpl;
+import org.emp.gl.time.service.impl.HorlogeVirtuelle;
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.emp.gl.timer.service.UniteTemps;
+import org.junit.Test;
+
+/**
+ * Tests du serveur de ticks et de son client, par la boucle locale
+ */
+public class ServeurTicksTest {
+
+    private static final long DEPART = ZonedDateTime
+            .of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC)
+            .toInstant().toEpochMilli();
+
+    @Test
+    public void clientSuitLHeureDuServeur() throws Exception {
+        HorlogeVirtuelle horloge = new HorlogeVirtuelle(DEPART);
+        DummyTimeServiceImpl service = new DummyTimeServiceImpl(horloge, ZoneOffset.UTC);
+        ServeurTicks serveur = new ServeurTicks(service,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        serveur.demarrer();
+        ServiceTempsDistant client = new ServiceTempsDistant(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), serveur.getPort()));
+        try {
+            AtomicInteger secondes = new AtomicInteger();
+            AtomicInteger discontinuites = new AtomicInteger();
+            AtomicInteger incoherences = new AtomicInteger();
+            TimerChangeListener ecouteur = evt -> {
+                if (TimerChangeListener.SECONDE_PROP.equals(evt.getPropertyName())) {
+                    // Les accesseurs donnent l'heure de l'événement reçu
+                    if (!evt.getNewValue().equals(client.getSecondes())) {
+                        incoherences.incrementAndGet();
+                    }
+                    secondes.incrementAndGet();
+                } else {
+                    discontinuites.incrementAndGet();
+                }
+            };
+            client.addTimeChangeListener(ecouteur,
+                    UniteTemps.MASQUE_SECONDE | UniteTemps.MASQUE_DISCONTINUITE, 1);
+            assertEquals(12, client.getHeures());
+
+            horloge.avancer(3, TimeUnit.SECONDS);
+            attendre(() -> secondes.get() == 3);
+            assertEquals(12, client.getHeures());
+            assertEquals(3, client.getSecondes());
+            assertEquals(0, incoherences.get());
+
+            horloge.decalerHeureMurale(TimeUnit.HOURS.toMillis(1));
+            horloge.avancer(100, TimeUnit.MILLISECONDS);
+            attendre(() -> discontinuites.get() == 1);
+            assertEquals(13, client.getHeures());
+            assertEquals(1, serveur.getNombreAbonnes());
+        } finally {
+            client.close();
+            serveur.close();
+            service.arreter();
+        }
+    }
+
+    private static void attendre(BooleanSupplier condition)
+            throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Emplacements réutilisables désignés par des poignées à génération
+ */
+package org.emp.gl.clients;
+
+import java.util.Arrays;
+
+/**
+ * Attribue des emplacements numérotés, réutilisés une fois libérés, et
+ * les poignées qui les désignent.
+ * <p>
+ * Une poignée réunit l'emplacement et sa génération, incrémentée à chaque
+ * libération : une poignée périmée ne désigne donc jamais l'occupant
+ * suivant du même emplacement. Les données d'un emplacement sont rangées
+ * par l'utilisateur dans ses propres tableaux, qu'il agrandit jusqu'à
+ * {@link #getCapacite()}. Non synchronisé.
+ */
+final class AllocateurPoignees {
+
+    static final int AUCUN = -1;
+
+    private int[] generations;
+    private int[] suivantsLibres;
+    private boolean[] occupes;
+    private int premierLibre = AUCUN;
+    private int limite;
+    private int nombre;
+
+    AllocateurPoignees(int capacite) {
+        this.generations = new int[capacite];
+        this.suivantsLibres = new int[capacite];
+        this.occupes = new boolean[capacite];
+    }
+
+    /**
+     * Prend un emplacement libre, en agrandissant les tableaux au besoin
+     */
+    int allouer() {
+        int id;
+        if (premierLibre != AUCUN) {
+            id = premierLibre;
+            premierLibre = suivantsLibres[id];
+        } else {
+            if (limite == occupes.length) {
+                agrandir(limite * 2);
+            }
+            id = limite++;
+        }
+        occupes[id] = true;
+        nombre++;
+        return id;
+    }
+
+    /**
+     * Occupe un emplacement donné avec sa génération, lors d'une relecture.
+     * Les libres sont ensuite recalculés par {@link #reindexer()}.
+     */
+    void occuper(int id, int generation) {
+        if (id >= occupes.length) {
+            agrandir(Math.max(occupes.length * 2, Integer.highestOneBit(id) << 1));
+        }
+        limite = Math.max(limite, id + 1);
+        if (!occupes[id]) {
+            occupes[id] = true;
+            nombre++;
+        }
+        generations[id] = generation;
+    }
+
+    /**
+     * Reconstruit la liste des emplacements libres
+     */
+    void reindexer() {
+        premierLibre = AUCUN;
+        for (int id = limite - 1; id >= 0; id--) {
+            if (!occupes[id]) {
+                suivantsLibres[id] = premierLibre;
+                premierLibre = id;
+            }
+        }
+    }
+
+    /**
+     * Rend un emplacement et invalide sa poignée
+     */
+    void liberer(int id) {
+        generations[id]++;
+        occupes[id] = false;
+        suivantsLibres[id] = premierLibre;
+        premierLibre = id;
+        nombre--;
+    }
+
+    private void agrandir(int capacite) {
+        generations = Arrays.copyOf(generations, capacite);
+        suivantsLibres = Arrays.copyOf(suivantsLibres, capacite);
+        occupes = Arrays.copyOf(occupes, capacite);
+    }
+
+    long poignee(int id) {
+        return ((long) generations[id] << 32) | id;
+    }
+
+    /**
+     * Retourne l'emplacement désigné par une poignée valide, AUCUN sinon
+     */
+    int emplacement(long poignee) {
+        int id = (int) poignee;
+        if (id < 0 || id >= limite || !occupes[id]
+                || generations[id] != (int) (poignee >>> 32)) {
+            return AUCUN;
+        }
+        return id;
+    }
+
+    int getGeneration(int id) {
+        return generations[id];
+    }
+
+    boolean estOccupe(int id) {
+        return occupes[id];
+    }
+
+    /**
+     * Retourne le nombre d'emplacements occupés
+     */
+    int getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Retourne la borne des emplacements déjà attribués
+     */
+    int getLimite() {
+        return limite;
+    }
+
+    /**
+     * Retourne la taille des tableaux, à suivre par ceux de l'utilisateur
+     */
+    int getCapacite() {
+        return occupes.length;
+    }
+}
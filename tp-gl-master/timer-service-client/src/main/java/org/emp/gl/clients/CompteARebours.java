@@ -2,8 +2,12 @@
 package org.emp.gl.clients;
 
 import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.emp.gl.timer.service.TimerChangeListener;
 import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
 
 /**
  * Classe permettant de gérer un décompte temporel
@@ -12,9 +16,12 @@ import org.emp.gl.timer.service.TimerService;
 public class CompteARebours implements TimerChangeListener {
 
     private int compteur;
+    private volatile int nombreDecomptes; // Écrit par le seul thread du service
     private TimerService timerService;
     private boolean isActive;
     private long startTimestamp;//it is
+    private final JournalComptesARebours journal;
+    private long poignee;
 
     /**
      * Constructeur principal du compte à rebours
@@ -22,12 +29,59 @@ public class CompteARebours implements TimerChangeListener {
      * @param service Le service de timer à utiliser
      */
     public CompteARebours(int valeurInitiale, TimerService service) {
+        this(valeurInitiale, service, null);
+    }
+    
+    /**
+     * Constructeur d'un compte à rebours persistant
+     * @param valeurInitiale La valeur de départ du compteur
+     * @param service Le service de timer à utiliser
+     * @param journal Journal où enregistrer le compte, ou null
+     */
+    public CompteARebours(int valeurInitiale, TimerService service,
+                          JournalComptesARebours journal) {
+        this(valeurInitiale, service, journal,
+             journal == null ? 0 : journal.creer(valeurInitiale * 1000L));
+        afficherMessage("Nouveau CompteARebours initialisé à " + valeurInitiale);
+    }
+    
+    private CompteARebours(int valeurInitiale, TimerService service,
+                           JournalComptesARebours journal, long poignee) {
         this.compteur = valeurInitiale;
         this.timerService = service;
+        this.journal = journal;
+        this.poignee = poignee;
         this.isActive = true;
         this.startTimestamp = System.currentTimeMillis();
-        this.timerService.addTimeChangeListener(this);
-        afficherMessage("Nouveau CompteARebours initialisé à " + valeurInitiale);
+        this.timerService.addTimeChangeListener(this, UniteTemps.MASQUE_SECONDE, 1);
+    }
+    
+    /**
+     * Recrée les comptes à rebours vivants d'un journal, chacun repartant
+     * des secondes qui le séparent de son échéance. Un compte en pause
+     * reprend ; un compte dont l'échéance est passée est terminé dans le
+     * journal sans être recréé.
+     */
+    public static List<CompteARebours> restaurer(JournalComptesARebours journal,
+                                                 TimerService service) {
+        List<CompteARebours> comptes = new ArrayList<>(journal.getNombreActifs());
+        List<Long> echus = new ArrayList<>();
+        journal.parcourir((poignee, restant, duree, enPause) -> {
+            if (restant <= 0) {
+                echus.add(poignee);
+                return;
+            }
+            if (enPause) {
+                journal.reprendre(poignee);
+            }
+            int secondes = (int) ((restant + 999) / 1000);
+            comptes.add(new CompteARebours(secondes, service, journal, poignee));
+        });
+        // Terminés après le parcours, qui ne doit pas compacter le journal
+        for (long poignee : echus) {
+            journal.terminer(poignee);
+        }
+        return comptes;
     }
     
     /**
@@ -44,6 +98,13 @@ public class CompteARebours implements TimerChangeListener {
         return this.compteur;
     }
     
+    /**
+     * Retourne le nombre de secondes décomptées depuis la création
+     */
+    public int getDecomptes() {
+        return this.nombreDecomptes;
+    }
+    
     /**
      * Vérifie si le compte à rebours est toujours actif
      */
@@ -70,7 +131,7 @@ public class CompteARebours implements TimerChangeListener {
             return;
         }
         
-        if (!estActif()) {
+        if (!this.isActive) {
             return;
         }
         
@@ -87,6 +148,7 @@ public class CompteARebours implements TimerChangeListener {
      */
     private void decompter() {
         compteur--;
+        nombreDecomptes++;
     }
     
     /**
@@ -96,15 +158,27 @@ public class CompteARebours implements TimerChangeListener {
         afficherMessage("CompteARebours TERMINÉ. Désinscription.");
         this.isActive = false;
         this.timerService.removeTimeChangeListener(this);
+        if (journal != null) {
+            journal.terminer(poignee);
+        }
     }
     
     /**
-     * Réinitialise le compteur à une nouvelle valeur
+     * Réinitialise le compteur à une nouvelle valeur.
+     * Un compte terminé se réinscrit auprès du service.
      */
     public void reinitialiser(int nouvelleValeur) {
+        if (journal != null) {
+            journal.terminer(poignee);
+            poignee = journal.creer(nouvelleValeur * 1000L);
+        }
+        boolean etaitActif = this.isActive;
         this.compteur = nouvelleValeur;
         this.isActive = true;
         this.startTimestamp = System.currentTimeMillis();
+        if (!etaitActif) {
+            this.timerService.addTimeChangeListener(this, UniteTemps.MASQUE_SECONDE, 1);
+        }
     }
 }
 
@@ -0,0 +1,249 @@
+/*
+ * Expression d'horaire à la manière de cron
+ */
+package org.emp.gl.clients;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Horaire à cinq champs à la manière de cron : minute (0-59), heure
+ * (0-23), jour du mois (1-31), mois (1-12) et jour de la semaine (0-7,
+ * 0 et 7 désignant le dimanche). Un champ accepte {@code *}, une valeur,
+ * un intervalle {@code a-b}, un pas {@code a-b/n} où {@code a-b} peut être
+ * {@code *}, et des listes séparées par des virgules. Comme pour cron, si
+ * le jour du mois et le jour de la semaine sont tous deux restreints,
+ * l'un ou l'autre suffit.
+ * Les raccourcis {@code @hourly}, {@code @daily}, {@code @weekly},
+ * {@code @monthly} et {@code @yearly} sont reconnus.
+ * <p>
+ * Chaque champ est un masque de bits : la prochaine occurrence se calcule
+ * en sautant directement au prochain mois, jour, heure puis minute
+ * admis, sans parcourir les minutes une à une.
+ * <p>
+ * Les instants sont des minutes locales, comptées depuis le 1er janvier
+ * 1970 à minuit sans fuseau.
+ */
+public final class ExpressionCron {
+
+    /**
+     * Aucune occurrence, pour une expression comme le 30 février
+     */
+    public static final long JAMAIS = Long.MAX_VALUE;
+
+    private static final int MASQUE_TOUS_JOURS_MOIS = 0xFFFFFFFE;
+    private static final int MASQUE_TOUS_JOURS_SEMAINE = 0x7F;
+
+    // Une occurrence au moins tous les 28 ans quand elle existe
+    private static final int ANNEES_RECHERCHE = 28;
+
+    private final String texte;
+    private final long minutes;
+    private final int heures;
+    private final int joursDuMois;
+    private final int mois;
+    private final int joursDeSemaine;
+    private final boolean jourOuJour;
+
+    private ExpressionCron(String texte, long minutes, int heures, int joursDuMois,
+                           int mois, int joursDeSemaine) {
+        this.texte = texte;
+        this.minutes = minutes;
+        this.heures = heures;
+        this.joursDuMois = joursDuMois;
+        this.mois = mois;
+        this.joursDeSemaine = joursDeSemaine;
+        this.jourOuJour = joursDuMois != MASQUE_TOUS_JOURS_MOIS
+                          && joursDeSemaine != MASQUE_TOUS_JOURS_SEMAINE;
+    }
+
+    /**
+     * Analyse une expression
+     *
+     * @throws IllegalArgumentException si l'expression est mal formée
+     */
+    public static ExpressionCron analyser(String expression) {
+        String texte = expression.trim();
+        String[] champs = developper(texte).split("\\s+");
+        if (champs.length != 5) {
+            throw new IllegalArgumentException("Cinq champs attendus : " + expression);
+        }
+        int joursDeSemaine = (int) champ(champs[4], 0, 7, expression);
+        if ((joursDeSemaine & 0x80) != 0) {
+            joursDeSemaine = (joursDeSemaine | 1) & MASQUE_TOUS_JOURS_SEMAINE;
+        }
+        return new ExpressionCron(texte,
+                                  champ(champs[0], 0, 59, expression),
+                                  (int) champ(champs[1], 0, 23, expression),
+                                  (int) champ(champs[2], 1, 31, expression),
+                                  (int) champ(champs[3], 1, 12, expression),
+                                  joursDeSemaine);
+    }
+
+    /**
+     * Horaire quotidien à une heure donnée
+     */
+    public static ExpressionCron chaqueJour(int heures, int minutes) {
+        return analyser(minutes + " " + heures + " * * *");
+    }
+
+    private static String developper(String texte) {
+        switch (texte) {
+            case "@hourly":
+                return "0 * * * *";
+            case "@daily":
+            case "@midnight":
+                return "0 0 * * *";
+            case "@weekly":
+                return "0 0 * * 0";
+            case "@monthly":
+                return "0 0 1 * *";
+            case "@yearly":
+            case "@annually":
+                return "0 0 1 1 *";
+            default:
+                return texte;
+        }
+    }
+
+    /**
+     * Convertit un champ en masque de bits, le bit n désignant la valeur n
+     */
+    private static long champ(String champ, int min, int max, String expression) {
+        long masque = 0;
+        for (String element : champ.split(",")) {
+            int pas = 1;
+            int barre = element.indexOf('/');
+            if (barre >= 0) {
+                pas = nombre(element.substring(barre + 1), 1, Integer.MAX_VALUE, expression);
+                element = element.substring(0, barre);
+            }
+            int debut;
+            int fin;
+            if (element.equals("*")) {
+                debut = min;
+                fin = max;
+            } else {
+                int tiret = element.indexOf('-');
+                if (tiret >= 0) {
+                    debut = nombre(element.substring(0, tiret), min, max, expression);
+                    fin = nombre(element.substring(tiret + 1), min, max, expression);
+                } else {
+                    debut = nombre(element, min, max, expression);
+                    fin = barre >= 0 ? max : debut;
+                }
+            }
+            if (debut > fin) {
+                throw new IllegalArgumentException("Intervalle inversé « " + element
+                                                   + " » dans : " + expression);
+            }
+            for (int valeur = debut; valeur <= fin; valeur += pas) {
+                masque |= 1L << valeur;
+            }
+        }
+        return masque;
+    }
+
+    private static int nombre(String texte, int min, int max, String expression) {
+        try {
+            int valeur = Integer.parseInt(texte);
+            if (valeur >= min && valeur <= max) {
+                return valeur;
+            }
+        } catch (NumberFormatException e) {
+            // signalé ci-dessous
+        }
+        throw new IllegalArgumentException("Valeur « " + texte + " » hors de "
+                                           + min + "-" + max + " dans : " + expression);
+    }
+
+    /**
+     * Calcule la première occurrence strictement postérieure à une minute
+     *
+     * @param minuteLocale Minute locale de référence
+     * @return La minute locale de l'occurrence, ou {@link #JAMAIS}
+     */
+    public long suivante(long minuteLocale) {
+        LocalDateTime depart = enDateHeure(minuteLocale + 1);
+        LocalDate jour = depart.toLocalDate();
+        int heure = depart.getHour();
+        int minute = depart.getMinute();
+        int anneeLimite = jour.getYear() + ANNEES_RECHERCHE;
+
+        while (jour.getYear() <= anneeLimite) {
+            if (!contient(mois, jour.getMonthValue())) {
+                jour = jour.withDayOfMonth(1).plusMonths(1);
+                heure = 0;
+                minute = 0;
+                continue;
+            }
+            if (!jourAdmis(jour)) {
+                jour = jour.plusDays(1);
+                heure = 0;
+                minute = 0;
+                continue;
+            }
+            int h = prochainBit(heures, heure);
+            if (h < 0) {
+                jour = jour.plusDays(1);
+                heure = 0;
+                minute = 0;
+                continue;
+            }
+            if (h != heure) {
+                heure = h;
+                minute = 0;
+            }
+            int m = prochainBit(minutes, minute);
+            if (m < 0) {
+                heure++;
+                minute = 0;
+                if (heure == 24) {
+                    jour = jour.plusDays(1);
+                    heure = 0;
+                }
+                continue;
+            }
+            return jour.toEpochDay() * 1440 + heure * 60 + m;
+        }
+        return JAMAIS;
+    }
+
+    private boolean jourAdmis(LocalDate jour) {
+        boolean duMois = contient(joursDuMois, jour.getDayOfMonth());
+        boolean deSemaine = contient(joursDeSemaine, jour.getDayOfWeek().getValue() % 7);
+        return jourOuJour ? duMois || deSemaine : duMois && deSemaine;
+    }
+
+    private static boolean contient(long masque, int valeur) {
+        return (masque & (1L << valeur)) != 0;
+    }
+
+    /**
+     * Retourne la première valeur admise à partir de {@code depuis}, -1 sinon
+     */
+    private static int prochainBit(long masque, int depuis) {
+        long restants = masque & (-1L << depuis);
+        return restants == 0 ? -1 : Long.numberOfTrailingZeros(restants);
+    }
+
+    /**
+     * Convertit une date et heure locale en minute locale
+     */
+    public static long enMinuteLocale(LocalDateTime dateHeure) {
+        return Math.floorDiv(dateHeure.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Convertit une minute locale en date et heure locale
+     */
+    public static LocalDateTime enDateHeure(long minuteLocale) {
+        return LocalDateTime.ofEpochSecond(minuteLocale * 60, 0, ZoneOffset.UTC);
+    }
+
+    @Override
+    public String toString() {
+        return texte;
+    }
+}
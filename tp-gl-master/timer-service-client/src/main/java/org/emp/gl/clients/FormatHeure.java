@@ -0,0 +1,154 @@
+/*
+ * Formatage de l'heure par tables précalculées
+ */
+package org.emp.gl.clients;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.emp.gl.timer.service.InstantaneTemps;
+
+/**
+ * Représentations textuelles des 86 400 secondes d'une journée, partagées
+ * par tous les clients.
+ * <p>
+ * Le format {@code HH:mm:ss} de chaque seconde est précalculé dans une
+ * table d'octets : l'écrire dans un tampon est une simple copie, sans
+ * division ni allocation. Les chaînes, nécessaires aux composants
+ * graphiques, sont créées à la première demande de chaque seconde puis
+ * réutilisées par toutes les horloges. Le format compact {@code h:m:s}
+ * de la console a sa propre table. Chaque table n'est construite qu'au
+ * premier usage de son format.
+ */
+public final class FormatHeure {
+
+    /**
+     * Longueur du format {@code HH:mm:ss}
+     */
+    public static final int LONGUEUR = 8;
+
+    private static final int SECONDES_PAR_JOUR = 86400;
+
+    private FormatHeure() {
+    }
+
+    /**
+     * Format {@code HH:mm:ss}. Une chaîne publiée sans synchronisation reste
+     * valide, ses champs étant finals : au pire, deux threads créent la même.
+     */
+    private static final class Complet {
+
+        static final byte[] OCTETS = new byte[SECONDES_PAR_JOUR * LONGUEUR];
+        static final String[] CHAINES = new String[SECONDES_PAR_JOUR];
+
+        static {
+            for (int seconde = 0; seconde < SECONDES_PAR_JOUR; seconde++) {
+                int position = seconde * LONGUEUR;
+                deuxChiffres(OCTETS, position, seconde / 3600);
+                OCTETS[position + 2] = ':';
+                deuxChiffres(OCTETS, position + 3, seconde / 60 % 60);
+                OCTETS[position + 5] = ':';
+                deuxChiffres(OCTETS, position + 6, seconde % 60);
+            }
+        }
+
+        private static void deuxChiffres(byte[] octets, int position, int valeur) {
+            octets[position] = (byte) ('0' + valeur / 10);
+            octets[position + 1] = (byte) ('0' + valeur % 10);
+        }
+    }
+
+    /**
+     * Format compact {@code h:m:s}, sans zéros de tête, de longueur variable
+     */
+    private static final class Compact {
+
+        static final byte[] OCTETS = new byte[SECONDES_PAR_JOUR * LONGUEUR];
+        static final byte[] LONGUEURS = new byte[SECONDES_PAR_JOUR];
+
+        static {
+            for (int seconde = 0; seconde < SECONDES_PAR_JOUR; seconde++) {
+                int debut = seconde * LONGUEUR;
+                int position = nombre(OCTETS, debut, seconde / 3600);
+                OCTETS[position++] = ':';
+                position = nombre(OCTETS, position, seconde / 60 % 60);
+                OCTETS[position++] = ':';
+                position = nombre(OCTETS, position, seconde % 60);
+                LONGUEURS[seconde] = (byte) (position - debut);
+            }
+        }
+
+        private static int nombre(byte[] octets, int position, int valeur) {
+            if (valeur >= 10) {
+                octets[position++] = (byte) ('0' + valeur / 10);
+            }
+            octets[position++] = (byte) ('0' + valeur % 10);
+            return position;
+        }
+    }
+
+    /**
+     * Retourne l'heure d'un instantané au format {@code HH:mm:ss}
+     */
+    public static String heure(long instantane) {
+        return texte(InstantaneTemps.secondesDuJour(instantane));
+    }
+
+    /**
+     * Retourne une seconde de la journée au format {@code HH:mm:ss}
+     *
+     * @param secondesDuJour Secondes depuis minuit, de 0 à 86 399
+     */
+    public static String texte(int secondesDuJour) {
+        String chaine = Complet.CHAINES[secondesDuJour];
+        if (chaine == null) {
+            chaine = new String(Complet.OCTETS, secondesDuJour * LONGUEUR, LONGUEUR,
+                                StandardCharsets.US_ASCII);
+            Complet.CHAINES[secondesDuJour] = chaine;
+        }
+        return chaine;
+    }
+
+    /**
+     * Retourne une durée au format {@code HH:mm:ss}, pour un compte à
+     * rebours. Les heures dépassent deux chiffres au-delà de 99 h ; seule
+     * une durée d'un jour ou plus alloue une chaîne.
+     *
+     * @param secondes Durée en secondes, une durée négative valant 0
+     */
+    public static String duree(int secondes) {
+        if (secondes < SECONDES_PAR_JOUR) {
+            return texte(Math.max(0, secondes));
+        }
+        return (secondes / 3600) + texte(secondes % 3600).substring(2);
+    }
+
+    /**
+     * Écrit une seconde de la journée au format {@code HH:mm:ss}
+     *
+     * @return La position suivant le texte écrit
+     */
+    public static int ecrire(int secondesDuJour, char[] destination, int position) {
+        byte[] octets = Complet.OCTETS;
+        int source = secondesDuJour * LONGUEUR;
+        for (int i = 0; i < LONGUEUR; i++) {
+            destination[position + i] = (char) octets[source + i];
+        }
+        return position + LONGUEUR;
+    }
+
+    /**
+     * Écrit une seconde de la journée au format {@code HH:mm:ss}
+     */
+    public static void ecrire(int secondesDuJour, ByteBuffer destination) {
+        destination.put(Complet.OCTETS, secondesDuJour * LONGUEUR, LONGUEUR);
+    }
+
+    /**
+     * Écrit une seconde de la journée au format compact {@code h:m:s}
+     */
+    public static void ecrireCompact(int secondesDuJour, ByteBuffer destination) {
+        destination.put(Compact.OCTETS, secondesDuJour * LONGUEUR,
+                        Compact.LONGUEURS[secondesDuJour]);
+    }
+}
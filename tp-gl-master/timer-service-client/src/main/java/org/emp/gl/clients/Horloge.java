@@ -4,6 +4,7 @@ package org.emp.gl.clients;
 import java.beans.PropertyChangeEvent;
 import org.emp.gl.timer.service.TimerChangeListener;
 import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
 
 /**
  * Représentation d'une horloge numérique
@@ -13,7 +14,9 @@ public class Horloge implements TimerChangeListener {
 
     String name;
     TimerService timerService;
-    private int compteurAffichages;
+    private final SortieConsole sortie;
+    private final byte[] prefixeAffichage;
+    private volatile int compteurAffichages; // Écrit par le seul thread du service
     private boolean actif;
 
     /**
@@ -22,8 +25,20 @@ public class Horloge implements TimerChangeListener {
      * @param timerService Service de gestion du temps
      */
     public Horloge(String name, TimerService timerService) {
+        this(name, timerService, SortieConsole.standard());
+    }
+    
+    /**
+     * Création d'une horloge affichant sur une sortie donnée
+     * @param name Identifiant unique de l'horloge
+     * @param timerService Service de gestion du temps
+     * @param sortie Sortie asynchrone recevant les affichages
+     */
+    public Horloge(String name, TimerService timerService, SortieConsole sortie) {
         this.name = name;
         this.timerService = timerService;
+        this.sortie = sortie;
+        this.prefixeAffichage = SortieConsole.encoder(name + " affiche ");
         this.compteurAffichages = 0;
         this.actif = true;
         enregistrerHorloge();
@@ -34,7 +49,7 @@ public class Horloge implements TimerChangeListener {
      * Enregistre cette horloge auprès du service de timing
      */
     private void enregistrerHorloge() {
-        this.timerService.addTimeChangeListener(this);
+        this.timerService.addTimeChangeListener(this, UniteTemps.MASQUE_SECONDE, 1);
     }
     
     /**
@@ -86,21 +101,11 @@ public class Horloge implements TimerChangeListener {
     }
     
     /**
-     * Formate et affiche l'heure courante
+     * Confie l'heure courante à la sortie asynchrone, qui la formate
+     * et l'écrit hors du thread du service
      */
     private void afficherHeure() {
-        String heureFormatee = construireAffichageHeure();
-        System.out.println(heureFormatee);
-    }
-    
-    /**
-     * Construit la chaîne d'affichage de l'heure
-     */
-    private String construireAffichageHeure() {
-        return name + " affiche " +
-                timerService.getHeures() + ":" +
-                timerService.getMinutes() + ":" +
-                timerService.getSecondes();
+        sortie.publier(prefixeAffichage, timerService.snapshot());
     }
     
     /**
@@ -1,17 +1,34 @@
 package org.emp.gl.clients;
 
+import org.emp.gl.timer.service.InstantaneTemps;
 import org.emp.gl.timer.service.TimerChangeListener;
 import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
 import com.formdev.flatlaf.FlatDarkLaf;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.beans.PropertyChangeEvent;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class HorlogeGraphique extends JFrame implements TimerChangeListener {
 
+    private static final Color VERT = new Color(48, 209, 88);
+    private static final Color ORANGE = new Color(255, 159, 10);
+    private static final Color ROUGE = new Color(255, 69, 58);
+    private static final String[] POURCENTAGES = new String[101];
+
+    static {
+        for (int i = 0; i < POURCENTAGES.length; i++) {
+            POURCENTAGES[i] = i + "%";
+        }
+    }
+
     private final TimerService timerService;
+    private final JournalComptesARebours journal;
+    private long poignee = -1;
     private final JLabel timeLabel;
     private final JLabel countdownLabel;
     private final JProgressBar progressBar;
@@ -23,9 +40,28 @@ public class HorlogeGraphique extends JFrame implements TimerChangeListener {
     private int compteurInitial = 0;
     private boolean isPaused = false;
 
+    // Rafraîchissement fusionné : au plus une mise à jour en attente sur l'EDT
+    private final AtomicInteger secondesEnAttente = new AtomicInteger();
+    private final AtomicBoolean rafraichissementPlanifie = new AtomicBoolean();
+    private final Runnable rafraichissement = this::rafraichir;
+
+    // Dernier état affiché, manipulé uniquement sur l'EDT
+    private int secondeAffichee = -1;
+    private int boutonsAffiches = -1;
+
     public HorlogeGraphique(String title, TimerService service) {
+        this(title, service, null);
+    }
+
+    /**
+     * Crée une horloge dont le compte à rebours survit aux redémarrages
+     *
+     * @param journal Journal propre à cette horloge, ou null
+     */
+    public HorlogeGraphique(String title, TimerService service, JournalComptesARebours journal) {
         super(title);
         this.timerService = service;
+        this.journal = journal;
         FlatDarkLaf.setup();
 
         // Interface
@@ -37,7 +73,8 @@ public class HorlogeGraphique extends JFrame implements TimerChangeListener {
         this.stopButton = new JButton("⏹ STOP");
 
         setupUI();
-        this.timerService.addTimeChangeListener(this);
+        restaurerCompteARebours();
+        this.timerService.addTimeChangeListener(this, UniteTemps.MASQUE_SECONDE, 1);
         updateTime();
         updateButtonStates();
     }
@@ -47,8 +84,8 @@ public class HorlogeGraphique extends JFrame implements TimerChangeListener {
         Color bgPrimary = new Color(18, 18, 18);
         Color bgSecondary = new Color(28, 28, 30);
         Color accentBlue = new Color(10, 132, 255);
-        Color accentGreen = new Color(48, 209, 88);
-        Color accentRed = new Color(255, 69, 58);
+        Color accentGreen = VERT;
+        Color accentRed = ROUGE;
         Color textPrimary = new Color(255, 255, 255);
         Color textSecondary = new Color(152, 152, 157);
 
@@ -93,7 +130,7 @@ public class HorlogeGraphique extends JFrame implements TimerChangeListener {
 
         // === BOUTONS MODERNES ===
         styleModernButton(startButton, accentGreen, textPrimary);
-        styleModernButton(pauseButton, new Color(255, 159, 10), textPrimary);
+        styleModernButton(pauseButton, ORANGE, textPrimary);
         styleModernButton(stopButton, accentRed, textPrimary);
 
         startButton.addActionListener(e -> startCountdown());
@@ -164,10 +201,49 @@ public class HorlogeGraphique extends JFrame implements TimerChangeListener {
         });
     }
 
+    /**
+     * Reprend le compte à rebours enregistré dans le journal, s'il y en a un
+     */
+    private void restaurerCompteARebours() {
+        if (journal == null) {
+            return;
+        }
+        journal.parcourir((enregistre, restant, duree, enPause) -> {
+            if (poignee != -1) {
+                // Un seul compte par horloge : les autres sont périmés
+                journal.terminer(enregistre);
+                return;
+            }
+            poignee = enregistre;
+            compteur = (int) Math.max(0, (restant + 999) / 1000);
+            compteurInitial = (int) Math.max(1, (duree + 999) / 1000);
+            isPaused = enPause;
+        });
+        if (poignee == -1) {
+            return;
+        }
+        progressBar.setMaximum(compteurInitial);
+        countdownLabel.setForeground(isPaused ? ORANGE : VERT);
+        afficherCompteARebours();
+    }
+
+    /**
+     * Retire du journal le compte à rebours en cours
+     */
+    private void oublierCompteARebours() {
+        if (journal != null && poignee != -1) {
+            journal.terminer(poignee);
+        }
+        poignee = -1;
+    }
+
     private void startCountdown() {
         if (compteur > 0 && isPaused) {
             // Reprendre
             isPaused = false;
+            if (journal != null) {
+                journal.reprendre(poignee);
+            }
             updateButtonStates();
             return;
         }
@@ -224,10 +300,14 @@ public class HorlogeGraphique extends JFrame implements TimerChangeListener {
                 
                 if (compteur > 0) {
                     isPaused = false;
+                    oublierCompteARebours();
+                    if (journal != null) {
+                        poignee = journal.creer(compteur * 1000L);
+                    }
                     countdownLabel.setText(formatCountdown(compteur));
                     progressBar.setMaximum(compteurInitial);
                     progressBar.setValue(compteur);
-                    progressBar.setString(String.format("%.0f%%", 100.0));
+                    progressBar.setString(POURCENTAGES[100]);
                     updateButtonStates();
                 } else {
                     showError("La durée doit être supérieure à zéro.");
@@ -242,25 +322,40 @@ public class HorlogeGraphique extends JFrame implements TimerChangeListener {
     private void togglePause() {
         if (compteur > 0) {
             isPaused = !isPaused;
+            if (journal != null) {
+                if (isPaused) {
+                    journal.suspendre(poignee);
+                } else {
+                    journal.reprendre(poignee);
+                }
+            }
             pauseButton.setText(isPaused ? "▶ RESUME" : "⏸ PAUSE");
-            countdownLabel.setForeground(isPaused ? 
-                new Color(255, 159, 10) : new Color(48, 209, 88));
+            countdownLabel.setForeground(isPaused ? ORANGE : VERT);
         }
     }
 
     private void stopCountdown() {
+        oublierCompteARebours();
         compteur = -1;
         compteurInitial = 0;
         isPaused = false;
         countdownLabel.setText("00:00:00");
-        countdownLabel.setForeground(new Color(48, 209, 88));
+        countdownLabel.setForeground(VERT);
         progressBar.setValue(0);
         progressBar.setString("");
         updateButtonStates();
     }
 
+    /**
+     * Met à jour les boutons, seulement si leur état a changé
+     */
     private void updateButtonStates() {
         boolean hasCountdown = compteur > 0;
+        int etat = (hasCountdown ? 1 : 0) | (isPaused ? 2 : 0);
+        if (etat == boutonsAffiches) {
+            return;
+        }
+        boutonsAffiches = etat;
         startButton.setEnabled(!hasCountdown || isPaused);
         startButton.setText((hasCountdown && isPaused) ? "▶ RESUME" : "▶ START");
         pauseButton.setEnabled(hasCountdown && !isPaused);
@@ -269,62 +364,103 @@ public class HorlogeGraphique extends JFrame implements TimerChangeListener {
         pauseButton.setText(isPaused ? "▶ RESUME" : "⏸ PAUSE");
     }
 
+    /**
+     * Affiche l'heure courante, seulement si la seconde a changé
+     */
     private void updateTime() {
-        String currentTime = String.format("%02d:%02d:%02d",
-                timerService.getHeures(),
-                timerService.getMinutes(),
-                timerService.getSecondes());
-        timeLabel.setText(currentTime);
+        long snapshot = timerService.snapshot();
+        int seconde = InstantaneTemps.secondesDuJour(snapshot);
+        if (seconde == secondeAffichee) {
+            return;
+        }
+        secondeAffichee = seconde;
+        timeLabel.setText(FormatHeure.texte(seconde));
     }
 
+    /**
+     * Chaîne partagée du compte à rebours, sans formatage à chaque seconde
+     */
     private String formatCountdown(int totalSeconds) {
-        int h = totalSeconds / 3600;
-        int m = (totalSeconds % 3600) / 60;
-        int s = totalSeconds % 60;
-        return String.format("%02d:%02d:%02d", h, m, s);
+        return FormatHeure.duree(totalSeconds);
     }
 
     private void showError(String message) {
         JOptionPane.showMessageDialog(this, message, "Erreur", JOptionPane.ERROR_MESSAGE);
     }
 
+    /**
+     * Note la seconde écoulée et planifie un rafraîchissement s'il n'y en a
+     * pas déjà un en attente : l'EDT ne prend jamais de retard cumulé.
+     */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
         if (TimerChangeListener.SECONDE_PROP.equals(evt.getPropertyName())) {
-            SwingUtilities.invokeLater(() -> {
-                updateTime();
-                
-                if (compteur > 0 && !isPaused) {
-                    compteur--;
-                    countdownLabel.setText(formatCountdown(compteur));
-                    progressBar.setValue(compteur);
-                    
-                    double percentage = (compteur * 100.0) / compteurInitial;
-                    progressBar.setString(String.format("%.0f%%", percentage));
-                    
-                    // Changer la couleur selon le temps restant
-                    if (percentage <= 20) {
-                        progressBar.setForeground(new Color(255, 69, 58));
-                        countdownLabel.setForeground(new Color(255, 69, 58));
-                    } else if (percentage <= 50) {
-                        progressBar.setForeground(new Color(255, 159, 10));
-                    }
-                    
-                    updateButtonStates();
-                    
-                } else if (compteur == 0) {
-                    countdownLabel.setText("✅ FINISHED");
-                    countdownLabel.setForeground(new Color(48, 209, 88));
-                    progressBar.setValue(0);
-                    progressBar.setString("FINISHED!");
-                    progressBar.setForeground(new Color(48, 209, 88));
-                    compteur = -1;
-                    updateButtonStates();
-                    
-                    // Son de notification (optionnel)
-                    Toolkit.getDefaultToolkit().beep();
-                }
-            });
+            secondesEnAttente.incrementAndGet();
+            if (rafraichissementPlanifie.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(rafraichissement);
+            }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Applique sur l'EDT toutes les secondes écoulées depuis le dernier
+     * rafraîchissement, puis n'affiche que ce qui a changé
+     */
+    private void rafraichir() {
+        rafraichissementPlanifie.set(false);
+        int secondes = secondesEnAttente.getAndSet(0);
+        updateTime();
+        avancerCompteARebours(secondes);
+        updateButtonStates();
+    }
+
+    /**
+     * Décompte les secondes écoulées, le compte à rebours se terminant
+     * à la seconde qui suit son passage à zéro
+     */
+    private void avancerCompteARebours(int secondes) {
+        int avant = compteur;
+        for (int i = 0; i < secondes; i++) {
+            if (compteur > 0 && !isPaused) {
+                compteur--;
+            } else if (compteur == 0) {
+                terminerCompteARebours();
+                return;
+            } else {
+                break;
+            }
+        }
+        if (compteur != avant) {
+            afficherCompteARebours();
+        }
+    }
+
+    private void afficherCompteARebours() {
+        countdownLabel.setText(formatCountdown(compteur));
+        progressBar.setValue(compteur);
+
+        double percentage = (compteur * 100.0) / compteurInitial;
+        progressBar.setString(POURCENTAGES[(int) Math.round(percentage)]);
+
+        // Changer la couleur selon le temps restant
+        if (percentage <= 20) {
+            progressBar.setForeground(ROUGE);
+            countdownLabel.setForeground(ROUGE);
+        } else if (percentage <= 50) {
+            progressBar.setForeground(ORANGE);
+        }
+    }
+
+    private void terminerCompteARebours() {
+        countdownLabel.setText("✅ FINISHED");
+        countdownLabel.setForeground(VERT);
+        progressBar.setValue(0);
+        progressBar.setString("FINISHED!");
+        progressBar.setForeground(VERT);
+        compteur = -1;
+        oublierCompteARebours();
+
+        // Son de notification (optionnel)
+        Toolkit.getDefaultToolkit().beep();
+    }
+}
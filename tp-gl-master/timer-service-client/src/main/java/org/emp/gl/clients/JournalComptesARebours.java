@@ -0,0 +1,466 @@
+package org.emp.gl.clients;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Journal persistant des comptes à rebours.
+ * <p>
+ * Chaque création, pause, reprise ou fin d'un compte ajoute un
+ * enregistrement binaire de taille fixe à un fichier projeté en mémoire :
+ * l'écriture est une simple copie en mémoire, que le système reporte sur
+ * le disque même si la JVM s'arrête brutalement. Les secondes qui passent
+ * ne sont jamais écrites : un compte en cours est enregistré par son
+ * échéance absolue sur l'heure murale, un compte en pause par le temps
+ * qu'il lui reste.
+ * <p>
+ * À l'ouverture, le journal est relu jusqu'au premier enregistrement
+ * incomplet, dont la somme de contrôle ne correspond pas. Lorsque le
+ * fichier est plein, il est réécrit avec les seuls comptes vivants puis
+ * remplacé d'un renommage atomique.
+ * <p>
+ * Un compte est désigné par une poignée qui devient invalide à sa fin,
+ * même si son emplacement est réutilisé.
+ */
+public final class JournalComptesARebours implements AutoCloseable {
+
+    /**
+     * Reçoit les comptes vivants du journal
+     */
+    public interface Visiteur {
+
+        /**
+         * @param restantMillis Temps restant, négatif si l'échéance est passée
+         * @param dureeMillis Durée initiale du compte
+         */
+        void visiter(long poignee, long restantMillis, long dureeMillis, boolean enPause);
+    }
+
+    private static final int MAGIQUE = 0x43415231; // "CAR1"
+    private static final int TAILLE_ENTETE = 32;
+    private static final int TAILLE_ENREGISTREMENT = 32;
+    private static final int ENREGISTREMENTS_INITIAUX = 1 << 15;
+
+    private static final int CREATION = 1;
+    private static final int PAUSE = 2;
+    private static final int REPRISE = 3;
+    private static final int FIN = 4;
+
+    private static final byte EN_COURS = 1;
+    private static final byte EN_PAUSE = 2;
+    private static final int AUCUN = AllocateurPoignees.AUCUN;
+
+    private final Path fichier;
+    private final LongSupplier horloge;
+    private FileChannel canal;
+    private MappedByteBuffer carte;
+    private int position;
+    private final AllocateurPoignees emplacements;
+
+    // Un élément par emplacement
+    private byte[] etats;
+    private long[] valeurs; // Échéance en cours, temps restant en pause
+    private long[] durees;
+
+    private long nombreEnregistrements;
+
+    private JournalComptesARebours(Path fichier, LongSupplier horloge) {
+        this.fichier = fichier;
+        this.horloge = horloge;
+        this.emplacements = new AllocateurPoignees(16);
+        this.etats = new byte[16];
+        this.valeurs = new long[16];
+        this.durees = new long[16];
+    }
+
+    /**
+     * Ouvre un journal, en le créant s'il n'existe pas, et restaure ses comptes
+     */
+    public static JournalComptesARebours ouvrir(Path fichier) throws IOException {
+        return ouvrir(fichier, System::currentTimeMillis);
+    }
+
+    static JournalComptesARebours ouvrir(Path fichier, LongSupplier horloge) throws IOException {
+        JournalComptesARebours journal = new JournalComptesARebours(fichier, horloge);
+        journal.projeter(fichier, Math.max(Files.exists(fichier) ? Files.size(fichier) : 0,
+                                           TAILLE_ENTETE + (long) ENREGISTREMENTS_INITIAUX * TAILLE_ENREGISTREMENT));
+        try {
+            journal.relire();
+        } catch (IOException e) {
+            journal.canal.close();
+            throw e;
+        }
+        journal.emplacements.reindexer();
+        return journal;
+    }
+
+    /**
+     * Projette le fichier en mémoire sur la taille donnée
+     */
+    private void projeter(Path chemin, long taille) throws IOException {
+        canal = FileChannel.open(chemin, StandardOpenOption.CREATE,
+                                 StandardOpenOption.READ, StandardOpenOption.WRITE);
+        carte = canal.map(FileChannel.MapMode.READ_WRITE, 0, taille);
+    }
+
+    /**
+     * Rejoue les enregistrements valides et place la fin du journal
+     */
+    private void relire() throws IOException {
+        if (carte.getInt(0) != MAGIQUE) {
+            if (carte.getInt(TAILLE_ENTETE) != 0) {
+                throw new IOException("Fichier qui n'est pas un journal de comptes à rebours : " + fichier);
+            }
+            carte.putInt(0, MAGIQUE);
+        }
+        position = TAILLE_ENTETE;
+        while (position + TAILLE_ENREGISTREMENT <= carte.capacity() && rejouer(position)) {
+            position += TAILLE_ENREGISTREMENT;
+            nombreEnregistrements++;
+        }
+        // Efface un éventuel enregistrement incomplet
+        if (position + TAILLE_ENREGISTREMENT <= carte.capacity()) {
+            carte.putInt(position, 0);
+        }
+    }
+
+    /**
+     * Applique un enregistrement à l'état en mémoire
+     *
+     * @return false à la fin du journal ou sur un enregistrement incomplet
+     */
+    private boolean rejouer(int adresse) {
+        int type = carte.getInt(adresse);
+        int id = carte.getInt(adresse + 4);
+        int generation = carte.getInt(adresse + 8);
+        long valeur = carte.getLong(adresse + 16);
+        long duree = carte.getLong(adresse + 24);
+        if (type < CREATION || type > FIN || id < 0
+                || carte.getInt(adresse + 12) != controle(type, id, generation, valeur, duree)) {
+            return false;
+        }
+        if (type == CREATION) {
+            emplacements.occuper(id, generation);
+            if (id >= etats.length) {
+                agrandir(emplacements.getCapacite());
+            }
+            etats[id] = EN_COURS;
+            valeurs[id] = valeur;
+            durees[id] = duree;
+            return true;
+        }
+        if (id >= emplacements.getLimite() || !emplacements.estOccupe(id)
+                || emplacements.getGeneration(id) != generation) {
+            return true;
+        }
+        if (type == FIN) {
+            emplacements.liberer(id);
+        } else {
+            etats[id] = type == PAUSE ? EN_PAUSE : EN_COURS;
+            valeurs[id] = valeur;
+        }
+        return true;
+    }
+
+    private void agrandir(int capacite) {
+        etats = Arrays.copyOf(etats, capacite);
+        valeurs = Arrays.copyOf(valeurs, capacite);
+        durees = Arrays.copyOf(durees, capacite);
+    }
+
+    private static int controle(int type, int id, int generation, long valeur, long duree) {
+        int h = MAGIQUE;
+        h = 31 * h + type;
+        h = 31 * h + id;
+        h = 31 * h + generation;
+        h = 31 * h + (int) (valeur ^ (valeur >>> 32));
+        h = 31 * h + (int) (duree ^ (duree >>> 32));
+        return h;
+    }
+
+    /**
+     * Démarre un compte à rebours
+     *
+     * @param dureeMillis Durée du décompte
+     * @return La poignée du compte
+     */
+    public synchronized long creer(long dureeMillis) {
+        if (dureeMillis < 0) {
+            throw new IllegalArgumentException("Durée négative : " + dureeMillis);
+        }
+        verifierOuvert();
+        int id = emplacements.allouer();
+        if (id >= etats.length) {
+            agrandir(emplacements.getCapacite());
+        }
+        etats[id] = EN_COURS;
+        valeurs[id] = horloge.getAsLong() + dureeMillis;
+        durees[id] = dureeMillis;
+        ajouter(CREATION, id, emplacements.getGeneration(id), valeurs[id], dureeMillis);
+        return emplacements.poignee(id);
+    }
+
+    /**
+     * Met un compte en pause en retenant le temps qu'il lui reste
+     *
+     * @return false si le compte est terminé ou déjà en pause
+     */
+    public synchronized boolean suspendre(long poignee) {
+        int id = emplacements.emplacement(poignee);
+        if (id == AUCUN || etats[id] != EN_COURS) {
+            return false;
+        }
+        etats[id] = EN_PAUSE;
+        valeurs[id] = valeurs[id] - horloge.getAsLong();
+        ajouter(PAUSE, id, emplacements.getGeneration(id), valeurs[id], 0);
+        return true;
+    }
+
+    /**
+     * Reprend un compte en pause, sa nouvelle échéance tenant compte de la pause
+     *
+     * @return false si le compte est terminé ou n'était pas en pause
+     */
+    public synchronized boolean reprendre(long poignee) {
+        int id = emplacements.emplacement(poignee);
+        if (id == AUCUN || etats[id] != EN_PAUSE) {
+            return false;
+        }
+        etats[id] = EN_COURS;
+        valeurs[id] = horloge.getAsLong() + valeurs[id];
+        ajouter(REPRISE, id, emplacements.getGeneration(id), valeurs[id], 0);
+        return true;
+    }
+
+    /**
+     * Retire un compte arrivé à échéance ou annulé
+     *
+     * @return false si le compte était déjà terminé
+     */
+    public synchronized boolean terminer(long poignee) {
+        int id = emplacements.emplacement(poignee);
+        if (id == AUCUN) {
+            return false;
+        }
+        int generation = emplacements.getGeneration(id);
+        emplacements.liberer(id);
+        ajouter(FIN, id, generation, 0, 0);
+        return true;
+    }
+
+    /**
+     * Retourne le temps restant d'un compte, 0 s'il est terminé
+     */
+    public synchronized long getRestantMillis(long poignee) {
+        int id = emplacements.emplacement(poignee);
+        if (id == AUCUN) {
+            return 0;
+        }
+        return etats[id] == EN_PAUSE ? valeurs[id] : valeurs[id] - horloge.getAsLong();
+    }
+
+    /**
+     * Vérifie si un compte est en pause
+     */
+    public synchronized boolean estEnPause(long poignee) {
+        int id = emplacements.emplacement(poignee);
+        return id != AUCUN && etats[id] == EN_PAUSE;
+    }
+
+    /**
+     * Vérifie si un compte est toujours vivant
+     */
+    public synchronized boolean estActif(long poignee) {
+        return emplacements.emplacement(poignee) != AUCUN;
+    }
+
+    /**
+     * Retourne le nombre de comptes vivants
+     */
+    public synchronized int getNombreActifs() {
+        return emplacements.getNombre();
+    }
+
+    /**
+     * Retourne le nombre d'enregistrements du journal depuis sa dernière compaction
+     */
+    public synchronized long getNombreEnregistrements() {
+        return nombreEnregistrements;
+    }
+
+    /**
+     * Présente chaque compte vivant, par exemple pour les restaurer au démarrage
+     */
+    public synchronized void parcourir(Visiteur visiteur) {
+        long maintenant = horloge.getAsLong();
+        for (int id = 0; id < emplacements.getLimite(); id++) {
+            if (emplacements.estOccupe(id)) {
+                boolean enPause = etats[id] == EN_PAUSE;
+                visiteur.visiter(emplacements.poignee(id),
+                                 enPause ? valeurs[id] : valeurs[id] - maintenant,
+                                 durees[id], enPause);
+            }
+        }
+    }
+
+    /**
+     * Ajoute un enregistrement une fois l'état en mémoire modifié,
+     * en compactant le journal s'il est plein
+     */
+    private void ajouter(int type, int id, int generation, long valeur, long duree) {
+        if (position + TAILLE_ENREGISTREMENT > carte.capacity()) {
+            try {
+                compacter();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Compaction du journal impossible : " + fichier, e);
+            }
+            // L'état compacté contient déjà ce changement
+            return;
+        }
+        ecrire(carte, position, type, id, generation, valeur, duree);
+        position += TAILLE_ENREGISTREMENT;
+        nombreEnregistrements++;
+    }
+
+    /**
+     * Écrit un enregistrement, sa somme de contrôle en dernier
+     */
+    private static void ecrire(MappedByteBuffer cible, int adresse, int type, int id,
+                               int generation, long valeur, long duree) {
+        cible.putInt(adresse, type);
+        cible.putInt(adresse + 4, id);
+        cible.putInt(adresse + 8, generation);
+        cible.putLong(adresse + 16, valeur);
+        cible.putLong(adresse + 24, duree);
+        cible.putInt(adresse + 12, controle(type, id, generation, valeur, duree));
+    }
+
+    /**
+     * Réécrit le journal avec les seuls comptes vivants dans un fichier
+     * temporaire, puis le substitue au journal d'un renommage atomique,
+     * ou d'une recopie en place si le système refuse le renommage.
+     * Le fichier est dimensionné pour laisser autant de place libre que
+     * de place occupée.
+     */
+    public synchronized void compacter() throws IOException {
+        verifierOuvert();
+        long enregistrements = emplacements.getNombre();
+        for (int id = 0; id < emplacements.getLimite(); id++) {
+            if (emplacements.estOccupe(id) && etats[id] == EN_PAUSE) {
+                enregistrements++;
+            }
+        }
+        long places = Long.highestOneBit(Math.max(1, 2 * enregistrements - 1)) << 1;
+        long taille = TAILLE_ENTETE
+                + (long) TAILLE_ENREGISTREMENT * Math.max(ENREGISTREMENTS_INITIAUX, places);
+        if (taille > Integer.MAX_VALUE) {
+            throw new IOException("Journal trop volumineux : " + emplacements.getNombre()
+                                  + " comptes");
+        }
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        int ecrits = 0;
+        try (FileChannel nouveau = FileChannel.open(temporaire, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer cible = nouveau.map(FileChannel.MapMode.READ_WRITE, 0, taille);
+            cible.putInt(0, MAGIQUE);
+            int adresse = TAILLE_ENTETE;
+            for (int id = 0; id < emplacements.getLimite(); id++) {
+                if (!emplacements.estOccupe(id)) {
+                    continue;
+                }
+                if (etats[id] == EN_PAUSE) {
+                    // Une échéance fictive que la pause remplace aussitôt
+                    ecrire(cible, adresse, CREATION, id, emplacements.getGeneration(id), 0, durees[id]);
+                    ecrire(cible, adresse + TAILLE_ENREGISTREMENT, PAUSE, id,
+                           emplacements.getGeneration(id), valeurs[id], 0);
+                    adresse += 2 * TAILLE_ENREGISTREMENT;
+                    ecrits += 2;
+                } else {
+                    ecrire(cible, adresse, CREATION, id, emplacements.getGeneration(id), valeurs[id], durees[id]);
+                    adresse += TAILLE_ENREGISTREMENT;
+                    ecrits++;
+                }
+            }
+            cible.force();
+            position = adresse;
+        }
+        // Une projection n'est relâchée que par le ramasse-miettes : sous
+        // Windows, elle interdit de remplacer le fichier
+        carte = null;
+        canal.close();
+        try {
+            Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileSystemException e) {
+            recopier(temporaire, fichier, taille);
+        }
+        projeter(fichier, taille);
+        nombreEnregistrements = ecrits;
+    }
+
+    /**
+     * Recopie le journal compacté sur l'ancien, en place, lorsque le
+     * système refuse de le remplacer. Contrairement au renommage, une panne
+     * pendant la copie peut perdre des comptes.
+     */
+    private static void recopier(Path source, Path cible, long taille) throws IOException {
+        try (FileChannel depuis = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel vers = FileChannel.open(cible, StandardOpenOption.WRITE)) {
+            long copie = 0;
+            while (copie < taille) {
+                copie += vers.transferFrom(depuis, copie, taille - copie);
+            }
+            // Au-delà, l'ancien contenu ne doit pas être rejoué
+            if (vers.size() > taille) {
+                vers.write(ByteBuffer.allocate(TAILLE_ENREGISTREMENT), taille);
+            }
+            vers.force(false);
+        }
+        try {
+            Files.deleteIfExists(source);
+        } catch (IOException e) {
+            // Encore projeté : il sera écrasé à la prochaine compaction
+        }
+    }
+
+    /**
+     * Force l'écriture du journal sur le disque, pour survivre aussi à une
+     * panne du système. Inutile pour un simple redémarrage de la JVM.
+     */
+    public synchronized void synchroniser() {
+        if (carte != null) {
+            carte.force();
+        }
+    }
+
+    /**
+     * Ferme le journal. Les comptes vivants seront restaurés à la prochaine ouverture.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (canal == null) {
+            return;
+        }
+        carte.force();
+        canal.close();
+        canal = null;
+        carte = null;
+    }
+
+    private void verifierOuvert() {
+        if (canal == null) {
+            throw new IllegalStateException("Journal fermé : " + fichier);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Planificateur de tâches sur l'heure murale
+ */
+package org.emp.gl.clients;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
+
+/**
+ * Exécute des tâches selon des horaires {@link ExpressionCron} ou à une
+ * heure murale donnée.
+ * <p>
+ * Seul le planificateur s'abonne aux minutes du service. Les tâches sont
+ * rangées dans un tas selon leur prochaine minute d'exécution : une minute
+ * sans échéance ne coûte qu'une comparaison avec le sommet du tas, et
+ * seules les tâches échues sont touchées, leur occurrence suivante étant
+ * calculée à partir de l'expression. Une tâche occupe quelques entrées de
+ * tableaux, sans objet propre.
+ * <p>
+ * La date est suivie minute par minute à partir de l'heure du service et
+ * n'est relue sur l'horloge qu'après un saut de l'heure murale. Un saut en
+ * avant exécute une seule fois chaque tâche dont des occurrences ont été
+ * sautées ; un saut en arrière ne rejoue pas celles déjà exécutées.
+ * <p>
+ * Une tâche est désignée par une poignée qui devient invalide à son
+ * annulation ou après sa dernière exécution.
+ */
+public final class PlanificateurCron implements TickListener {
+
+    private static final int CAPACITE_INITIALE = 1024;
+    private static final int MINUTES_PAR_JOUR = 1440;
+
+    private final TimerService service;
+    private final Clock horloge;
+    private final AllocateurPoignees emplacements;
+    private final TasIndexe tas; // Par prochaine minute d'exécution
+
+    // Un élément par emplacement
+    private Runnable[] taches;
+    private ExpressionCron[] expressions;
+
+    private long minuteCourante;
+
+    /**
+     * Crée un planificateur sur le fuseau par défaut du système
+     */
+    public PlanificateurCron(TimerService service) {
+        this(service, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Crée un planificateur et l'abonne aux minutes du service
+     *
+     * @param service Le service de timer à utiliser
+     * @param horloge Horloge donnant la date, dans le fuseau du service
+     */
+    public PlanificateurCron(TimerService service, Clock horloge) {
+        this.service = service;
+        this.horloge = horloge;
+        this.emplacements = new AllocateurPoignees(CAPACITE_INITIALE);
+        this.tas = new TasIndexe();
+        this.taches = new Runnable[CAPACITE_INITIALE];
+        this.expressions = new ExpressionCron[CAPACITE_INITIALE];
+        this.minuteCourante = dater(service.getHeures(), service.getMinutes());
+        service.addTickListener(this, UniteTemps.MASQUE_MINUTE | UniteTemps.MASQUE_DISCONTINUITE, 1);
+    }
+
+    /**
+     * Planifie une tâche répétée
+     *
+     * @param expression Horaire à cinq champs, voir {@link ExpressionCron}
+     * @param tache Exécutée sur le thread du service
+     * @return La poignée de la tâche
+     */
+    public long planifier(String expression, Runnable tache) {
+        return planifier(ExpressionCron.analyser(expression), tache);
+    }
+
+    /**
+     * Planifie une tâche répétée
+     *
+     * @throws IllegalArgumentException si l'horaire n'a aucune occurrence
+     */
+    public synchronized long planifier(ExpressionCron expression, Runnable tache) {
+        return ajouter(expression.suivante(minuteCourante), tache, expression);
+    }
+
+    /**
+     * Planifie une exécution unique à la prochaine occurrence d'une heure
+     */
+    public synchronized long alarme(int heures, int minutes, Runnable tache) {
+        return ajouter(ExpressionCron.chaqueJour(heures, minutes).suivante(minuteCourante),
+                       tache, null);
+    }
+
+    private long ajouter(long prochaine, Runnable tache, ExpressionCron expression) {
+        if (tache == null) {
+            throw new NullPointerException("tache");
+        }
+        if (prochaine == ExpressionCron.JAMAIS) {
+            throw new IllegalArgumentException("Horaire sans occurrence : " + expression);
+        }
+        int id = emplacements.allouer();
+        if (id == taches.length) {
+            taches = Arrays.copyOf(taches, emplacements.getCapacite());
+            expressions = Arrays.copyOf(expressions, emplacements.getCapacite());
+        }
+        taches[id] = tache;
+        expressions[id] = expression;
+        tas.ajouter(id, prochaine);
+        return emplacements.poignee(id);
+    }
+
+    /**
+     * Annule une tâche
+     *
+     * @return false si la tâche était déjà terminée ou annulée
+     */
+    public synchronized boolean annuler(long poignee) {
+        int id = emplacements.emplacement(poignee);
+        if (id == AllocateurPoignees.AUCUN) {
+            return false;
+        }
+        tas.retirer(id);
+        liberer(id);
+        return true;
+    }
+
+    /**
+     * Retourne la prochaine exécution d'une tâche, null pour une tâche terminée
+     */
+    public synchronized LocalDateTime getProchaineExecution(long poignee) {
+        int id = emplacements.emplacement(poignee);
+        return id == AllocateurPoignees.AUCUN ? null : ExpressionCron.enDateHeure(tas.cle(id));
+    }
+
+    /**
+     * Retourne le nombre de tâches planifiées
+     */
+    public synchronized int getNombreTaches() {
+        return tas.taille();
+    }
+
+    /**
+     * Désabonne le planificateur du service. Les tâches ne s'exécutent plus.
+     */
+    public void fermer() {
+        service.removeTickListener(this);
+    }
+
+    @Override
+    public void onTick(int unite, int ancienneValeur, int heures, int minutes,
+                       int secondes, int dixiemes) {
+        if (unite == UniteTemps.MINUTE) {
+            avancer(heures, minutes);
+        } else if (unite == UniteTemps.DISCONTINUITE) {
+            recaler(heures, minutes);
+        }
+    }
+
+    /**
+     * Passe à la minute donnée, normalement la suivante
+     */
+    synchronized void avancer(int heures, int minutes) {
+        long minuteDuJour = Math.floorMod(minuteCourante, MINUTES_PAR_JOUR);
+        minuteCourante += Math.floorMod(heures * 60 + minutes - minuteDuJour, MINUTES_PAR_JOUR);
+        executerEchues();
+    }
+
+    /**
+     * Relit la date après un saut de l'heure murale
+     */
+    synchronized void recaler(int heures, int minutes) {
+        minuteCourante = dater(heures, minutes);
+        executerEchues();
+    }
+
+    /**
+     * Situe une heure du service dans le jour le plus proche de l'horloge
+     */
+    private long dater(int heures, int minutes) {
+        long reference = ExpressionCron.enMinuteLocale(LocalDateTime.now(horloge));
+        long minute = Math.floorDiv(reference, MINUTES_PAR_JOUR) * MINUTES_PAR_JOUR
+                      + heures * 60 + minutes;
+        if (minute - reference > MINUTES_PAR_JOUR / 2) {
+            minute -= MINUTES_PAR_JOUR;
+        } else if (reference - minute > MINUTES_PAR_JOUR / 2) {
+            minute += MINUTES_PAR_JOUR;
+        }
+        return minute;
+    }
+
+    /**
+     * Exécute les tâches du sommet du tas dont l'échéance est atteinte
+     */
+    private void executerEchues() {
+        while (!tas.estVide() && tas.cleSommet() <= minuteCourante) {
+            int id = tas.sommet();
+            long poignee = emplacements.poignee(id);
+            Runnable tache = taches[id];
+            ExpressionCron expression = expressions[id];
+            long suivante = expression == null
+                            ? ExpressionCron.JAMAIS : expression.suivante(minuteCourante);
+            if (suivante == ExpressionCron.JAMAIS) {
+                tas.retirer(id);
+                liberer(id);
+            } else {
+                tas.changerCle(id, suivante);
+            }
+            executer(tache, poignee);
+        }
+    }
+
+    /**
+     * Exécute une tâche sans interrompre celles de la même minute
+     */
+    private static void executer(Runnable tache, long poignee) {
+        try {
+            tache.run();
+        } catch (RuntimeException e) {
+            System.err.println("Tâche planifiée en échec (" + poignee + ") : " + e);
+        }
+    }
+
+    /**
+     * Rend un emplacement et invalide sa poignée
+     */
+    private void liberer(int id) {
+        taches[id] = null;
+        expressions[id] = null;
+        emplacements.liberer(id);
+    }
+}
@@ -0,0 +1,233 @@
+package org.emp.gl.clients;
+
+import java.util.Arrays;
+
+import org.emp.gl.timer.service.TickListener;
+import org.emp.gl.timer.service.TimerService;
+import org.emp.gl.timer.service.UniteTemps;
+
+/**
+ * Registre de comptes à rebours stockés en tableaux de primitives.
+ * <p>
+ * Un compte à rebours n'est pas un écouteur du service mais une échéance
+ * absolue, exprimée en secondes écoulées depuis la création du registre.
+ * Seul le registre s'abonne aux secondes. Les échéances des 65 536
+ * prochaines secondes sont chaînées dans un anneau d'un seau par seconde,
+ * les plus lointaines attendent dans un tas. À chaque seconde, le travail
+ * est proportionnel au nombre de comptes qui expirent. Un compte occupe
+ * 25 octets, répartis sur des tableaux de primitives.
+ * <p>
+ * Un compte est désigné par une poignée qui devient invalide à son
+ * expiration ou à son annulation, même si son emplacement est réutilisé.
+ */
+public final class RegistreComptesARebours implements TickListener {
+
+    /**
+     * Reçoit les comptes à rebours arrivés à échéance
+     */
+    public interface Expiration {
+        void expire(long poignee);
+    }
+
+    private static final int TAILLE_ANNEAU = 1 << 16;
+    private static final int MASQUE_ANNEAU = TAILLE_ANNEAU - 1;
+    private static final int CAPACITE_INITIALE = 1024;
+
+    private static final int AUCUN = AllocateurPoignees.AUCUN;
+
+    private final TimerService service;
+    private final Expiration expiration;
+    private final int[] tetes;
+    private final AllocateurPoignees emplacements;
+    private final TasIndexe tas; // Comptes trop lointains pour l'anneau
+
+    // Un élément par emplacement
+    private int[] echeances;
+    private int[] suivants;
+    private int[] precedents;
+
+    private long[] echues;
+    private int seconde;
+
+    /**
+     * Crée un registre et l'abonne aux secondes du service
+     *
+     * @param service Le service de timer à utiliser
+     * @param expiration Notifiée, sur le thread du service, de chaque échéance
+     */
+    public RegistreComptesARebours(TimerService service, Expiration expiration) {
+        this.service = service;
+        this.expiration = expiration;
+        this.tetes = new int[TAILLE_ANNEAU];
+        Arrays.fill(tetes, AUCUN);
+        this.emplacements = new AllocateurPoignees(CAPACITE_INITIALE);
+        this.tas = new TasIndexe();
+        this.echeances = new int[CAPACITE_INITIALE];
+        this.suivants = new int[CAPACITE_INITIALE];
+        this.precedents = new int[CAPACITE_INITIALE];
+        this.echues = new long[16];
+        service.addTickListener(this, UniteTemps.MASQUE_SECONDE, 1);
+    }
+
+    /**
+     * Démarre un compte à rebours
+     *
+     * @param secondes Durée du décompte, une durée nulle expirant à la
+     *                 prochaine seconde
+     * @return La poignée du compte
+     */
+    public synchronized long demarrer(int secondes) {
+        if (secondes < 0) {
+            throw new IllegalArgumentException("Durée négative : " + secondes);
+        }
+        int id = emplacements.allouer();
+        if (id == echeances.length) {
+            int capacite = emplacements.getCapacite();
+            echeances = Arrays.copyOf(echeances, capacite);
+            suivants = Arrays.copyOf(suivants, capacite);
+            precedents = Arrays.copyOf(precedents, capacite);
+        }
+        echeances[id] = seconde + Math.max(1, secondes);
+        ranger(id);
+        return emplacements.poignee(id);
+    }
+
+    /**
+     * Annule un compte à rebours
+     *
+     * @return false si le compte avait déjà expiré ou été annulé
+     */
+    public synchronized boolean annuler(long poignee) {
+        int id = emplacements.emplacement(poignee);
+        if (id == AUCUN) {
+            return false;
+        }
+        if (tas.contient(id)) {
+            tas.retirer(id);
+        } else {
+            delier(id);
+        }
+        emplacements.liberer(id);
+        return true;
+    }
+
+    /**
+     * Retourne le nombre de secondes restantes, 0 pour un compte terminé
+     */
+    public synchronized int getSecondesRestantes(long poignee) {
+        int id = emplacements.emplacement(poignee);
+        return id == AUCUN ? 0 : echeances[id] - seconde;
+    }
+
+    /**
+     * Vérifie si un compte à rebours est toujours en cours
+     */
+    public synchronized boolean estActif(long poignee) {
+        return emplacements.emplacement(poignee) != AUCUN;
+    }
+
+    /**
+     * Retourne le nombre de comptes en cours
+     */
+    public synchronized int getNombreActifs() {
+        return emplacements.getNombre();
+    }
+
+    /**
+     * Désabonne le registre du service. Les comptes en cours sont figés.
+     */
+    public void fermer() {
+        service.removeTickListener(this);
+    }
+
+    @Override
+    public void onTick(int unite, int ancienneValeur, int heures, int minutes,
+                       int secondes, int dixiemes) {
+        if (unite == UniteTemps.SECONDE) {
+            avancerSeconde();
+        }
+    }
+
+    /**
+     * Avance d'une seconde et expire les comptes de son seau
+     */
+    synchronized void avancerSeconde() {
+        seconde++;
+        while (!tas.estVide() && tas.cleSommet() - seconde < TAILLE_ANNEAU) {
+            int id = tas.sommet();
+            tas.retirer(id);
+            lier(id);
+        }
+
+        // Le seau est vidé avant toute notification : une expiration peut
+        // annuler ou démarrer d'autres comptes, y compris de ce seau
+        int seau = seconde & MASQUE_ANNEAU;
+        int id = tetes[seau];
+        tetes[seau] = AUCUN;
+        int nombre = 0;
+        while (id != AUCUN) {
+            if (nombre == echues.length) {
+                echues = Arrays.copyOf(echues, nombre * 2);
+            }
+            int suivant = suivants[id];
+            echues[nombre++] = emplacements.poignee(id);
+            emplacements.liberer(id);
+            id = suivant;
+        }
+        for (int i = 0; i < nombre; i++) {
+            notifier(echues[i]);
+        }
+    }
+
+    /**
+     * Notifie une expiration sans interrompre celles du même seau
+     */
+    private void notifier(long poignee) {
+        try {
+            expiration.expire(poignee);
+        } catch (RuntimeException e) {
+            System.err.println("Expiration en échec (" + poignee + ") : " + e);
+        }
+    }
+
+    /**
+     * Range un compte dans l'anneau ou, s'il est trop lointain, dans le tas
+     */
+    private void ranger(int id) {
+        if (echeances[id] - seconde < TAILLE_ANNEAU) {
+            lier(id);
+        } else {
+            tas.ajouter(id, echeances[id]);
+        }
+    }
+
+    /**
+     * Chaîne un compte en tête du seau de son échéance
+     */
+    private void lier(int id) {
+        int seau = echeances[id] & MASQUE_ANNEAU;
+        int tete = tetes[seau];
+        suivants[id] = tete;
+        precedents[id] = AUCUN;
+        if (tete != AUCUN) {
+            precedents[tete] = id;
+        }
+        tetes[seau] = id;
+    }
+
+    /**
+     * Retire un compte de la chaîne de son seau
+     */
+    private void delier(int id) {
+        int precedent = precedents[id];
+        int suivant = suivants[id];
+        if (precedent == AUCUN) {
+            tetes[echeances[id] & MASQUE_ANNEAU] = suivant;
+        } else {
+            suivants[precedent] = suivant;
+        }
+        if (suivant != AUCUN) {
+            precedents[suivant] = precedent;
+        }
+    }
+}
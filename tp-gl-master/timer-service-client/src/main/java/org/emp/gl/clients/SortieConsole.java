@@ -0,0 +1,273 @@
+package org.emp.gl.clients;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.emp.gl.timer.service.InstantaneTemps;
+
+/**
+ * Sortie console asynchrone des horloges.
+ * <p>
+ * Le thread du service ne fait que déposer un enregistrement compact,
+ * un préfixe déjà encodé et un instantané de l'heure, dans un anneau
+ * préalloué : il n'attend jamais d'entrée-sortie. Un thread d'écriture
+ * formate les enregistrements par lots dans un tampon direct et les
+ * écrit d'un bloc sur le canal. Quand l'anneau est plein, l'enregistrement
+ * est rejeté et compté.
+ */
+public final class SortieConsole implements AutoCloseable {
+
+    private static final int CAPACITE_PAR_DEFAUT = 1 << 14;
+    private static final int TAILLE_TAMPON = 1 << 16;
+    private static final int TAILLE_MAX_HEURE = 9;
+    private static final long ATTENTE_MAX_NANOS = 50000000L;
+
+    private static SortieConsole standard;
+
+    private final WritableByteChannel canal;
+    private final int masque;
+    private final byte[][] prefixes;
+    private final long[] instantanes;
+    private final AtomicLongArray publies;
+    private final AtomicLong reservation;
+    private final ByteBuffer tampon;
+    private final Thread ecrivain;
+
+    private volatile long consomme;
+    private volatile boolean enAttente;
+    private volatile boolean ouverte;
+
+    private final AtomicLong rejetes;
+    private volatile long ecrits;
+    private volatile long lots;
+    private volatile long occupationMax;
+    private volatile long erreurs;
+
+    /**
+     * Crée une sortie écrivant sur un canal
+     *
+     * @param canal Canal de destination
+     * @param capacite Nombre d'enregistrements en attente, arrondi à une
+     *                 puissance de deux
+     */
+    public SortieConsole(WritableByteChannel canal, int capacite) {
+        if (capacite < 1) {
+            throw new IllegalArgumentException("La capacité doit être au moins 1");
+        }
+        int taille = Math.max(1, Integer.highestOneBit(capacite - 1) << 1);
+        this.canal = canal;
+        this.masque = taille - 1;
+        this.prefixes = new byte[taille][];
+        this.instantanes = new long[taille];
+        this.publies = new AtomicLongArray(taille);
+        this.reservation = new AtomicLong();
+        this.rejetes = new AtomicLong();
+        this.tampon = ByteBuffer.allocateDirect(TAILLE_TAMPON);
+        this.ouverte = true;
+        for (int i = 0; i < taille; i++) {
+            publies.set(i, -1);
+        }
+        this.ecrivain = new Thread(this::ecrire, "sortie-console");
+        this.ecrivain.setDaemon(true);
+        this.ecrivain.start();
+    }
+
+    /**
+     * Retourne la sortie partagée sur la sortie standard, vidée à l'arrêt
+     * de la JVM. Elle écrit sur le {@code System.out} du moment de sa
+     * création : une redirection faite avant s'applique, et ses lots
+     * restent ordonnés avec les autres écritures sur ce flux.
+     */
+    public static synchronized SortieConsole standard() {
+        if (standard == null) {
+            standard = new SortieConsole(Channels.newChannel(System.out), CAPACITE_PAR_DEFAUT);
+            Runtime.getRuntime().addShutdownHook(new Thread(standard::close, "sortie-console-arret"));
+        }
+        return standard;
+    }
+
+    /**
+     * Encode une fois pour toutes le début d'une ligne
+     */
+    public static byte[] encoder(String prefixe) {
+        return prefixe.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Dépose une ligne « préfixe h:m:s » sans jamais bloquer
+     *
+     * @param prefixe Début de ligne déjà encodé, voir {@link #encoder(String)}
+     * @param instantane Heure à afficher, au format {@link InstantaneTemps}
+     * @return false si l'anneau était plein et la ligne rejetée
+     */
+    public boolean publier(byte[] prefixe, long instantane) {
+        long sequence;
+        do {
+            sequence = reservation.get();
+            if (!ouverte || sequence - consomme > masque) {
+                rejetes.incrementAndGet();
+                return false;
+            }
+        } while (!reservation.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) sequence & masque;
+        prefixes[index] = prefixe;
+        instantanes[index] = instantane;
+        publies.set(index, sequence);
+        if (enAttente) {
+            LockSupport.unpark(ecrivain);
+        }
+        return true;
+    }
+
+    /**
+     * Boucle du thread d'écriture
+     */
+    private void ecrire() {
+        while (true) {
+            int lus = vider();
+            if (lus > 0) {
+                continue;
+            }
+            if (!ouverte) {
+                return;
+            }
+            enAttente = true;
+            if (!disponible()) {
+                LockSupport.parkNanos(this, ATTENTE_MAX_NANOS);
+            }
+            enAttente = false;
+        }
+    }
+
+    private boolean disponible() {
+        long sequence = consomme;
+        return publies.get((int) sequence & masque) == sequence;
+    }
+
+    /**
+     * Formate et écrit tous les enregistrements publiés
+     *
+     * @return Le nombre d'enregistrements écrits
+     */
+    private int vider() {
+        long sequence = consomme;
+        long occupation = reservation.get() - sequence;
+        if (occupation > occupationMax) {
+            occupationMax = occupation;
+        }
+        int lus = 0;
+        while (publies.get((int) sequence & masque) == sequence) {
+            int index = (int) sequence & masque;
+            byte[] prefixe = prefixes[index];
+            if (tampon.remaining() < prefixe.length + TAILLE_MAX_HEURE) {
+                vidanger();
+            }
+            formater(prefixe, instantanes[index]);
+            prefixes[index] = null;
+            sequence++;
+            lus++;
+            // Libère l'emplacement au fil de l'eau pour les producteurs
+            consomme = sequence;
+        }
+        if (lus > 0) {
+            vidanger();
+            ecrits += lus;
+        }
+        return lus;
+    }
+
+    /**
+     * Écrit « préfixe h:m:s » dans le tampon, comme Horloge l'affichait
+     */
+    private void formater(byte[] prefixe, long instantane) {
+        tampon.put(prefixe);
+        FormatHeure.ecrireCompact(InstantaneTemps.secondesDuJour(instantane), tampon);
+        tampon.put((byte) '\n');
+    }
+
+    /**
+     * Écrit le tampon sur le canal
+     */
+    private void vidanger() {
+        tampon.flip();
+        try {
+            while (tampon.hasRemaining()) {
+                canal.write(tampon);
+            }
+            lots++;
+        } catch (IOException e) {
+            erreurs++;
+        }
+        tampon.clear();
+    }
+
+    /**
+     * Retourne le nombre de lignes rejetées faute de place
+     */
+    public long getNombreRejetes() {
+        return rejetes.get();
+    }
+
+    /**
+     * Retourne le nombre de lignes écrites
+     */
+    public long getNombreEcrits() {
+        return ecrits;
+    }
+
+    /**
+     * Retourne le nombre d'écritures groupées sur le canal
+     */
+    public long getNombreLots() {
+        return lots;
+    }
+
+    /**
+     * Retourne le nombre d'écritures en échec
+     */
+    public long getNombreErreurs() {
+        return erreurs;
+    }
+
+    /**
+     * Retourne le nombre de lignes en attente d'écriture
+     */
+    public long getOccupation() {
+        return Math.max(0, reservation.get() - consomme);
+    }
+
+    /**
+     * Retourne le plus grand nombre de lignes observées en attente
+     */
+    public long getOccupationMax() {
+        return occupationMax;
+    }
+
+    /**
+     * Retourne la capacité de l'anneau
+     */
+    public int getCapacite() {
+        return masque + 1;
+    }
+
+    /**
+     * Refuse les nouvelles lignes et attend l'écriture de celles en attente
+     */
+    @Override
+    public void close() {
+        ouverte = false;
+        LockSupport.unpark(ecrivain);
+        try {
+            ecrivain.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Sorties qui ignorent tout ce qu'on leur écrit
+ */
+package org.emp.gl.clients;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Neutralise les affichages des clients, pour mesurer leur coût sans
+ * celui des entrées-sorties : un canal à donner à une {@link SortieConsole}
+ * et un flux à installer par {@link System#setOut(PrintStream)}.
+ */
+public final class SortieMuette {
+
+    /**
+     * Canal qui accepte et ignore chaque écriture
+     */
+    public static final WritableByteChannel CANAL = new WritableByteChannel() {
+        @Override
+        public int write(ByteBuffer source) {
+            int taille = source.remaining();
+            source.position(source.limit());
+            return taille;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private SortieMuette() {
+    }
+
+    /**
+     * Crée un flux d'affichage qui ignore tout ce qu'on lui écrit
+     */
+    public static PrintStream flux() {
+        return new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+}
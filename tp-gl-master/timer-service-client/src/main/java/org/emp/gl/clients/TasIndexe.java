@@ -0,0 +1,148 @@
+/*
+ * Tas binaire d'emplacements ordonnés par une échéance
+ */
+package org.emp.gl.clients;
+
+import java.util.Arrays;
+
+/**
+ * Tas minimum d'emplacements, chacun avec sa clé, en tableaux de primitives.
+ * <p>
+ * La position de chaque emplacement est tenue à jour, si bien qu'un
+ * emplacement se retire ou change de clé en temps logarithmique, sans
+ * recherche. Non synchronisé.
+ */
+final class TasIndexe {
+
+    private int[] ids;       // Par position dans le tas
+    private long[] cles;     // Par position dans le tas
+    private int[] positions; // Par emplacement
+    private int taille;
+
+    TasIndexe() {
+        this.ids = new int[16];
+        this.cles = new long[16];
+        this.positions = new int[16];
+    }
+
+    /**
+     * Ajoute un emplacement absent du tas
+     */
+    void ajouter(int id, long cle) {
+        if (taille == ids.length) {
+            ids = Arrays.copyOf(ids, taille * 2);
+            cles = Arrays.copyOf(cles, taille * 2);
+        }
+        if (id >= positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(positions.length * 2, id + 1));
+        }
+        placer(taille++, id, cle);
+        monter(taille - 1);
+    }
+
+    /**
+     * Retire un emplacement du tas
+     */
+    void retirer(int id) {
+        int position = positions[id];
+        taille--;
+        if (position == taille) {
+            return;
+        }
+        int dernier = ids[taille];
+        placer(position, dernier, cles[taille]);
+        monter(position);
+        descendre(positions[dernier]);
+    }
+
+    /**
+     * Change la clé d'un emplacement du tas
+     */
+    void changerCle(int id, long cle) {
+        int position = positions[id];
+        long ancienne = cles[position];
+        cles[position] = cle;
+        if (cle < ancienne) {
+            monter(position);
+        } else {
+            descendre(position);
+        }
+    }
+
+    boolean contient(int id) {
+        if (id >= positions.length) {
+            return false;
+        }
+        int position = positions[id];
+        return position < taille && ids[position] == id;
+    }
+
+    /**
+     * Retourne la clé d'un emplacement du tas
+     */
+    long cle(int id) {
+        return cles[positions[id]];
+    }
+
+    /**
+     * Retourne l'emplacement de plus petite clé, le tas n'étant pas vide
+     */
+    int sommet() {
+        return ids[0];
+    }
+
+    /**
+     * Retourne la plus petite clé, le tas n'étant pas vide
+     */
+    long cleSommet() {
+        return cles[0];
+    }
+
+    int taille() {
+        return taille;
+    }
+
+    boolean estVide() {
+        return taille == 0;
+    }
+
+    private void monter(int position) {
+        int id = ids[position];
+        long cle = cles[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (cles[parent] <= cle) {
+                break;
+            }
+            placer(position, ids[parent], cles[parent]);
+            position = parent;
+        }
+        placer(position, id, cle);
+    }
+
+    private void descendre(int position) {
+        int id = ids[position];
+        long cle = cles[position];
+        while (true) {
+            int enfant = 2 * position + 1;
+            if (enfant >= taille) {
+                break;
+            }
+            if (enfant + 1 < taille && cles[enfant + 1] < cles[enfant]) {
+                enfant++;
+            }
+            if (cle <= cles[enfant]) {
+                break;
+            }
+            placer(position, ids[enfant], cles[enfant]);
+            position = enfant;
+        }
+        placer(position, id, cle);
+    }
+
+    private void placer(int position, int id, long cle) {
+        ids[position] = id;
+        cles[position] = cle;
+        positions[id] = position;
+    }
+}
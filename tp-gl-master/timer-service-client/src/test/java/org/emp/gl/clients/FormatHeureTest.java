@@ -0,0 +1,46 @@
+package org.emp.gl.clients;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.emp.gl.timer.service.InstantaneTemps;
+import org.junit.Test;
+
+/**
+ * Tests des tables de formatage de l'heure
+ */
+public class FormatHeureTest {
+
+    @Test
+    public void chainesPartageesParSeconde() {
+        assertEquals("00:00:00", FormatHeure.texte(0));
+        assertEquals("23:59:59", FormatHeure.texte(86399));
+        assertEquals("09:05:07", FormatHeure.heure(InstantaneTemps.composer(9, 5, 7, 300)));
+        assertSame(FormatHeure.texte(3600), FormatHeure.texte(3600));
+    }
+
+    @Test
+    public void dureesDeComptesARebours() {
+        assertEquals("00:00:00", FormatHeure.duree(-3));
+        assertEquals("01:01:01", FormatHeure.duree(3661));
+        assertEquals("25:00:01", FormatHeure.duree(90001));
+        assertEquals("100:00:00", FormatHeure.duree(360000));
+    }
+
+    @Test
+    public void ecritureDansDesTampons() {
+        char[] caracteres = new char[10];
+        assertEquals(9, FormatHeure.ecrire(45296, caracteres, 1));
+        assertEquals("12:34:56", new String(caracteres, 1, 8));
+
+        ByteBuffer octets = ByteBuffer.allocate(32);
+        FormatHeure.ecrire(45296, octets);
+        octets.put((byte) ' ');
+        FormatHeure.ecrireCompact(9 * 3600 + 5 * 60, octets);
+        assertEquals("12:34:56 9:5:0",
+                     new String(octets.array(), 0, octets.position(), StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,184 @@
+package org.emp.gl.clients;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.beans.PropertyChangeEvent;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.emp.gl.timer.service.TimerChangeListener;
+import org.emp.gl.timer.service.TimerService;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests du journal des comptes à rebours, l'heure murale étant simulée
+ */
+public class JournalComptesAReboursTest {
+
+    @Rule
+    public TemporaryFolder dossier = new TemporaryFolder();
+
+    private final AtomicLong maintenant = new AtomicLong(1000000);
+
+    private JournalComptesARebours ouvrir(Path fichier) throws Exception {
+        return JournalComptesARebours.ouvrir(fichier, maintenant::get);
+    }
+
+    @Test
+    public void comptesRestauresSurLeursEcheances() throws Exception {
+        Path fichier = dossier.getRoot().toPath().resolve("comptes.journal");
+        JournalComptesARebours journal = ouvrir(fichier);
+        long a = journal.creer(10000);
+        long b = journal.creer(20000);
+        long c = journal.creer(5000);
+        maintenant.addAndGet(5000);
+        assertTrue(journal.suspendre(b));
+        assertTrue(journal.terminer(c));
+        journal.close();
+
+        maintenant.addAndGet(3000);
+        journal = ouvrir(fichier);
+        assertEquals(2, journal.getNombreActifs());
+        assertEquals(2000, journal.getRestantMillis(a));
+        assertTrue(journal.estEnPause(b));
+        assertEquals(15000, journal.getRestantMillis(b));
+        assertFalse(journal.estActif(c));
+
+        assertTrue(journal.reprendre(b));
+        maintenant.addAndGet(1000);
+        assertEquals(14000, journal.getRestantMillis(b));
+        journal.close();
+    }
+
+    @Test
+    public void compactionConserveLesComptesVivants() throws Exception {
+        Path fichier = dossier.getRoot().toPath().resolve("comptes.journal");
+        JournalComptesARebours journal = ouvrir(fichier);
+        List<Long> vivants = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            long compte = journal.creer(1000 + i);
+            if (i % 1000 == 0) {
+                vivants.add(compte);
+                journal.suspendre(compte);
+            } else {
+                journal.terminer(compte);
+            }
+        }
+        assertEquals(50, journal.getNombreActifs());
+        assertTrue(journal.getNombreEnregistrements() < 50000);
+        journal.close();
+
+        journal = ouvrir(fichier);
+        assertEquals(50, journal.getNombreActifs());
+        for (int i = 0; i < vivants.size(); i++) {
+            assertTrue(journal.estEnPause(vivants.get(i)));
+            assertEquals(1000 + i * 1000, journal.getRestantMillis(vivants.get(i)));
+        }
+        journal.close();
+    }
+
+    @Test
+    public void enregistrementIncompletIgnore() throws Exception {
+        Path fichier = dossier.getRoot().toPath().resolve("comptes.journal");
+        JournalComptesARebours journal = ouvrir(fichier);
+        long a = journal.creer(10000);
+        long b = journal.creer(20000);
+        journal.close();
+
+        // Simule une écriture interrompue du second enregistrement
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4}), 64 + 16);
+        }
+
+        journal = ouvrir(fichier);
+        assertTrue(journal.estActif(a));
+        assertFalse(journal.estActif(b));
+        long c = journal.creer(30000);
+        journal.close();
+
+        journal = ouvrir(fichier);
+        assertEquals(2, journal.getNombreActifs());
+        assertEquals(30000, journal.getRestantMillis(c));
+        journal.close();
+    }
+
+    @Test
+    public void compteTermineOuEchuNonRestaure() throws Exception {
+        Path fichier = dossier.getRoot().toPath().resolve("comptes.journal");
+        AtomicInteger desabonnements = new AtomicInteger();
+        TimerService service = (TimerService) Proxy.newProxyInstance(
+                TimerService.class.getClassLoader(), new Class<?>[] {TimerService.class},
+                (proxy, methode, args) -> {
+                    if ("removeTimeChangeListener".equals(methode.getName())) {
+                        desabonnements.incrementAndGet();
+                    }
+                    return methode.getReturnType() == int.class ? 0 : null;
+                });
+        JournalComptesARebours journal = ouvrir(fichier);
+        CompteARebours compte = new CompteARebours(2, service, journal);
+        new CompteARebours(3, service, journal);
+        PropertyChangeEvent seconde = new PropertyChangeEvent(
+                service, TimerChangeListener.SECONDE_PROP, 0, 1);
+        for (int i = 0; i < 3; i++) {
+            compte.propertyChange(seconde);
+        }
+        assertEquals(1, desabonnements.get());
+        assertEquals(1, journal.getNombreActifs());
+        journal.close();
+
+        // Le second compte est échu à la réouverture
+        maintenant.addAndGet(5000);
+        journal = ouvrir(fichier);
+        assertTrue(CompteARebours.restaurer(journal, service).isEmpty());
+        assertEquals(0, journal.getNombreActifs());
+        journal.close();
+        journal = ouvrir(fichier);
+        assertEquals(0, journal.getNombreActifs());
+        journal.close();
+    }
+
+    @Test
+    public void compteTermineReinitialiseSeReabonne() throws Exception {
+        Path fichier = dossier.getRoot().toPath().resolve("comptes.journal");
+        AtomicInteger abonnements = new AtomicInteger();
+        TimerService service = (TimerService) Proxy.newProxyInstance(
+                TimerService.class.getClassLoader(), new Class<?>[] {TimerService.class},
+                (proxy, methode, args) -> {
+                    if ("addTimeChangeListener".equals(methode.getName())) {
+                        abonnements.incrementAndGet();
+                    } else if ("removeTimeChangeListener".equals(methode.getName())) {
+                        abonnements.decrementAndGet();
+                    }
+                    return methode.getReturnType() == int.class ? 0 : null;
+                });
+        JournalComptesARebours journal = ouvrir(fichier);
+        CompteARebours compte = new CompteARebours(1, service, journal);
+        PropertyChangeEvent seconde = new PropertyChangeEvent(
+                service, TimerChangeListener.SECONDE_PROP, 0, 1);
+        compte.propertyChange(seconde);
+        compte.propertyChange(seconde);
+        assertEquals(0, abonnements.get());
+
+        compte.reinitialiser(2);
+        assertEquals(1, abonnements.get());
+        assertEquals(1, journal.getNombreActifs());
+        compte.propertyChange(seconde);
+        assertEquals(1, compte.getCompteurActuel());
+        // Un compte encore en cours ne s'abonne pas deux fois
+        compte.reinitialiser(3);
+        assertEquals(1, abonnements.get());
+        journal.close();
+    }
+}
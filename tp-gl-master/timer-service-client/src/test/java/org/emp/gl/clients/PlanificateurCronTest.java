@@ -0,0 +1,110 @@
+package org.emp.gl.clients;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.emp.gl.timer.service.TimerService;
+import org.junit.Test;
+
+/**
+ * Tests des expressions cron et du planificateur, les minutes étant simulées
+ */
+public class PlanificateurCronTest {
+
+    // Lundi 1er janvier 2024 à minuit, heure du service inerte
+    private static final LocalDateTime DEPART = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final PlanificateurCron planificateur = new PlanificateurCron(serviceInerte(),
+            Clock.fixed(DEPART.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+
+    private static TimerService serviceInerte() {
+        return (TimerService) Proxy.newProxyInstance(TimerService.class.getClassLoader(),
+                new Class<?>[] {TimerService.class},
+                (proxy, methode, args) -> methode.getReturnType() == int.class ? 0 : null);
+    }
+
+    private static LocalDateTime suivante(String expression, LocalDateTime apres) {
+        long minute = ExpressionCron.analyser(expression)
+                .suivante(ExpressionCron.enMinuteLocale(apres));
+        return minute == ExpressionCron.JAMAIS ? null : ExpressionCron.enDateHeure(minute);
+    }
+
+    private void avancerMinutes(int nombre) {
+        LocalDateTime instant = DEPART;
+        for (int i = 0; i < nombre; i++) {
+            instant = instant.plusMinutes(1);
+            planificateur.avancer(instant.getHour(), instant.getMinute());
+        }
+    }
+
+    @Test
+    public void prochainesOccurrences() {
+        LocalDateTime samedi = LocalDateTime.of(2024, 1, 6, 10, 0);
+        assertEquals(LocalDateTime.of(2024, 1, 8, 14, 30), suivante("30 14 * * 1-5", samedi));
+        assertEquals(LocalDateTime.of(2024, 1, 6, 10, 15), suivante("*/15 * * * *", samedi));
+        assertEquals(LocalDateTime.of(2024, 1, 7, 0, 0), suivante("@weekly", samedi));
+        assertEquals(LocalDateTime.of(2028, 2, 29, 0, 0),
+                     suivante("0 0 29 2 *", LocalDateTime.of(2024, 3, 1, 0, 0)));
+        // Jour du mois ou jour de la semaine : le vendredi 12 précède le 13
+        assertEquals(LocalDateTime.of(2024, 1, 12, 12, 0), suivante("0 12 13 * 5", samedi));
+        assertNull(suivante("0 0 30 2 *", samedi));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void expressionInvalideRefusee() {
+        ExpressionCron.analyser("61 * * * *");
+    }
+
+    @Test
+    public void tachesRepeteesEtAlarme() {
+        AtomicInteger quarts = new AtomicInteger();
+        AtomicInteger alarmes = new AtomicInteger();
+        long repetee = planificateur.planifier("*/15 * * * *", quarts::incrementAndGet);
+        long alarme = planificateur.alarme(1, 0, alarmes::incrementAndGet);
+        assertEquals(LocalDateTime.of(2024, 1, 1, 1, 0), planificateur.getProchaineExecution(alarme));
+
+        avancerMinutes(120);
+
+        assertEquals(8, quarts.get());
+        assertEquals(1, alarmes.get());
+        assertNull(planificateur.getProchaineExecution(alarme));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 2, 15), planificateur.getProchaineExecution(repetee));
+        assertTrue(planificateur.annuler(repetee));
+        assertFalse(planificateur.annuler(repetee));
+        assertEquals(0, planificateur.getNombreTaches());
+    }
+
+    @Test
+    public void centMilleAlarmesSurUneJournee() {
+        AtomicInteger executees = new AtomicInteger();
+        Random aleatoire = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            planificateur.alarme(aleatoire.nextInt(24), aleatoire.nextInt(60),
+                                 executees::incrementAndGet);
+        }
+
+        avancerMinutes(24 * 60);
+
+        assertEquals(100000, executees.get());
+        assertEquals(0, planificateur.getNombreTaches());
+    }
+
+    @Test
+    public void sautEnAvantExecuteUneSeuleFois() {
+        AtomicInteger executions = new AtomicInteger();
+        planificateur.planifier("* * * * *", executions::incrementAndGet);
+        planificateur.avancer(0, 1);
+        // L'horloge fixe situe 3 h 00 le même jour
+        planificateur.recaler(3, 0);
+        assertEquals(2, executions.get());
+    }
+}
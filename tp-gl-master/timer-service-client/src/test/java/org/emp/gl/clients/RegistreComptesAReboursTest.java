@@ -0,0 +1,91 @@
+package org.emp.gl.clients;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.emp.gl.timer.service.TimerService;
+import org.junit.Test;
+
+/**
+ * Tests du registre de comptes à rebours, les secondes étant simulées
+ */
+public class RegistreComptesAReboursTest {
+
+    private final List<Long> expires = new ArrayList<>();
+    private final RegistreComptesARebours registre =
+            new RegistreComptesARebours(serviceInerte(), expires::add);
+
+    private static TimerService serviceInerte() {
+        return (TimerService) Proxy.newProxyInstance(TimerService.class.getClassLoader(),
+                new Class<?>[] {TimerService.class}, (proxy, methode, args) -> null);
+    }
+
+    @Test
+    public void compteExpireApresSaDuree() {
+        long compte = registre.demarrer(3);
+        registre.avancerSeconde();
+        assertEquals(2, registre.getSecondesRestantes(compte));
+        registre.avancerSeconde();
+        assertTrue(expires.isEmpty());
+        registre.avancerSeconde();
+
+        assertEquals(1, expires.size());
+        assertEquals(compte, (long) expires.get(0));
+        assertFalse(registre.estActif(compte));
+        assertEquals(0, registre.getNombreActifs());
+    }
+
+    @Test
+    public void compteLointainPasseParLeTas() {
+        long lointain = registre.demarrer(70000);
+        long annule = registre.demarrer(80000);
+        assertTrue(registre.annuler(annule));
+        for (int s = 0; s < 69999; s++) {
+            registre.avancerSeconde();
+        }
+        assertEquals(1, registre.getSecondesRestantes(lointain));
+        registre.avancerSeconde();
+        assertEquals(1, expires.size());
+        assertEquals(lointain, (long) expires.get(0));
+    }
+
+    @Test
+    public void poigneePerimeeNeDesignePasLeNouveauCompte() {
+        long ancien = registre.demarrer(1);
+        assertTrue(registre.annuler(ancien));
+        long nouveau = registre.demarrer(5);
+        assertFalse(registre.annuler(ancien));
+        assertEquals(5, registre.getSecondesRestantes(nouveau));
+    }
+
+    @Test
+    public void expirationQuiAnnuleUnCompteDuMemeSeau() {
+        long[] autre = new long[1];
+        List<Long> recues = new ArrayList<>();
+        RegistreComptesARebours[] proprietaire = new RegistreComptesARebours[1];
+        proprietaire[0] = new RegistreComptesARebours(serviceInerte(), poignee -> {
+            recues.add(poignee);
+            proprietaire[0].annuler(autre[0]);
+        });
+        RegistreComptesARebours registre = proprietaire[0];
+        long premier = registre.demarrer(1);
+        autre[0] = registre.demarrer(1);
+
+        registre.avancerSeconde();
+
+        // Le compte annulé a expiré en même temps : l'annulation échoue
+        assertEquals(2, recues.size());
+        assertEquals(0, registre.getNombreActifs());
+        assertFalse(registre.estActif(premier));
+        assertFalse(registre.estActif(autre[0]));
+        long a = registre.demarrer(5);
+        long b = registre.demarrer(5);
+        assertTrue(a != b);
+        assertEquals(2, registre.getNombreActifs());
+    }
+}
@@ -0,0 +1,32 @@
+package org.emp.gl.clients;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.emp.gl.timer.service.InstantaneTemps;
+import org.junit.Test;
+
+/**
+ * Tests de la sortie console asynchrone
+ */
+public class SortieConsoleTest {
+
+    @Test
+    public void lignesFormateesDansLOrdreDeDepot() {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream();
+        SortieConsole sortie = new SortieConsole(Channels.newChannel(octets), 16);
+        byte[] prefixe = SortieConsole.encoder("A affiche ");
+
+        sortie.publier(prefixe, InstantaneTemps.composer(9, 5, 0, 0));
+        sortie.publier(prefixe, InstantaneTemps.composer(23, 59, 59, 900));
+        sortie.close();
+
+        assertEquals("A affiche 9:5:0\nA affiche 23:59:59\n",
+                     new String(octets.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(2, sortie.getNombreEcrits());
+        assertEquals(0, sortie.getNombreRejetes());
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Instantané de l'heure du service
+ */
+package org.emp.gl.timer.service;
+
+/**
+ * Codage d'une heure complète dans un seul {@code long}.
+ * <p>
+ * Un instantané est publié d'une seule écriture par le service : sa
+ * lecture est atomique et donne toujours une heure cohérente, même au
+ * moment d'un passage à la minute ou à l'heure suivante.
+ * <pre>
+ * bits 32-36 : heures    bits 24-29 : minutes
+ * bits 16-21 : secondes  bits  0-9  : millisecondes
+ * </pre>
+ */
+public final class InstantaneTemps {
+
+    private InstantaneTemps() {
+    }
+
+    /**
+     * Compose un instantané
+     */
+    public static long composer(int heures, int minutes, int secondes, int millisecondes) {
+        return ((long) heures << 32) | ((long) minutes << 24)
+               | ((long) secondes << 16) | millisecondes;
+    }
+
+    public static int heures(long instantane) {
+        return (int) (instantane >>> 32) & 0x1F;
+    }
+
+    public static int minutes(long instantane) {
+        return (int) (instantane >>> 24) & 0x3F;
+    }
+
+    public static int secondes(long instantane) {
+        return (int) (instantane >>> 16) & 0x3F;
+    }
+
+    public static int millisecondes(long instantane) {
+        return (int) instantane & 0x3FF;
+    }
+
+    public static int dixiemes(long instantane) {
+        return millisecondes(instantane) / 100;
+    }
+
+    /**
+     * Nombre de secondes depuis minuit
+     */
+    public static int secondesDuJour(long instantane) {
+        return heures(instantane) * 3600 + minutes(instantane) * 60 + secondes(instantane);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Découverte des implémentations du service de temps
+ */
+package org.emp.gl.timer.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Trouve une implémentation de {@link TimerService} sans dépendre d'elle.
+ * <p>
+ * Les implémentations se déclarent dans un fichier
+ * {@code META-INF/services/org.emp.gl.timer.service.TimerService} de leur
+ * module et sont chargées par {@link ServiceLoader}. La première trouvée
+ * est retenue, sauf si la propriété système {@value #PROPRIETE} nomme la
+ * classe voulue : elle est alors choisie parmi les déclarations avant
+ * toute instanciation, seule la classe retenue étant créée. Une
+ * implémentation doit avoir un constructeur public sans argument, et ne
+ * rien démarrer de coûteux avant qu'on s'y abonne.
+ */
+public final class ServicesTemps {
+
+    /**
+     * Propriété système donnant le nom de la classe à retenir
+     */
+    public static final String PROPRIETE = "org.emp.gl.timer.service";
+
+    private static final String DECLARATIONS =
+            "META-INF/services/" + TimerService.class.getName();
+
+    private ServicesTemps() {
+    }
+
+    /**
+     * Charge l'implémentation retenue
+     *
+     * @throws IllegalStateException si aucune implémentation ne convient
+     */
+    public static TimerService charger() {
+        return charger(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * Charge l'implémentation retenue parmi celles que voit un chargeur de classes
+     *
+     * @throws IllegalStateException si aucune implémentation ne convient
+     */
+    public static TimerService charger(ClassLoader chargeur) {
+        String demandee = System.getProperty(PROPRIETE);
+        if (demandee != null) {
+            return instancier(demandee, chargeur);
+        }
+        // Le chargement est paresseux : seul le premier service est créé
+        Iterator<TimerService> services = ServiceLoader.load(TimerService.class, chargeur).iterator();
+        try {
+            if (services.hasNext()) {
+                return services.next();
+            }
+        } catch (ServiceConfigurationError e) {
+            throw new IllegalStateException("Service de temps invalide : " + e.getMessage(), e);
+        }
+        throw new IllegalStateException("Aucun service de temps déclaré");
+    }
+
+    /**
+     * Crée la seule implémentation demandée, si elle est déclarée
+     */
+    private static TimerService instancier(String demandee, ClassLoader chargeur) {
+        if (!declarees(chargeur).contains(demandee)) {
+            throw new IllegalStateException("Service de temps introuvable : " + demandee);
+        }
+        try {
+            return Class.forName(demandee, false, chargeur).asSubclass(TimerService.class)
+                        .getConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException("Service de temps invalide : " + demandee, e);
+        }
+    }
+
+    /**
+     * Lit les noms des implémentations déclarées, sans charger leurs classes
+     */
+    private static Set<String> declarees(ClassLoader chargeur) {
+        Set<String> noms = new LinkedHashSet<>();
+        try {
+            Enumeration<URL> fichiers = chargeur.getResources(DECLARATIONS);
+            while (fichiers.hasMoreElements()) {
+                try (BufferedReader lecteur = new BufferedReader(new InputStreamReader(
+                        fichiers.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    String ligne;
+                    while ((ligne = lecteur.readLine()) != null) {
+                        int commentaire = ligne.indexOf('#');
+                        String nom = (commentaire < 0 ? ligne : ligne.substring(0, commentaire)).trim();
+                        if (!nom.isEmpty()) {
+                            noms.add(nom);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Déclarations de services illisibles : " + e, e);
+        }
+        return noms;
+    }
+}
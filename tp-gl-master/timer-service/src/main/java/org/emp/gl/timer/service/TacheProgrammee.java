@@ -0,0 +1,30 @@
+/*
+ * Tâche différée confiée au service de temps
+ */
+package org.emp.gl.timer.service;
+
+/**
+ * Représente une tâche programmée auprès du {@link TimerService},
+ * ponctuelle ou périodique. Permet d'annuler la tâche tant qu'elle
+ * n'a pas été exécutée.
+ */
+public interface TacheProgrammee {
+
+    /**
+     * Annule la tâche. Une tâche périodique ne sera plus relancée.
+     *
+     * @return true si l'annulation a eu lieu, false si la tâche était
+     *         déjà expirée ou annulée
+     */
+    boolean annuler();
+
+    /**
+     * Vérifie si la tâche a été annulée
+     */
+    boolean estAnnulee();
+
+    /**
+     * Vérifie si une tâche ponctuelle a déjà été exécutée
+     */
+    boolean estExpiree();
+}
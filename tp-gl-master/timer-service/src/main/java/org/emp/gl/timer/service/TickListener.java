@@ -0,0 +1,29 @@
+/*
+ * Écouteur de ticks à valeurs primitives
+ */
+package org.emp.gl.timer.service;
+
+/**
+ * Écouteur de changements temporels sans allocation.
+ * <p>
+ * Contrairement à {@link TimerChangeListener}, les valeurs sont transmises
+ * en types primitifs : aucun événement ni entier n'est alloué lors de la
+ * notification. L'heure complète est fournie à chaque appel, cohérente avec
+ * l'unité qui vient de changer.
+ */
+public interface TickListener {
+
+    /**
+     * Notifie le changement d'une unité de temps
+     *
+     * @param unite Code de l'unité qui a changé, voir {@link UniteTemps}
+     * @param ancienneValeur Valeur précédente de cette unité
+     * @param heures Heures courantes
+     * @param minutes Minutes courantes
+     * @param secondes Secondes courantes
+     * @param dixiemes Dixièmes de seconde courants, ou millisecondes
+     *                 courantes pour {@link UniteTemps#MILLISECONDE}
+     */
+    void onTick(int unite, int ancienneValeur, int heures, int minutes,
+                int secondes, int dixiemes);
+}
@@ -13,5 +13,29 @@ public interface TimeChangeProvider {
 
     public void addTimeChangeListener(TimerChangeListener pl);
 
+    /**
+     * Enregistre un écouteur pour une partie seulement des unités de temps.
+     * Un écouteur déjà enregistré voit son abonnement remplacé.
+     *
+     * @param pl L'écouteur
+     * @param masque Combinaison des masques de {@link UniteTemps}
+     * @param frequence L'écouteur n'est notifié qu'une fois toutes les
+     *                  {@code frequence} unités (1 pour chaque unité)
+     */
+    public void addTimeChangeListener(TimerChangeListener pl, int masque, int frequence);
+
     public void removeTimeChangeListener(TimerChangeListener pl);
+
+    /**
+     * Enregistre un écouteur à valeurs primitives, notifié sans allocation.
+     * Un écouteur déjà enregistré voit son abonnement remplacé.
+     *
+     * @param tl L'écouteur
+     * @param masque Combinaison des masques de {@link UniteTemps}
+     * @param frequence L'écouteur n'est notifié qu'une fois toutes les
+     *                  {@code frequence} unités (1 pour chaque unité)
+     */
+    public void addTickListener(TickListener tl, int masque, int frequence);
+
+    public void removeTickListener(TickListener tl);
 }
@@ -18,6 +18,12 @@ public interface TimerChangeListener extends PropertyChangeListener {
     final static String MINUTE_PROP = "minute" ;
     final static String HEURE_PROP = "heure" ;
     
+    // Saut de l'heure murale : valeurs en secondes depuis minuit
+    final static String DISCONTINUITE_PROP = "discontinuité" ;
+    
+    // Milliseconde, diffusée à la résolution configurée du service
+    final static String MILLISECONDE_PROP = "milliseconde" ;
+    
     // 3. La méthode propertyChange(String, Object, Object)
     //    est maintenant redondante car elle est en conflit
     //    avec celle de PropertyChangeListener.
@@ -5,6 +5,8 @@
  */
 package org.emp.gl.timer.service;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  *
  * @author tina
@@ -19,4 +21,30 @@ public interface TimerService extends TimeChangeProvider {
 
     int getDixiemeDeSeconde();
 
+    /**
+     * Retourne les millisecondes courantes, à la résolution du service
+     */
+    default int getMillisecondes() {
+        return InstantaneTemps.millisecondes(snapshot());
+    }
+
+    /**
+     * Retourne l'heure courante en une seule lecture atomique, sans verrou.
+     * Les champs se décodent avec {@link InstantaneTemps}.
+     */
+    long snapshot();
+
+    /**
+     * Programme l'exécution unique d'une tâche après un délai.
+     * La tâche s'exécute sur le thread du service, à la résolution
+     * d'un dixième de seconde.
+     */
+    TacheProgrammee programmer(Runnable tache, long delai, TimeUnit unite);
+
+    /**
+     * Programme l'exécution périodique d'une tâche, jusqu'à son annulation.
+     */
+    TacheProgrammee programmerPeriodique(Runnable tache, long delaiInitial,
+                                         long periode, TimeUnit unite);
+
 }
@@ -0,0 +1,96 @@
+/*
+ * Unités de temps diffusées par le service
+ */
+package org.emp.gl.timer.service;
+
+/**
+ * Codes et masques des unités de temps diffusées par un {@link TimeChangeProvider}.
+ * Les masques se combinent par un OU binaire pour choisir les événements
+ * reçus par un écouteur.
+ */
+public final class UniteTemps {
+
+    public static final int DIXIEME = 0;
+    public static final int SECONDE = 1;
+    public static final int MINUTE = 2;
+    public static final int HEURE = 3;
+
+    /**
+     * Saut de l'heure murale (pas NTP, changement d'heure). L'ancienne et
+     * la nouvelle valeur sont exprimées en secondes depuis minuit. Cet
+     * événement ne se reçoit qu'en le demandant explicitement.
+     */
+    public static final int DISCONTINUITE = 4;
+
+    /**
+     * Milliseconde, diffusée à la résolution configurée du service. Pour
+     * cette unité, le dernier paramètre de
+     * {@link TickListener#onTick(int, int, int, int, int, int)} porte les
+     * millisecondes courantes.
+     */
+    public static final int MILLISECONDE = 5;
+
+    public static final int NOMBRE_UNITES = 6;
+
+    public static final int MASQUE_DIXIEME = 1 << DIXIEME;
+    public static final int MASQUE_SECONDE = 1 << SECONDE;
+    public static final int MASQUE_MINUTE = 1 << MINUTE;
+    public static final int MASQUE_HEURE = 1 << HEURE;
+    public static final int MASQUE_DISCONTINUITE = 1 << DISCONTINUITE;
+    public static final int MASQUE_MILLISECONDE = 1 << MILLISECONDE;
+
+    /**
+     * Les quatre unités de l'heure, de l'heure au dixième. La discontinuité,
+     * dont les valeurs ne sont pas celles d'une unité, et la milliseconde,
+     * qui fait tourner le service à sa résolution la plus fine, se
+     * demandent explicitement.
+     */
+    public static final int MASQUE_TOUTES = MASQUE_DIXIEME | MASQUE_SECONDE
+                                            | MASQUE_MINUTE | MASQUE_HEURE;
+
+    /**
+     * Tous les événements diffusés, discontinuités et millisecondes comprises
+     */
+    public static final int MASQUE_EVENEMENTS = MASQUE_TOUTES | MASQUE_DISCONTINUITE
+                                                | MASQUE_MILLISECONDE;
+
+    private static final String[] PROPRIETES = {
+        TimerChangeListener.DIXEME_DE_SECONDE_PROP,
+        TimerChangeListener.SECONDE_PROP,
+        TimerChangeListener.MINUTE_PROP,
+        TimerChangeListener.HEURE_PROP,
+        TimerChangeListener.DISCONTINUITE_PROP,
+        TimerChangeListener.MILLISECONDE_PROP
+    };
+
+    private UniteTemps() {
+    }
+
+    /**
+     * Retourne le masque correspondant à une unité
+     */
+    public static int masque(int unite) {
+        return 1 << unite;
+    }
+
+    /**
+     * Vérifie si un masque contient une unité
+     */
+    public static boolean contient(int masque, int unite) {
+        return (masque & masque(unite)) != 0;
+    }
+
+    /**
+     * Vérifie qu'un masque ne désigne que des unités connues
+     */
+    public static boolean estValide(int masque) {
+        return (masque & ~MASQUE_EVENEMENTS) == 0;
+    }
+
+    /**
+     * Retourne le nom de propriété associé à une unité
+     */
+    public static String propriete(int unite) {
+        return PROPRIETES[unite];
+    }
+}